@@ -0,0 +1,141 @@
+package org.example;
+
+import org.apache.hadoop.hive.ql.Context;
+import org.apache.hadoop.hive.ql.lib.DefaultGraphWalker;
+import org.apache.hadoop.hive.ql.lib.DefaultRuleDispatcher;
+import org.apache.hadoop.hive.ql.lib.Node;
+import org.apache.hadoop.hive.ql.lib.NodeProcessor;
+import org.apache.hadoop.hive.ql.lib.NodeProcessorCtx;
+import org.apache.hadoop.hive.ql.lib.Rule;
+import org.apache.hadoop.hive.ql.parse.ASTNode;
+import org.apache.hadoop.hive.ql.parse.BaseSemanticAnalyzer;
+import org.apache.hadoop.hive.ql.parse.HiveParser;
+import org.apache.hadoop.hive.ql.parse.ParseDriver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Stack;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of extracting table names from already parsed ASTs of large generated queries
+ * with {@link TableReferenceVisitor} against the previous {@link DefaultGraphWalker} based
+ * extraction. The ASTs are parsed in {@link #setUp()}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xss16m")
+public class AstVisitorBenchmark {
+
+    @Param({Workloads.JOINS_500, Workloads.CTE_CHAIN_200, Workloads.UNION_ALL_500})
+    public String workload;
+
+    private final List<ASTNode> trees = new ArrayList<>();
+    private final TableReferenceVisitor visitor = new TableReferenceVisitor();
+
+    @Setup
+    public void setUp() throws Exception {
+        Context context = ParseEnvironment.getDefault().newContext();
+        for (Statement statement : StatementSplitter.split(Workloads.script(workload))) {
+            trees.add(new ParseDriver().parse(statement.getText(), context));
+        }
+    }
+
+    @Benchmark
+    public void visitor(Blackhole blackhole) throws Exception {
+        for (ASTNode tree : trees) {
+            Set<String> tableNames = new LinkedHashSet<>();
+            visitor.visit(tree, tableNames, new HashSet<>());
+            blackhole.consume(tableNames);
+        }
+    }
+
+    @Benchmark
+    public void graphWalker(Blackhole blackhole) throws Exception {
+        for (ASTNode tree : trees) {
+            LegacyExtractor extractor = new LegacyExtractor();
+            new DefaultGraphWalker(new DefaultRuleDispatcher(extractor, new LinkedHashMap<Rule, NodeProcessor>(), null))
+                    .startWalking(new ArrayList<Node>(Collections.singletonList(tree)), null);
+            blackhole.consume(extractor.tableNames);
+        }
+    }
+
+    /**
+     * The extraction as it was done before {@link TableReferenceVisitor}: every node is dispatched
+     * by the graph walker, and every query re-walks its FROM clause recursively.
+     */
+    private static class LegacyExtractor implements NodeProcessor {
+
+        private final List<String> tableNames = new ArrayList<>();
+        private final Set<String> cteNames = new HashSet<>();
+
+        @Override
+        public Object process(Node nd, Stack<Node> stack, NodeProcessorCtx procCtx, Object... nodeOutputs) {
+            ASTNode pt = (ASTNode) nd;
+            if (pt.getType() == HiveParser.TOK_QUERY) {
+                extractFromQuery(pt);
+            } else if (pt.getType() == HiveParser.TOK_CTE) {
+                for (Node child : pt.getChildren()) {
+                    ASTNode cteNode = (ASTNode) child;
+                    if (cteNode.getType() == HiveParser.TOK_SUBQUERY) {
+                        cteNames.add("default." + BaseSemanticAnalyzer.getUnescapedName((ASTNode) cteNode.getChild(1)));
+                        extractFromQuery((ASTNode) cteNode.getChild(0));
+                    }
+                }
+            }
+            return null;
+        }
+
+        private void extractFromQuery(ASTNode pt) {
+            switch (pt.getType()) {
+                case HiveParser.TOK_SUBQUERY:
+                    extractFromQuery((ASTNode) pt.getChild(0));
+                    break;
+                case HiveParser.TOK_QUERY:
+                case HiveParser.TOK_FROM:
+                case HiveParser.TOK_JOIN:
+                case HiveParser.TOK_LEFTOUTERJOIN:
+                case HiveParser.TOK_RIGHTOUTERJOIN:
+                case HiveParser.TOK_FULLOUTERJOIN:
+                case HiveParser.TOK_UNIONALL:
+                case HiveParser.TOK_LATERAL_VIEW:
+                    for (Node child : pt.getChildren()) {
+                        extractFromQuery((ASTNode) child);
+                    }
+                    break;
+                case HiveParser.TOK_TABREF:
+                    ASTNode tableTree = (ASTNode) pt.getChild(0);
+                    String tableName = BaseSemanticAnalyzer.getUnescapedName((ASTNode) tableTree.getChild(0));
+                    if (tableTree.getChildCount() > 1) {
+                        tableName = tableName + "." + tableTree.getChild(1);
+                    }
+                    if (!tableNames.contains(tableName) && !cteNames.contains(tableName)) {
+                        tableNames.add(tableName);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+}
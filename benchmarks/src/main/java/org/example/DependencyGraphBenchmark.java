@@ -0,0 +1,96 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Building a {@link DependencyGraph} from a synthetic corpus with parallel adds, and transitive
+ * queries on the result. Every script has three statements that each write one of five tables
+ * owned by the script from four tables picked at random, so the corpus has five tables per script;
+ * 200,000 scripts give the target scale of 1M tables.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class DependencyGraphBenchmark {
+
+    @Param({"20000", "200000"})
+    public int scripts;
+
+    private List<List<StatementResult>> corpus;
+    private DependencyGraph graph;
+    private String[] queryTables;
+    private String[] queryScripts;
+    private int next;
+    private final SymbolTable symbols = new SymbolTable();
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        int tables = scripts * 5;
+        corpus = new ArrayList<>(scripts);
+        for (int s = 0; s < scripts; s++) {
+            List<StatementResult> statements = new ArrayList<>(3);
+            for (int i = 0; i < 3; i++) {
+                List<String> sources = new ArrayList<>(4);
+                for (int j = 0; j < 4; j++) {
+                    sources.add("db.t" + random.nextInt(tables));
+                }
+                TableTarget target = new TableTarget("db.t" + (s * 5 + random.nextInt(5)), Collections.<String, String>emptyMap());
+                statements.add(new StatementResult(symbols, i, StatementType.INSERT, "db", Collections.singletonList(target), sources));
+            }
+            corpus.add(statements);
+        }
+        graph = build();
+        queryTables = new String[1024];
+        queryScripts = new String[1024];
+        for (int i = 0; i < queryTables.length; i++) {
+            queryTables[i] = "db.t" + random.nextInt(tables);
+            queryScripts[i] = "script_" + random.nextInt(scripts);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public DependencyGraph build() {
+        DependencyGraphBuilder builder = new DependencyGraphBuilder();
+        IntStream.range(0, corpus.size()).parallel().forEach(s -> builder.add("script_" + s, corpus.get(s)));
+        return builder.build();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public List<String> upstreamTablesTransitive() {
+        return graph.getUpstreamTables(queryTables[next++ & 1023], true);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public List<String> downstreamScripts() {
+        return graph.getDownstreamScripts(queryScripts[next++ & 1023], false);
+    }
+}
@@ -0,0 +1,92 @@
+package org.example;
+
+/**
+ * Generates large synthetic Hive statements and scripts for the benchmarks.
+ */
+public final class GeneratedQueries {
+
+    private GeneratedQueries() {
+    }
+
+    /**
+     * A select over {@code tables} tables chained with inner and left joins.
+     */
+    public static String joins(int tables) {
+        StringBuilder sql = new StringBuilder("select t0.id");
+        for (int i = 1; i < tables; i++) {
+            sql.append(", t").append(i).append(".value_").append(i);
+        }
+        sql.append(" from db_0.table_0 t0");
+        for (int i = 1; i < tables; i++) {
+            sql.append(i % 2 == 0 ? " left join " : " join ")
+                    .append("db_").append(i % 10).append(".table_").append(i).append(" t").append(i)
+                    .append(" on t0.id = t").append(i).append(".id");
+        }
+        return sql.append(" where t0.dt = '2023-01-01'").toString();
+    }
+
+    /**
+     * A statement with {@code depth} CTEs, each reading the previous one and one more table.
+     */
+    public static String cteChain(int depth) {
+        StringBuilder sql = new StringBuilder("with cte_0 as (select id, value from db.base_table)");
+        for (int i = 1; i < depth; i++) {
+            sql.append(", cte_").append(i).append(" as (select a.id, b.value from cte_").append(i - 1)
+                    .append(" a join db.table_").append(i).append(" b on a.id = b.id)");
+        }
+        return sql.append(" insert overwrite table db.target select * from cte_").append(depth - 1).toString();
+    }
+
+    /**
+     * A select with {@code branches} UNION ALL branches, each over its own table.
+     */
+    public static String unionAll(int branches) {
+        StringBuilder sql = new StringBuilder("select id, value from (");
+        for (int i = 0; i < branches; i++) {
+            if (i > 0) {
+                sql.append(" union all ");
+            }
+            sql.append("select id, value from db.table_").append(i).append(" where dt = '2023-01-01'");
+        }
+        return sql.append(") u").toString();
+    }
+
+    /**
+     * A script of short statements, switching the current database every tenth statement.
+     */
+    public static String script(int statements) {
+        StringBuilder sql = new StringBuilder();
+        for (int i = 0; i < statements; i++) {
+            if (i % 10 == 0) {
+                sql.append("use db_").append(i / 10).append(";\n");
+            }
+            switch (i % 3) {
+                case 0:
+                    sql.append("insert overwrite table target_").append(i).append(" select id, name from source_").append(i)
+                            .append(" where dt = '2023-01-01';\n");
+                    break;
+                case 1:
+                    sql.append("select a.id from table_a_").append(i).append(" a join other.table_b_").append(i)
+                            .append(" b on a.id = b.id;\n");
+                    break;
+                default:
+                    sql.append("-- step ").append(i).append("\nwith c as (select * from staging_").append(i)
+                            .append(") select * from c;\n");
+                    break;
+            }
+        }
+        return sql.toString();
+    }
+
+    /**
+     * A script of at least {@code bytes} characters built from {@link #script(int)} blocks.
+     */
+    public static String scriptOfSize(int bytes) {
+        String block = script(100);
+        StringBuilder sql = new StringBuilder(bytes + block.length());
+        while (sql.length() < bytes) {
+            sql.append(block);
+        }
+        return sql.toString();
+    }
+}
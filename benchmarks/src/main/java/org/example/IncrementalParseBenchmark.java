@@ -0,0 +1,62 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of re-analyzing a script of about 5,000 lines after a one-line edit, from scratch and in
+ * incremental mode. The two versions of the script alternate, so every incremental run re-parses
+ * the edited statement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IncrementalParseBenchmark {
+
+    private final String[] versions = new String[2];
+    private int version;
+    private HiveSqlParser incremental;
+
+    @Setup
+    public void setUp() throws Exception {
+        versions[0] = GeneratedQueries.script(2500);
+        int edit = versions[0].indexOf("where dt = '2023-01-01'", versions[0].length() / 2);
+        versions[1] = versions[0].substring(0, edit) + "where dt = '2023-01-02'"
+                + versions[0].substring(edit + "where dt = '2023-01-01'".length());
+        incremental = new HiveSqlParser();
+        incremental.setIncremental(true);
+        incremental.parse(versions[0]);
+    }
+
+    private String nextVersion() {
+        version ^= 1;
+        return versions[version];
+    }
+
+    @Benchmark
+    public List<String> fullParse() throws Exception {
+        HiveSqlParser processor = new HiveSqlParser();
+        processor.parse(nextVersion());
+        return processor.getTableNames();
+    }
+
+    @Benchmark
+    public List<String> incrementalParse() throws Exception {
+        incremental.parse(nextVersion());
+        return incremental.getTableNames();
+    }
+}
@@ -0,0 +1,116 @@
+package org.example;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test of {@link LineageServer} over localhost: starts a server on a free port, unless a URL
+ * is given, and posts generated scripts from a number of client threads for a fixed time, then
+ * prints the throughput, the latency percentiles and the count of non-200 responses.
+ * <p>
+ * Usage: {@code LineageServerLoadGenerator [clients] [seconds] [statementsPerScript] [url]}
+ */
+public class LineageServerLoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int statementsPerScript = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        LineageServer server = null;
+        String url;
+        if (args.length > 3) {
+            url = args[3];
+        } else {
+            server = new LineageServer(new InetSocketAddress("localhost", 0), 4 * 1024 * 1024, 10_000);
+            server.start();
+            url = "http://localhost:" + server.getPort() + "/analyze";
+        }
+
+        byte[][] scripts = new byte[64][];
+        for (int i = 0; i < scripts.length; i++) {
+            StringBuilder script = new StringBuilder("use db_" + i + ";\n");
+            for (int j = 0; j < statementsPerScript; j++) {
+                script.append(GeneratedQueries.joins(1 + (i + j) % 8)).append(";\n");
+            }
+            scripts[i] = script.toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+        // Warm up the server and the clients
+        run(url, scripts, clients, Math.max(1, seconds / 5), new LatencyHistogram(), new AtomicLong());
+
+        LatencyHistogram latencies = new LatencyHistogram();
+        AtomicLong failures = new AtomicLong();
+        long start = System.nanoTime();
+        run(url, scripts, clients, seconds, latencies, failures);
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d clients, %d statements/script: %,.0f requests/s, p50 %.2f ms, p99 %.2f ms, "
+                        + "p99.9 %.2f ms, %d failed%n", clients, statementsPerScript, latencies.getCount() / elapsedSeconds,
+                latencies.percentileNanos(0.5) / 1e6, latencies.percentileNanos(0.99) / 1e6,
+                latencies.percentileNanos(0.999) / 1e6, failures.get());
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    private static void run(String url, byte[][] scripts, int clients, int seconds, LatencyHistogram latencies,
+                            AtomicLong failures) throws InterruptedException {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            Thread thread = new Thread(() -> {
+                for (int i = client; System.nanoTime() < deadline; i++) {
+                    long requestStart = System.nanoTime();
+                    try {
+                        if (post(url, scripts[i % scripts.length]) != 200) {
+                            failures.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        failures.incrementAndGet();
+                    }
+                    latencies.record(System.nanoTime() - requestStart);
+                }
+            }, "load-client-" + c);
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    private static int post(String url, byte[] body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(body.length);
+        connection.setRequestProperty("Content-Type", "text/plain; charset=utf-8");
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body);
+        }
+        int status = connection.getResponseCode();
+        // Drain the response so that the connection can be kept alive
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            if (in != null) {
+                ByteArrayOutputStream response = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int n;
+                while ((n = in.read(buffer)) >= 0) {
+                    response.write(buffer, 0, n);
+                }
+            }
+        }
+        return status;
+    }
+}
@@ -0,0 +1,64 @@
+package org.example;
+
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.ql.Context;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-statement cost of parsing with a shared {@link ParseEnvironment} against
+ * rebuilding the {@link HiveConf} and {@link Context} after every statement, as the parser used to.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseEnvironmentBenchmark {
+
+    private static final String STATEMENT = "select t1.id, t2.name from test.table1 t1 join test.table2 t2 on t1.id = t2.id";
+
+    private HiveSqlParser processor;
+
+    @Setup
+    public void setUp() {
+        processor = new HiveSqlParser();
+    }
+
+    @Benchmark
+    public List<String> shared() throws Exception {
+        processor.reset();
+        processor.parse(STATEMENT);
+        return processor.getTableNames();
+    }
+
+    @Benchmark
+    public Context rebuild() throws Exception {
+        processor.reset();
+        processor.parse(STATEMENT);
+        return rebuildContext();
+    }
+
+    private static Context rebuildContext() throws Exception {
+        HiveConf hiveConf = new HiveConf();
+        if (hiveConf.get("_hive.hdfs.session.path") == null) {
+            hiveConf.set("_hive.hdfs.session.path", hiveConf.get("hadoop.tmp.dir", "/tmp"));
+        }
+        if (hiveConf.get("_hive.local.session.path") == null) {
+            hiveConf.set("_hive.local.session.path", System.getProperty("java.io.tmpdir", "/tmp"));
+        }
+        return new Context(hiveConf);
+    }
+}
@@ -0,0 +1,127 @@
+package org.example;
+
+import org.apache.hadoop.hive.ql.Context;
+import org.apache.hadoop.hive.ql.parse.ASTNode;
+import org.apache.hadoop.hive.ql.parse.ParseDriver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link HiveSqlParser} end to end, with and without the fast path and with a
+ * parser reused through a {@link HiveSqlParserPool}, and of each
+ * stage on its own: statement splitting, {@link ParseDriver#parse}, the AST walk, and resolving
+ * statement results against the current database and merging them into the script result. Each
+ * stage benchmark starts from the output of the previous stage, prepared in {@link #setUp()}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xss16m")
+public class ParserStageBenchmark {
+
+    @Param({Workloads.SMALL, Workloads.JOINS_100, Workloads.JOINS_500, Workloads.CTE_CHAIN_200,
+            Workloads.UNION_ALL_500, Workloads.SCRIPT_2MB})
+    public String workload;
+
+    private String script;
+    private Context context;
+    private final List<String> statements = new ArrayList<>();
+    private final List<ASTNode> trees = new ArrayList<>();
+    private final List<Set<String>> statementTableNames = new ArrayList<>();
+    private final List<Set<String>> statementCteNames = new ArrayList<>();
+    private final TableReferenceVisitor visitor = new TableReferenceVisitor();
+    private final HiveSqlParserPool pool = new HiveSqlParserPool(1);
+    private final SymbolTable symbols = new SymbolTable();
+
+    @Setup
+    public void setUp() throws Exception {
+        script = Workloads.script(workload);
+        context = ParseEnvironment.getDefault().newContext();
+        for (Statement statement : StatementSplitter.split(script)) {
+            if (statement.startsWithKeyword("use")) {
+                continue;
+            }
+            String text = statement.getText();
+            ASTNode tree = new ParseDriver().parse(text, context);
+            Set<String> tableNames = new LinkedHashSet<>();
+            Set<String> cteNames = new HashSet<>();
+            visitor.visit(tree, tableNames, cteNames);
+            statements.add(text);
+            trees.add(tree);
+            statementTableNames.add(tableNames);
+            statementCteNames.add(cteNames);
+        }
+    }
+
+    @Benchmark
+    public List<String> endToEnd() throws Exception {
+        HiveSqlParser processor = new HiveSqlParser();
+        processor.parse(script);
+        return processor.getTableNames();
+    }
+
+    @Benchmark
+    public List<String> endToEndFastPath() throws Exception {
+        HiveSqlParser processor = new HiveSqlParser();
+        processor.setFastPath(true);
+        processor.parse(script);
+        return processor.getTableNames();
+    }
+
+    @Benchmark
+    public ExtractionResult endToEndPooled() throws Exception {
+        return pool.extract(script);
+    }
+
+    @Benchmark
+    public void split(Blackhole blackhole) {
+        for (Statement statement : StatementSplitter.split(script)) {
+            blackhole.consume(statement.getStart());
+        }
+    }
+
+    @Benchmark
+    public void parseDriver(Blackhole blackhole) throws Exception {
+        ParseDriver parseDriver = new ParseDriver();
+        for (String statement : statements) {
+            blackhole.consume(parseDriver.parse(statement, context));
+        }
+    }
+
+    @Benchmark
+    public void walk(Blackhole blackhole) throws Exception {
+        for (ASTNode tree : trees) {
+            Set<String> tableNames = new LinkedHashSet<>();
+            visitor.visit(tree, tableNames, new HashSet<>());
+            blackhole.consume(tableNames);
+        }
+    }
+
+    @Benchmark
+    public List<String> merge() {
+        List<String> allTableNames = new ArrayList<>();
+        for (int i = 0; i < statementTableNames.size(); i++) {
+            allTableNames.addAll(HiveSqlParser.resolveTableNames(symbols, statementTableNames.get(i), statementCteNames.get(i), "default"));
+        }
+        return allTableNames;
+    }
+}
@@ -0,0 +1,90 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to write and to load back a batch of script results with {@link ResultWriter} and
+ * {@link ResultReader}. The results are generated rather than parsed: each script has five
+ * statements over a pool of tables shared by all scripts, the last one an INSERT into a daily
+ * partition.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResultCodecBenchmark {
+
+    @Param({"100000"})
+    public int scripts;
+
+    private final List<ExtractionResult> results = new ArrayList<>();
+    private byte[] encoded;
+    private final SymbolTable symbols = new SymbolTable();
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        for (int i = 0; i < scripts; i++) {
+            String database = "db_" + random.nextInt(20);
+            List<StatementResult> statements = new ArrayList<>();
+            for (int j = 0; j < 4; j++) {
+                List<String> sources = new ArrayList<>();
+                for (int k = 0; k < 3; k++) {
+                    sources.add(database + ".table_" + random.nextInt(2000));
+                }
+                statements.add(new StatementResult(symbols, j, StatementType.QUERY, database,
+                        Collections.<TableTarget>emptyList(), sources));
+            }
+            TableTarget target = new TableTarget(database + ".table_" + random.nextInt(2000),
+                    Collections.singletonMap("dt", "2024-01-" + (10 + random.nextInt(20))));
+            statements.add(new StatementResult(symbols, 4, StatementType.INSERT, database,
+                    Collections.singletonList(target), Collections.singletonList(database + ".table_" + random.nextInt(2000))));
+            results.add(new ExtractionResult(statements));
+        }
+        encoded = write().toByteArray();
+        System.out.printf("%n%,d scripts encoded in %,d bytes%n", scripts, encoded.length);
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream write() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(encoded == null ? 1 << 20 : encoded.length);
+        try (ResultWriter writer = new ResultWriter(bytes)) {
+            for (int i = 0; i < results.size(); i++) {
+                writer.write("script_" + i, results.get(i));
+            }
+        }
+        return bytes;
+    }
+
+    @Benchmark
+    public void read(Blackhole blackhole) throws IOException {
+        try (ResultReader reader = new ResultReader(new ByteArrayInputStream(encoded))) {
+            ScriptResult script;
+            while ((script = reader.read()) != null) {
+                blackhole.consume(script);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing a script of thousands of short statements by splitting it and parsing every statement
+ * with its own lexer and parser, against tokenizing the whole script once and parsing the
+ * statements from the shared token stream.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScriptTokenizationBenchmark {
+
+    @Param({"1000", "5000"})
+    public int statements;
+
+    private String script;
+    private HiveSqlParser split;
+    private HiveSqlParser tokenized;
+
+    @Setup
+    public void setUp() {
+        script = GeneratedQueries.script(statements);
+        split = new HiveSqlParser();
+        tokenized = new HiveSqlParser();
+        tokenized.setScriptTokenization(true);
+    }
+
+    @Benchmark
+    public List<String> perStatement() throws Exception {
+        split.reset();
+        split.parse(script);
+        return split.getTableNames();
+    }
+
+    @Benchmark
+    public List<String> scriptTokenized() throws Exception {
+        tokenized.reset();
+        tokenized.parse(script);
+        return tokenized.getTableNames();
+    }
+}
@@ -0,0 +1,68 @@
+package org.example;
+
+import org.apache.hadoop.hive.ql.parse.ParseDriver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accumulating the tables of a generated many-table statement with insertion-ordered hash sets,
+ * as {@link HiveSqlParser#resolveTableNames} does, against the previous {@code List.contains}
+ * deduplication.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xss16m")
+public class TableAccumulationBenchmark {
+
+    @Param({"100", "500"})
+    public int tables;
+
+    private List<String> rawTableNames;
+    private final SymbolTable symbols = new SymbolTable();
+
+    @Setup
+    public void setUp() throws Exception {
+        Set<String> tableNames = new LinkedHashSet<>();
+        new TableReferenceVisitor().visit(new ParseDriver().parse(GeneratedQueries.joins(tables)), tableNames, new HashSet<>());
+        // Every table is referenced twice, as in a self-joining statement
+        rawTableNames = new ArrayList<>(tableNames);
+        rawTableNames.addAll(tableNames);
+    }
+
+    @Benchmark
+    public List<String> hashSet() {
+        return HiveSqlParser.resolveTableNames(symbols, rawTableNames, Collections.emptySet(), "default");
+    }
+
+    @Benchmark
+    public List<String> listContains() {
+        List<String> tableNames = new ArrayList<>();
+        for (String tableName : rawTableNames) {
+            String actualTableName = tableName.contains(".") ? tableName : "default." + tableName;
+            if (!tableNames.contains(actualTableName)) {
+                tableNames.add(actualTableName);
+            }
+        }
+        return tableNames;
+    }
+}
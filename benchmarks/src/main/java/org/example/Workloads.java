@@ -0,0 +1,45 @@
+package org.example;
+
+/**
+ * Named scripts used as benchmark parameters, from the small unit test queries up to generated
+ * multi-megabyte scripts.
+ */
+final class Workloads {
+
+    static final String SMALL = "small";
+    static final String JOINS_100 = "joins_100";
+    static final String JOINS_500 = "joins_500";
+    static final String CTE_CHAIN_200 = "cte_chain_200";
+    static final String UNION_ALL_500 = "union_all_500";
+    static final String SCRIPT_2MB = "script_2mb";
+
+    private static final String SMALL_SCRIPT = "select id, name from test.my_table where id > 10;"
+            + "use test_db; with cte_table as (select id, name from test.my_table) select * from cte_table;"
+            + "insert overwrite table test.my_table select id, name from test.another_table;"
+            + "select t1.id, t2.name from test.table1 t1 join test.table2 t2 on t1.id = t2.id left join "
+            + "(select * from test.table3 a, test.table9 b where a.id=b.id ) t3 on t2.name =t3.name;"
+            + "SELECT t.id, t.name, item FROM test.table_with_array t LATERAL VIEW EXPLODE(t.items) itemTable AS item;"
+            + "CREATE TABLE test.partitioned_table (id INT, name STRING) PARTITIONED BY (dt STRING)";
+
+    private Workloads() {
+    }
+
+    static String script(String workload) {
+        switch (workload) {
+            case SMALL:
+                return SMALL_SCRIPT;
+            case JOINS_100:
+                return GeneratedQueries.joins(100);
+            case JOINS_500:
+                return GeneratedQueries.joins(500);
+            case CTE_CHAIN_200:
+                return GeneratedQueries.cteChain(200);
+            case UNION_ALL_500:
+                return GeneratedQueries.unionAll(500);
+            case SCRIPT_2MB:
+                return GeneratedQueries.scriptOfSize(2 * 1024 * 1024);
+            default:
+                throw new IllegalArgumentException("Unknown workload: " + workload);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.example;
+
+import org.antlr.runtime.tree.Tree;
+
+/**
+ * Renders an AST as a compact, size-capped S-expression for troubleshooting, e.g.
+ * {@code (TOK_QUERY (TOK_FROM (TOK_TABREF (TOK_TABNAME test my_table))) ...)}. Unlike
+ * {@link org.apache.hadoop.hive.ql.parse.ASTNode#dump()}, the output stops after a fixed number of
+ * nodes and below a fixed depth, marking each cut with {@code ...}.
+ */
+public final class AstDumper {
+
+    private static final int MAX_TOKEN_LENGTH = 64;
+
+    private final StringBuilder out = new StringBuilder();
+    private final int maxDepth;
+    private int remainingNodes;
+    private boolean truncated;
+
+    private AstDumper(int maxNodes, int maxDepth) {
+        this.remainingNodes = maxNodes;
+        this.maxDepth = maxDepth;
+    }
+
+    public static String dump(Tree tree, int maxNodes, int maxDepth) {
+        AstDumper dumper = new AstDumper(maxNodes, maxDepth);
+        dumper.append(tree, 0);
+        if (dumper.truncated) {
+            dumper.out.append(" [truncated at ").append(maxNodes).append(" nodes / depth ").append(maxDepth).append(']');
+        }
+        return dumper.out.toString();
+    }
+
+    private void append(Tree node, int depth) {
+        remainingNodes--;
+        int childCount = node.getChildCount();
+        if (childCount == 0) {
+            appendToken(node.toString());
+            return;
+        }
+        out.append('(');
+        appendToken(node.toString());
+        if (depth + 1 >= maxDepth) {
+            out.append(" ...");
+            truncated = true;
+        } else {
+            for (int i = 0; i < childCount; i++) {
+                out.append(' ');
+                if (remainingNodes <= 0) {
+                    out.append("...");
+                    truncated = true;
+                    break;
+                }
+                append(node.getChild(i), depth + 1);
+            }
+        }
+        out.append(')');
+    }
+
+    private void appendToken(String text) {
+        if (text == null) {
+            out.append("nil");
+        } else if (text.length() > MAX_TOKEN_LENGTH) {
+            out.append(text, 0, MAX_TOKEN_LENGTH).append("...");
+        } else {
+            out.append(text);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package org.example;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Parses many scripts in parallel. Every script is parsed by a {@link HiveSqlParser} of its own,
+ * taken from a {@link HiveSqlParserPool} and reset in between, so each keeps its own {@code use}
+ * database context, and a script that fails to parse is reported in its {@link ScriptResult}
+ * instead of aborting the batch. A stack overflow is reported the same way; any other
+ * {@link Error} ends the batch and is thrown to the caller once the running scripts are done.
+ * <p>
+ * At most {@code maxInFlight} scripts are queued or running at any time; the thread feeding the
+ * batch blocks until a slot frees up, so a lazily produced stream of scripts is never drained
+ * into memory faster than it can be parsed.
+ * <p>
+ * Script ids must be unique within a batch.
+ */
+public class BatchAnalyzer {
+
+    private static Logger logger = LoggerFactory.getLogger(BatchAnalyzer.class);
+
+    private final ExecutorService executor;
+    private final int maxInFlight;
+    private final HiveSqlParserPool parsers;
+
+    public BatchAnalyzer() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public BatchAnalyzer(ExecutorService executor) {
+        this(executor, defaultMaxInFlight(executor), HiveSqlParser::new);
+    }
+
+    public BatchAnalyzer(ExecutorService executor, int maxInFlight, Supplier<HiveSqlParser> parserFactory) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        }
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+        this.parsers = new HiveSqlParserPool(maxInFlight, parserFactory);
+    }
+
+    private static int defaultMaxInFlight(ExecutorService executor) {
+        int parallelism = executor instanceof ForkJoinPool
+                ? ((ForkJoinPool) executor).getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        return parallelism * 4;
+    }
+
+    /**
+     * Analyzes scripts keyed by script id. The returned map iterates in the order of the input.
+     */
+    public Map<String, ScriptResult> analyze(Map<String, String> scripts) throws InterruptedException {
+        return analyze(scripts.entrySet().stream());
+    }
+
+    /**
+     * Analyzes a stream of (script id, script) entries, consuming the stream lazily.
+     *
+     * @throws IllegalArgumentException if two entries have the same script id, once the scripts
+     *                                  before it are done
+     */
+    public Map<String, ScriptResult> analyze(Stream<? extends Map.Entry<String, String>> scripts) throws InterruptedException {
+        Map<String, ScriptResult> results = new ConcurrentHashMap<>();
+        Set<String> order = new LinkedHashSet<>();
+        Semaphore permits = new Semaphore(maxInFlight);
+        AtomicReference<Error> fatal = new AtomicReference<>();
+
+        Iterator<? extends Map.Entry<String, String>> iterator = scripts.iterator();
+        try {
+            while (fatal.get() == null && iterator.hasNext()) {
+                Map.Entry<String, String> script = iterator.next();
+                String scriptId = script.getKey();
+                String text = script.getValue();
+                if (!order.add(scriptId)) {
+                    throw new IllegalArgumentException("Duplicate script id: " + scriptId);
+                }
+                permits.acquire();
+                try {
+                    executor.execute(() -> {
+                        try {
+                            results.put(scriptId, analyzeScript(scriptId, text));
+                        } catch (Error e) {
+                            fatal.compareAndSet(null, e);
+                            throw e;
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    permits.release();
+                    results.put(scriptId, ScriptResult.failure(scriptId, e));
+                }
+            }
+        } finally {
+            // Wait for the remaining scripts by taking back every permit
+            permits.acquire(maxInFlight);
+            permits.release(maxInFlight);
+        }
+        if (fatal.get() != null) {
+            throw fatal.get();
+        }
+
+        Map<String, ScriptResult> ordered = new LinkedHashMap<>();
+        for (String scriptId : order) {
+            ordered.put(scriptId, results.get(scriptId));
+        }
+        return ordered;
+    }
+
+    private ScriptResult analyzeScript(String scriptId, String script) {
+        try {
+            return ScriptResult.success(scriptId, parsers.extract(script));
+        } catch (Exception e) {
+            logger.warn("Analyze script {} fail, message: {}", scriptId, e.getMessage());
+            return ScriptResult.failure(scriptId, e);
+        } catch (StackOverflowError e) {
+            // A deeply nested script; the batch still gets a result for it
+            logger.warn("Analyze script {} fail, error: {}", scriptId, e.toString());
+            return ScriptResult.failure(scriptId, new ExecutionException(e));
+        }
+    }
+}
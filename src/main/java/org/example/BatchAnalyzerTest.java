@@ -0,0 +1,113 @@
+package org.example;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.AbstractMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public class BatchAnalyzerTest {
+
+    @Test
+    public void testKeepsUseDatabasePerScript() throws Exception {
+        Map<String, String> scripts = new LinkedHashMap<>();
+        scripts.put("a", "use db_a; select * from my_table");
+        scripts.put("b", "use db_b; select * from my_table");
+        scripts.put("c", "select * from my_table");
+
+        Map<String, ScriptResult> results = new BatchAnalyzer().analyze(scripts);
+        Assert.assertEquals("db_a.my_table", results.get("a").getResult().getTableNames().get(0));
+        Assert.assertEquals("db_b.my_table", results.get("b").getResult().getTableNames().get(0));
+        Assert.assertEquals("default.my_table", results.get("c").getResult().getTableNames().get(0));
+    }
+
+    @Test
+    public void testFailedScriptDoesNotAbortBatch() throws Exception {
+        Map<String, String> scripts = new LinkedHashMap<>();
+        scripts.put("good_1", "select * from test.table1");
+        scripts.put("bad", "select from where");
+        scripts.put("good_2", "select * from test.table2");
+
+        Map<String, ScriptResult> results = new BatchAnalyzer().analyze(scripts);
+        Assert.assertEquals(3, results.size());
+        Assert.assertTrue(results.get("good_1").isSuccess());
+        Assert.assertFalse(results.get("bad").isSuccess());
+        Assert.assertNotNull(results.get("bad").getError());
+        Assert.assertTrue(results.get("good_2").isSuccess());
+        Assert.assertEquals("test.table2", results.get("good_2").getResult().getTableNames().get(0));
+    }
+
+    @Test
+    public void testStreamWithSmallInFlightLimit() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            BatchAnalyzer analyzer = new BatchAnalyzer(pool, 2, HiveSqlParser::new);
+            Map<String, ScriptResult> results = analyzer.analyze(IntStream.range(0, 50)
+                    .mapToObj(i -> new AbstractMap.SimpleEntry<>("script_" + i, "select * from test.table_" + i)));
+            Assert.assertEquals(50, results.size());
+            for (int i = 0; i < 50; i++) {
+                Assert.assertEquals("test.table_" + i, results.get("script_" + i).getResult().getTableNames().get(0));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testErrorIsReportedAsFailure() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            BatchAnalyzer analyzer = new BatchAnalyzer(pool, 2, () -> new HiveSqlParser() {
+                @Override
+                public void parse(String queries) {
+                    throw new StackOverflowError();
+                }
+            });
+            Map<String, String> scripts = new LinkedHashMap<>();
+            scripts.put("a", "select * from test.table1");
+            scripts.put("b", "select * from test.table2");
+
+            Map<String, ScriptResult> results = analyzer.analyze(scripts);
+            Assert.assertEquals(2, results.size());
+            for (ScriptResult result : results.values()) {
+                Assert.assertFalse(result.isSuccess());
+                Assert.assertTrue(result.getError() instanceof ExecutionException);
+                Assert.assertTrue(result.getError().getCause() instanceof StackOverflowError);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testOtherErrorEndsBatch() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            BatchAnalyzer analyzer = new BatchAnalyzer(pool, 2, () -> new HiveSqlParser() {
+                @Override
+                public void parse(String queries) {
+                    throw new OutOfMemoryError("test");
+                }
+            });
+            analyzer.analyze(IntStream.range(0, 50)
+                    .mapToObj(i -> new AbstractMap.SimpleEntry<>("script_" + i, "select * from test.table_" + i)));
+            Assert.fail();
+        } catch (OutOfMemoryError expected) {
+            Assert.assertEquals("test", expected.getMessage());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsDuplicateScriptIds() throws Exception {
+        new BatchAnalyzer().analyze(Stream.of(
+                new AbstractMap.SimpleEntry<>("a", "select * from test.table1"),
+                new AbstractMap.SimpleEntry<>("a", "select * from test.table2")));
+    }
+}
@@ -0,0 +1,78 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable column lineage of one target table written by a statement: for every output column,
+ * the source columns it is computed from, as {@code db.table.column}. A {@code *} selected from
+ * a table is reported as the source column {@code db.table.*}.
+ */
+public final class ColumnLineage {
+
+    private final String targetTable;
+    private final Map<String, Set<String>> sourceColumns;
+
+    /**
+     * @param sourceColumns the source columns of each output column, in select-list order
+     */
+    public ColumnLineage(String targetTable, Map<String, ? extends Set<String>> sourceColumns) {
+        Map<String, Set<String>> columns = new LinkedHashMap<>();
+        for (Map.Entry<String, ? extends Set<String>> entry : sourceColumns.entrySet()) {
+            columns.put(entry.getKey(), Collections.unmodifiableSet(new LinkedHashSet<>(entry.getValue())));
+        }
+        this.targetTable = targetTable;
+        this.sourceColumns = Collections.unmodifiableMap(columns);
+    }
+
+    /**
+     * The qualified name of the table, or view, written by the statement.
+     */
+    public String getTargetTable() {
+        return targetTable;
+    }
+
+    /**
+     * The output columns, in select-list order. Columns without an alias are named like Hive
+     * names them: after the selected column, or {@code _c<position>} for expressions.
+     */
+    public List<String> getOutputColumns() {
+        return Collections.unmodifiableList(new ArrayList<>(sourceColumns.keySet()));
+    }
+
+    /**
+     * The source columns of the given output column; empty for constants and for columns that
+     * could not be resolved.
+     */
+    public Set<String> getSourceColumns(String outputColumn) {
+        Set<String> sources = sourceColumns.get(outputColumn);
+        return sources == null ? Collections.<String>emptySet() : sources;
+    }
+
+    public Map<String, Set<String>> getSourceColumns() {
+        return sourceColumns;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ColumnLineage)) return false;
+        ColumnLineage that = (ColumnLineage) o;
+        return targetTable.equals(that.targetTable) && sourceColumns.equals(that.sourceColumns);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * targetTable.hashCode() + sourceColumns.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnLineage[" + targetTable + " " + sourceColumns + "]";
+    }
+}
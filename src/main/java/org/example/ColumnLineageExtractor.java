@@ -0,0 +1,465 @@
+package org.example;
+
+import org.apache.hadoop.hive.ql.parse.ASTNode;
+import org.apache.hadoop.hive.ql.parse.BaseSemanticAnalyzer;
+import org.apache.hadoop.hive.ql.parse.HiveParser;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves the output columns of the tables written by a statement ({@code INSERT},
+ * {@code CREATE TABLE ... AS SELECT}, {@code CREATE VIEW}) back to the source columns they are
+ * computed from.
+ * <p>
+ * The AST is walked once. The FROM clause of a query is resolved before its select list, into the
+ * relations visible by alias: source tables, FROM-clause subqueries, CTEs and lateral views. The
+ * columns of a subquery or CTE are resolved when it is defined and reused by every reference, so
+ * no subtree is visited twice. The walk keeps its pending steps on the heap, so neither nested
+ * queries nor long UNION ALL chains are bounded by the thread stack. Every column referenced by a
+ * select expression, including the PARTITION BY and ORDER BY of a window function, is a source of
+ * the output column.
+ * <p>
+ * Table schemas are not known, so an unqualified column is attributed to the subquery, CTE or
+ * lateral view that outputs it, otherwise to the only source table of the query; it is left
+ * unresolved when the query reads several tables. An extractor must not be shared between threads.
+ */
+final class ColumnLineageExtractor {
+
+    private SymbolTable symbols;
+    private int currentDatabase;
+    private final List<ColumnLineage> lineage = new ArrayList<>();
+    private final Deque<ASTNode> expressionStack = new ArrayDeque<>();
+    // The steps left to walk, the next one on top. A step that walks a query or query expression
+    // pushes its output onto the relations, so the step pushed before it can take it from there
+    private final Deque<Runnable> steps = new ArrayDeque<>();
+    private final Deque<Relation> relations = new ArrayDeque<>();
+
+    /**
+     * @return the lineage of every target table written by the statement, in statement order
+     */
+    List<ColumnLineage> extract(ASTNode root, SymbolTable symbols, int currentDatabase) {
+        this.symbols = symbols;
+        this.currentDatabase = currentDatabase;
+        lineage.clear();
+        try {
+            statement(root);
+            while (!steps.isEmpty()) {
+                steps.pop().run();
+            }
+            return new ArrayList<>(lineage);
+        } finally {
+            lineage.clear();
+            expressionStack.clear();
+            steps.clear();
+            relations.clear();
+            this.symbols = null;
+        }
+    }
+
+    private void statement(ASTNode node) {
+        switch (node.getType()) {
+            case HiveParser.TOK_QUERY:
+                // Only the lineage of the targets is kept
+                steps.push(relations::pop);
+                query(node, null, true);
+                break;
+            case HiveParser.TOK_CREATETABLE:
+            case HiveParser.TOK_CREATEVIEW:
+            case HiveParser.TOK_CREATE_MATERIALIZED_VIEW:
+                createAsSelect(node);
+                break;
+            default:
+                // The nil root of a parsed statement
+                if (node.getToken() == null) {
+                    for (int i = node.getChildCount() - 1; i >= 0; i--) {
+                        ASTNode child = (ASTNode) node.getChild(i);
+                        steps.push(() -> statement(child));
+                    }
+                }
+                break;
+        }
+    }
+
+    private void createAsSelect(ASTNode create) {
+        String target = null;
+        ASTNode query = null;
+        for (int i = 0; i < create.getChildCount(); i++) {
+            ASTNode child = (ASTNode) create.getChild(i);
+            if (child.getType() == HiveParser.TOK_TABNAME && target == null) {
+                target = qualify(BaseSemanticAnalyzer.getUnescapedName(child));
+            } else if (child.getType() == HiveParser.TOK_QUERY) {
+                query = child;
+            }
+        }
+        if (target != null && query != null) {
+            String table = target;
+            steps.push(() -> lineage.add(relations.pop().toLineage(table)));
+            query(query, null, false);
+        }
+    }
+
+    /**
+     * Schedules the steps that resolve a query and push the output columns of its first select
+     * list. With {@code emitTargets}, the lineage of every {@code INSERT} destination table is
+     * recorded.
+     */
+    private void query(ASTNode query, Scope outer, boolean emitTargets) {
+        Scope scope = new Scope(outer);
+        steps.push(() -> relations.push(scope.output == null ? new Relation() : scope.output));
+        // Pushed in reverse, so that the clauses are resolved in order
+        for (int i = query.getChildCount() - 1; i >= 0; i--) {
+            ASTNode child = (ASTNode) query.getChild(i);
+            switch (child.getType()) {
+                case HiveParser.TOK_CTE:
+                    for (int j = child.getChildCount() - 1; j >= 0; j--) {
+                        ASTNode cte = (ASTNode) child.getChild(j);
+                        if (cte.getType() == HiveParser.TOK_SUBQUERY) {
+                            String name = identifier((ASTNode) cte.getChild(1));
+                            steps.push(() -> scope.ctes.put(name, relations.pop()));
+                            steps.push(() -> queryExpression((ASTNode) cte.getChild(0), scope));
+                        }
+                    }
+                    break;
+                case HiveParser.TOK_FROM:
+                    steps.push(() -> from((ASTNode) child.getChild(0), scope));
+                    break;
+                case HiveParser.TOK_INSERT:
+                    steps.push(() -> {
+                        Relation columns = insert(child, scope, emitTargets);
+                        if (scope.output == null) {
+                            scope.output = columns;
+                        }
+                    });
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private Relation insert(ASTNode insert, Scope scope, boolean emitTargets) {
+        Relation columns = new Relation();
+        String target = null;
+        for (int i = 0; i < insert.getChildCount(); i++) {
+            ASTNode child = (ASTNode) insert.getChild(i);
+            switch (child.getType()) {
+                case HiveParser.TOK_SELECT:
+                case HiveParser.TOK_SELECTDI:
+                    columns = select(child, scope);
+                    break;
+                case HiveParser.TOK_DESTINATION:
+                case HiveParser.TOK_INSERT_INTO:
+                    ASTNode destination = (ASTNode) child.getChild(0);
+                    if (destination.getType() == HiveParser.TOK_TAB) {
+                        target = qualify(BaseSemanticAnalyzer.getUnescapedName((ASTNode) destination.getChild(0)));
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (emitTargets && target != null) {
+            lineage.add(columns.toLineage(target));
+        }
+        return columns;
+    }
+
+    /**
+     * Schedules the steps that resolve a query or a UNION ALL of queries and push its columns.
+     */
+    private void queryExpression(ASTNode node, Scope scope) {
+        if (node.getType() == HiveParser.TOK_UNIONALL) {
+            steps.push(() -> {
+                Relation right = relations.pop();
+                relations.push(union(relations.pop(), right));
+            });
+            steps.push(() -> queryExpression((ASTNode) node.getChild(1), scope));
+            steps.push(() -> queryExpression((ASTNode) node.getChild(0), scope));
+            return;
+        }
+        query(node, scope, false);
+    }
+
+    private static Relation union(Relation left, Relation right) {
+        // Columns are matched by position and named after the first branch
+        Relation union = new Relation();
+        for (int i = 0; i < left.names.size(); i++) {
+            Set<String> sources = new LinkedHashSet<>(left.sources.get(i));
+            if (i < right.sources.size()) {
+                sources.addAll(right.sources.get(i));
+            }
+            union.add(left.names.get(i), sources);
+        }
+        return union;
+    }
+
+    private void from(ASTNode node, Scope scope) {
+        switch (node.getType()) {
+            case HiveParser.TOK_TABREF:
+                tableReference(node, scope);
+                break;
+            case HiveParser.TOK_SUBQUERY:
+                String alias = identifier((ASTNode) node.getChild(1));
+                steps.push(() -> scope.aliases.put(alias, relations.pop()));
+                queryExpression((ASTNode) node.getChild(0), scope);
+                break;
+            case HiveParser.TOK_JOIN:
+            case HiveParser.TOK_LEFTOUTERJOIN:
+            case HiveParser.TOK_RIGHTOUTERJOIN:
+            case HiveParser.TOK_FULLOUTERJOIN:
+            case HiveParser.TOK_LEFTSEMIJOIN:
+            case HiveParser.TOK_CROSSJOIN:
+                steps.push(() -> from((ASTNode) node.getChild(1), scope));
+                steps.push(() -> from((ASTNode) node.getChild(0), scope));
+                break;
+            case HiveParser.TOK_LATERAL_VIEW:
+            case HiveParser.TOK_LATERAL_VIEW_OUTER:
+                steps.push(() -> lateralView((ASTNode) node.getChild(0).getChild(0), scope));
+                steps.push(() -> from((ASTNode) node.getChild(1), scope));
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void tableReference(ASTNode tabref, Scope scope) {
+        String tableName = TableReferenceVisitor.getTableName(tabref);
+        String alias = null;
+        for (int i = 1; i < tabref.getChildCount(); i++) {
+            ASTNode child = (ASTNode) tabref.getChild(i);
+            if (child.getType() == HiveParser.Identifier) {
+                alias = identifier(child);
+            }
+        }
+        Relation cte = tableName.contains(".") ? null : scope.cte(tableName.toLowerCase());
+        if (alias == null) {
+            alias = tableName.substring(tableName.lastIndexOf('.') + 1).toLowerCase();
+        }
+        scope.aliases.put(alias, cte != null ? cte : new Relation(qualify(tableName)));
+    }
+
+    /**
+     * Registers the columns generated by a lateral view's table function, each derived from all
+     * columns passed to the function.
+     */
+    private void lateralView(ASTNode selectExpression, Scope scope) {
+        Set<String> sources = columnReferences((ASTNode) selectExpression.getChild(0), scope);
+        Relation generated = new Relation();
+        String alias = null;
+        for (int i = 1; i < selectExpression.getChildCount(); i++) {
+            ASTNode child = (ASTNode) selectExpression.getChild(i);
+            if (child.getType() == HiveParser.TOK_TABALIAS) {
+                alias = identifier((ASTNode) child.getChild(0));
+            } else if (child.getType() == HiveParser.Identifier) {
+                generated.add(identifier(child), sources);
+            }
+        }
+        scope.aliases.put(alias != null ? alias : "", generated);
+    }
+
+    private Relation select(ASTNode select, Scope scope) {
+        Relation columns = new Relation();
+        for (int i = 0; i < select.getChildCount(); i++) {
+            ASTNode selectExpression = (ASTNode) select.getChild(i);
+            if (selectExpression.getType() != HiveParser.TOK_SELEXPR) {
+                continue;
+            }
+            ASTNode expression = (ASTNode) selectExpression.getChild(0);
+            if (expression.getType() == HiveParser.TOK_ALLCOLREF || expression.getType() == HiveParser.TOK_SETCOLREF) {
+                allColumns(expression, scope, columns);
+                continue;
+            }
+            String name;
+            if (selectExpression.getChildCount() > 1 && selectExpression.getChild(1).getType() == HiveParser.Identifier) {
+                name = identifier((ASTNode) selectExpression.getChild(1));
+            } else if (expression.getType() == HiveParser.TOK_TABLE_OR_COL) {
+                name = identifier((ASTNode) expression.getChild(0));
+            } else if (expression.getType() == HiveParser.DOT) {
+                name = identifier((ASTNode) expression.getChild(1));
+            } else {
+                name = "_c" + columns.names.size();
+            }
+            columns.add(name, columnReferences(expression, scope));
+        }
+        return columns;
+    }
+
+    private void allColumns(ASTNode allColumnReference, Scope scope, Relation columns) {
+        if (allColumnReference.getChildCount() > 0) {
+            String alias = BaseSemanticAnalyzer.getUnescapedName((ASTNode) allColumnReference.getChild(0)).toLowerCase();
+            Relation relation = scope.aliases.get(alias);
+            if (relation != null) {
+                relation.expandInto(columns);
+            }
+            return;
+        }
+        for (Relation relation : scope.aliases.values()) {
+            relation.expandInto(columns);
+        }
+    }
+
+    /**
+     * The source columns of every column referenced by the expression.
+     */
+    private Set<String> columnReferences(ASTNode expression, Scope scope) {
+        Set<String> sources = new LinkedHashSet<>();
+        expressionStack.push(expression);
+        while (!expressionStack.isEmpty()) {
+            ASTNode node = expressionStack.pop();
+            switch (node.getType()) {
+                case HiveParser.TOK_TABLE_OR_COL:
+                    sources.addAll(scope.unqualifiedColumn(identifier((ASTNode) node.getChild(0))));
+                    continue;
+                case HiveParser.DOT:
+                    ASTNode qualifier = (ASTNode) node.getChild(0);
+                    if (qualifier.getType() == HiveParser.TOK_TABLE_OR_COL) {
+                        String name = identifier((ASTNode) qualifier.getChild(0));
+                        String column = identifier((ASTNode) node.getChild(1));
+                        Relation relation = scope.aliases.get(name);
+                        if (relation != null) {
+                            sources.addAll(relation.column(column));
+                        } else {
+                            // A field of a struct column
+                            sources.addAll(scope.unqualifiedColumn(name));
+                        }
+                        continue;
+                    }
+                    break;
+                case HiveParser.TOK_SUBQUERY_EXPR:
+                    // The columns of a subquery predicate do not flow into the output
+                    continue;
+                default:
+                    break;
+            }
+            for (int i = node.getChildCount() - 1; i >= 0; i--) {
+                expressionStack.push((ASTNode) node.getChild(i));
+            }
+        }
+        return sources;
+    }
+
+    private String qualify(String tableName) {
+        return symbols.qualifiedName(symbols.qualify(tableName, currentDatabase));
+    }
+
+    private static String identifier(ASTNode node) {
+        return BaseSemanticAnalyzer.unescapeIdentifier(node.getText()).toLowerCase();
+    }
+
+    /**
+     * A source table, or the output columns of a subquery, CTE or lateral view.
+     */
+    private static final class Relation {
+
+        // Null unless this is a source table
+        final String table;
+        final List<String> names = new ArrayList<>();
+        final List<Set<String>> sources = new ArrayList<>();
+        private Map<String, Set<String>> byName;
+
+        Relation() {
+            this(null);
+        }
+
+        Relation(String table) {
+            this.table = table;
+        }
+
+        void add(String name, Set<String> columnSources) {
+            names.add(name);
+            sources.add(columnSources);
+            byName = null;
+        }
+
+        boolean hasColumn(String column) {
+            return table == null && byName().containsKey(column);
+        }
+
+        Set<String> column(String column) {
+            if (table != null) {
+                return Collections.singleton(table + "." + column);
+            }
+            Set<String> columnSources = byName().get(column);
+            return columnSources == null ? Collections.<String>emptySet() : columnSources;
+        }
+
+        void expandInto(Relation columns) {
+            if (table != null) {
+                columns.add("*", Collections.singleton(table + ".*"));
+                return;
+            }
+            for (int i = 0; i < names.size(); i++) {
+                columns.add(names.get(i), sources.get(i));
+            }
+        }
+
+        private Map<String, Set<String>> byName() {
+            if (byName == null) {
+                byName = new HashMap<>();
+                for (int i = 0; i < names.size(); i++) {
+                    byName.putIfAbsent(names.get(i), sources.get(i));
+                }
+            }
+            return byName;
+        }
+
+        ColumnLineage toLineage(String target) {
+            Map<String, Set<String>> columns = new LinkedHashMap<>();
+            for (int i = 0; i < names.size(); i++) {
+                columns.computeIfAbsent(names.get(i), name -> new LinkedHashSet<>()).addAll(sources.get(i));
+            }
+            return new ColumnLineage(target, columns);
+        }
+    }
+
+    /**
+     * The relations visible to a query by alias, and the CTEs visible by name. Aliases are only
+     * visible in the query that defines them; CTEs are also visible in nested queries.
+     */
+    private static final class Scope {
+
+        final Scope parent;
+        final Map<String, Relation> ctes = new HashMap<>();
+        final Map<String, Relation> aliases = new LinkedHashMap<>();
+        // The columns of the query's first select list, once resolved
+        Relation output;
+
+        Scope(Scope parent) {
+            this.parent = parent;
+        }
+
+        Relation cte(String name) {
+            for (Scope scope = this; scope != null; scope = scope.parent) {
+                Relation cte = scope.ctes.get(name);
+                if (cte != null) {
+                    return cte;
+                }
+            }
+            return null;
+        }
+
+        Set<String> unqualifiedColumn(String column) {
+            Relation onlyTable = null;
+            int tables = 0;
+            for (Relation relation : aliases.values()) {
+                if (relation.hasColumn(column)) {
+                    return relation.column(column);
+                }
+                if (relation.table != null) {
+                    onlyTable = relation;
+                    tables++;
+                }
+            }
+            return tables == 1 ? onlyTable.column(column) : Collections.<String>emptySet();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.example;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+public class ColumnLineageTest {
+
+    private static List<ColumnLineage> lineage(String script) throws Exception {
+        HiveSqlParser processor = new HiveSqlParser();
+        processor.setColumnLineage(true);
+        processor.parse(script);
+        return processor.getColumnLineage();
+    }
+
+    private static Set<String> columns(String... columns) {
+        return new LinkedHashSet<>(Arrays.asList(columns));
+    }
+
+    @Test
+    public void testInsertWithAliasesAndWindowFunction() throws Exception {
+        List<ColumnLineage> lineage = lineage("insert overwrite table d.t partition(p='1') "
+                + "select a.x, b.y as yy, sum(a.z) over (partition by a.k order by b.w) as s, 1 "
+                + "from d.a a join b on a.id = b.id");
+        Assert.assertEquals(1, lineage.size());
+        ColumnLineage target = lineage.get(0);
+        Assert.assertEquals("d.t", target.getTargetTable());
+        Assert.assertEquals(Arrays.asList("x", "yy", "s", "_c3"), target.getOutputColumns());
+        Assert.assertEquals(columns("d.a.x"), target.getSourceColumns("x"));
+        Assert.assertEquals(columns("default.b.y"), target.getSourceColumns("yy"));
+        Assert.assertEquals(columns("d.a.z", "d.a.k", "default.b.w"), target.getSourceColumns("s"));
+        Assert.assertEquals(Collections.emptySet(), target.getSourceColumns("_c3"));
+    }
+
+    @Test
+    public void testCreateTableAsSelectThroughCte() throws Exception {
+        List<ColumnLineage> lineage = lineage("use s; create table t2 as "
+                + "with c as (select id, name n from src), c2 as (select n, id + 1 as id2 from c) "
+                + "select c2.n, upper(id2) as u from c2");
+        Assert.assertEquals(1, lineage.size());
+        Assert.assertEquals("s.t2", lineage.get(0).getTargetTable());
+        Assert.assertEquals(columns("s.src.name"), lineage.get(0).getSourceColumns("n"));
+        Assert.assertEquals(columns("s.src.id"), lineage.get(0).getSourceColumns("u"));
+    }
+
+    @Test
+    public void testViewOverSubqueryAndLateralView() throws Exception {
+        List<ColumnLineage> lineage = lineage("create view v as select t.col, e "
+                + "from (select col, arr from s.x) t lateral view explode(t.arr) lv as e");
+        ColumnLineage view = lineage.get(0);
+        Assert.assertEquals("default.v", view.getTargetTable());
+        Assert.assertEquals(columns("s.x.col"), view.getSourceColumns("col"));
+        Assert.assertEquals(columns("s.x.arr"), view.getSourceColumns("e"));
+    }
+
+    @Test
+    public void testUnionAllAndStar() throws Exception {
+        List<ColumnLineage> lineage = lineage("insert into t select a, b from x union all select c, d from y; "
+                + "insert into t4 select * from s.src");
+        Assert.assertEquals(2, lineage.size());
+        Assert.assertEquals(Arrays.asList("a", "b"), lineage.get(0).getOutputColumns());
+        Assert.assertEquals(columns("default.x.a", "default.y.c"), lineage.get(0).getSourceColumns("a"));
+        Assert.assertEquals(columns("default.x.b", "default.y.d"), lineage.get(0).getSourceColumns("b"));
+        Assert.assertEquals(columns("s.src.*"), lineage.get(1).getSourceColumns("*"));
+    }
+
+    @Test
+    public void testMultiInsert() throws Exception {
+        List<ColumnLineage> lineage = lineage("from s.src insert overwrite table t1 select key "
+                + "insert overwrite table t2 select value, key");
+        Assert.assertEquals(2, lineage.size());
+        Assert.assertEquals("default.t1", lineage.get(0).getTargetTable());
+        Assert.assertEquals(columns("s.src.key"), lineage.get(0).getSourceColumns("key"));
+        Assert.assertEquals("default.t2", lineage.get(1).getTargetTable());
+        Assert.assertEquals(Arrays.asList("value", "key"), lineage.get(1).getOutputColumns());
+    }
+
+    @Test
+    public void testUnqualifiedColumnOfSeveralTablesIsUnresolved() throws Exception {
+        List<ColumnLineage> lineage = lineage("insert into t select x from a join b on a.id = b.id");
+        Assert.assertEquals(Collections.emptySet(), lineage.get(0).getSourceColumns("x"));
+    }
+
+    @Test
+    public void testSelectWithoutTargetHasNoLineage() throws Exception {
+        Assert.assertEquals(Collections.emptyList(), lineage("select a from x"));
+    }
+}
@@ -0,0 +1,106 @@
+package org.example;
+
+import org.antlr.runtime.RecognitionException;
+import org.antlr.runtime.Token;
+import org.antlr.runtime.TokenRewriteStream;
+import org.antlr.runtime.TokenSource;
+import org.apache.hadoop.hive.ql.Context;
+import org.apache.hadoop.hive.ql.parse.ASTNode;
+import org.apache.hadoop.hive.ql.parse.HiveParser;
+import org.apache.hadoop.hive.ql.parse.ParseDriver;
+import org.apache.hadoop.hive.ql.parse.ParseException;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses like {@link ParseDriver#parse(String, Context)}, but gives up once the parse has run for
+ * longer than a timeout. The Hive parser has no cancellation hook, so the token stream it reads
+ * checks the clock every few hundred token accesses, which also bounds backtracking. It checks the
+ * thread's interrupt status as well, so that a parse cancelled by its caller stops with a
+ * {@link CancellationException} rather than running to its deadline. A statement that fails to
+ * parse is parsed again with the {@link ParseDriver} to get its usual error message.
+ */
+final class DeadlineParseDriver {
+
+    private final ParseDriver parseDriver;
+
+    DeadlineParseDriver(ParseDriver parseDriver) {
+        this.parseDriver = parseDriver;
+    }
+
+    ASTNode parse(String command, Context context, long timeoutNanos) throws ParseException, ParseLimitException {
+        ParseDriver.HiveLexerX lexer = parseDriver.new HiveLexerX(parseDriver.new ANTLRNoCaseStringStream(command));
+        DeadlineTokenStream tokens = new DeadlineTokenStream(lexer, System.nanoTime() + timeoutNanos);
+        if (context != null) {
+            context.setTokenRewriteStream(tokens);
+            lexer.setHiveConf(context.getConf());
+        }
+        HiveParser parser = new HiveParser(tokens);
+        if (context != null) {
+            parser.setHiveConf(context.getConf());
+        }
+        parser.setTreeAdaptor(ParseDriver.adaptor);
+        HiveParser.statement_return r;
+        try {
+            r = parser.statement();
+        } catch (RecognitionException e) {
+            return parseDriver.parse(command, context);
+        } catch (DeadlineExceeded e) {
+            throw new ParseLimitException(ParseLimitException.Limit.TIMEOUT,
+                    "Parse exceeded " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms");
+        }
+        if (!lexer.getErrors().isEmpty()) {
+            throw new ParseException(lexer.getErrors());
+        }
+        if (parser.getNumberOfSyntaxErrors() > 0) {
+            return parseDriver.parse(command, context);
+        }
+        ASTNode tree = r.getTree();
+        tree.setUnknownTokenBoundaries();
+        return tree;
+    }
+
+    static final class DeadlineExceeded extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        DeadlineExceeded() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final class DeadlineTokenStream extends TokenRewriteStream {
+
+        private static final int CHECK_INTERVAL = 256;
+
+        private final long deadline;
+        private int accesses;
+
+        DeadlineTokenStream(TokenSource tokenSource, long deadline) {
+            super(tokenSource);
+            this.deadline = deadline;
+        }
+
+        @Override
+        public Token LT(int k) {
+            checkDeadline();
+            return super.LT(k);
+        }
+
+        @Override
+        public void consume() {
+            checkDeadline();
+            super.consume();
+        }
+
+        private void checkDeadline() {
+            if (++accesses % CHECK_INTERVAL == 0) {
+                if (System.nanoTime() - deadline > 0) {
+                    throw new DeadlineExceeded();
+                }
+                HiveSqlParser.checkInterrupted();
+            }
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable table-to-table and script-to-script dependency graph built by a
+ * {@link DependencyGraphBuilder}.
+ * <p>
+ * A table depends on every table read by a statement that writes it. A script depends on every
+ * script that writes a table it reads. Tables and scripts are numbered with dense int ids and
+ * the edges are held in compressed adjacency arrays, one array of offsets and one of neighbours
+ * per direction, so a graph of millions of tables takes tens of bytes per edge. Script
+ * dependencies are not stored; they are derived from the tables each script reads and writes.
+ * Queries are thread-safe.
+ */
+public final class DependencyGraph {
+
+    private final String[] tableNames;
+    private final Map<String, Integer> tableIds;
+    private final String[] scriptIds;
+    private final Map<String, Integer> scriptNumbers;
+    // Table to the tables that depend on it, and the reverse
+    private final Adjacency downstream;
+    private final Adjacency upstream;
+    // Script to the tables it reads or writes, and table to the scripts that read or write it
+    private final Adjacency scriptReads;
+    private final Adjacency scriptWrites;
+    private final Adjacency tableReaders;
+    private final Adjacency tableWriters;
+
+    DependencyGraph(String[] tableNames, Map<String, Integer> tableIds, String[] scriptIds, Map<String, Integer> scriptNumbers,
+                    Adjacency downstream, Adjacency upstream, Adjacency scriptReads, Adjacency scriptWrites,
+                    Adjacency tableReaders, Adjacency tableWriters) {
+        this.tableNames = tableNames;
+        this.tableIds = tableIds;
+        this.scriptIds = scriptIds;
+        this.scriptNumbers = scriptNumbers;
+        this.downstream = downstream;
+        this.upstream = upstream;
+        this.scriptReads = scriptReads;
+        this.scriptWrites = scriptWrites;
+        this.tableReaders = tableReaders;
+        this.tableWriters = tableWriters;
+    }
+
+    public int getTableCount() {
+        return tableNames.length;
+    }
+
+    public int getScriptCount() {
+        return scriptIds.length;
+    }
+
+    /**
+     * The number of distinct table-to-table edges.
+     */
+    public long getEdgeCount() {
+        return downstream.neighbours.length;
+    }
+
+    /**
+     * The tables read by statements that write the given table, or with {@code transitive} also
+     * the tables those depend on, and so on. Unknown tables have no dependencies.
+     */
+    public List<String> getUpstreamTables(String table, boolean transitive) {
+        return tables(traverse(tableIds.get(table), upstream, null, tableNames.length, transitive));
+    }
+
+    /**
+     * The tables written by statements that read the given table, or with {@code transitive} also
+     * the tables depending on those, and so on.
+     */
+    public List<String> getDownstreamTables(String table, boolean transitive) {
+        return tables(traverse(tableIds.get(table), downstream, null, tableNames.length, transitive));
+    }
+
+    /**
+     * The scripts that write a table the given script reads, or with {@code transitive} also the
+     * scripts those depend on, and so on. Unknown scripts have no dependencies.
+     */
+    public List<String> getUpstreamScripts(String scriptId, boolean transitive) {
+        return scripts(traverse(scriptNumbers.get(scriptId), scriptReads, tableWriters, scriptIds.length, transitive));
+    }
+
+    /**
+     * The scripts that read a table the given script writes, or with {@code transitive} also the
+     * scripts depending on those, and so on.
+     */
+    public List<String> getDownstreamScripts(String scriptId, boolean transitive) {
+        return scripts(traverse(scriptNumbers.get(scriptId), scriptWrites, tableReaders, scriptIds.length, transitive));
+    }
+
+    public List<String> getReaders(String table) {
+        Integer id = tableIds.get(table);
+        return id == null ? Collections.<String>emptyList() : scripts(tableReaders.copy(id));
+    }
+
+    public List<String> getWriters(String table) {
+        Integer id = tableIds.get(table);
+        return id == null ? Collections.<String>emptyList() : scripts(tableWriters.copy(id));
+    }
+
+    /**
+     * Breadth-first traversal from {@code start}, excluding it. With {@code via} set, a step goes
+     * through the intermediate nodes of {@code first} and then {@code via}, e.g. from a script to
+     * the tables it reads and then to the scripts writing them.
+     *
+     * @return the ids reached, in the order they were reached
+     */
+    private static int[] traverse(Integer start, Adjacency first, Adjacency via, int nodeCount, boolean transitive) {
+        if (start == null) {
+            return new int[0];
+        }
+        BitSet visited = new BitSet(nodeCount);
+        visited.set(start);
+        int[] queue = new int[16];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        BitSet visitedVia = via == null ? null : new BitSet();
+        while (head < tail) {
+            int node = queue[head++];
+            for (int i = first.offsets[node]; i < first.offsets[node + 1]; i++) {
+                int next = first.neighbours[i];
+                if (via == null) {
+                    if (!visited.get(next)) {
+                        visited.set(next);
+                        queue = append(queue, tail++, next);
+                    }
+                    continue;
+                }
+                if (visitedVia.get(next)) {
+                    continue;
+                }
+                visitedVia.set(next);
+                for (int j = via.offsets[next]; j < via.offsets[next + 1]; j++) {
+                    int reached = via.neighbours[j];
+                    if (!visited.get(reached)) {
+                        visited.set(reached);
+                        queue = append(queue, tail++, reached);
+                    }
+                }
+            }
+            if (!transitive) {
+                break;
+            }
+        }
+        return Arrays.copyOfRange(queue, 1, tail);
+    }
+
+    private static int[] append(int[] queue, int index, int value) {
+        if (index == queue.length) {
+            queue = Arrays.copyOf(queue, index * 2);
+        }
+        queue[index] = value;
+        return queue;
+    }
+
+    private List<String> tables(int[] ids) {
+        List<String> names = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            names.add(tableNames[id]);
+        }
+        return names;
+    }
+
+    private List<String> scripts(int[] ids) {
+        List<String> names = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            names.add(scriptIds[id]);
+        }
+        return names;
+    }
+
+    /**
+     * Compressed adjacency lists: the neighbours of node {@code n} are
+     * {@code neighbours[offsets[n]]} up to, excluding, {@code neighbours[offsets[n + 1]]}.
+     */
+    static final class Adjacency {
+
+        final int[] offsets;
+        final int[] neighbours;
+
+        private Adjacency(int[] offsets, int[] neighbours) {
+            this.offsets = offsets;
+            this.neighbours = neighbours;
+        }
+
+        /**
+         * Builds the lists from distinct edges packed as {@code from << 32 | to}.
+         *
+         * @param reverse whether to index the edges by {@code to} instead
+         */
+        static Adjacency of(long[][] edgeShards, int[] edgeCounts, int nodeCount, boolean reverse) {
+            int[] offsets = new int[nodeCount + 1];
+            int total = 0;
+            for (int s = 0; s < edgeShards.length; s++) {
+                long[] edges = edgeShards[s];
+                for (int i = 0; i < edgeCounts[s]; i++) {
+                    offsets[from(edges[i], reverse) + 1]++;
+                }
+                total += edgeCounts[s];
+            }
+            for (int n = 0; n < nodeCount; n++) {
+                offsets[n + 1] += offsets[n];
+            }
+            int[] next = Arrays.copyOf(offsets, nodeCount);
+            int[] neighbours = new int[total];
+            for (int s = 0; s < edgeShards.length; s++) {
+                long[] edges = edgeShards[s];
+                for (int i = 0; i < edgeCounts[s]; i++) {
+                    neighbours[next[from(edges[i], reverse)]++] = from(edges[i], !reverse);
+                }
+            }
+            return new Adjacency(offsets, neighbours);
+        }
+
+        private static int from(long edge, boolean reverse) {
+            return reverse ? (int) edge : (int) (edge >>> 32);
+        }
+
+        int[] copy(int node) {
+            return Arrays.copyOfRange(neighbours, offsets[node], offsets[node + 1]);
+        }
+    }
+}
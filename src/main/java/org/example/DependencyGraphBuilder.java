@@ -0,0 +1,212 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Merges the results of many scripts into a {@link DependencyGraph}. Scripts can be added from any
+ * number of threads, e.g. straight from the tasks of a {@link BatchAnalyzer}.
+ * <p>
+ * Table names and script ids are numbered on first sight through a concurrent map. Edges are
+ * packed into longs and appended to one of several shards chosen by the edge's first node, each
+ * shard with its own lock, so that concurrent adds rarely contend. {@link #build()} sorts and
+ * de-duplicates the shards in parallel and lays them out as compressed adjacency arrays.
+ * Adding a script id a second time adds to what was already recorded for it. A builder builds one
+ * graph; the graph takes over its name tables.
+ */
+public class DependencyGraphBuilder {
+
+    private final Map<String, Integer> tableIds = new ConcurrentHashMap<>();
+    private final AtomicInteger tableCount = new AtomicInteger();
+    private final Map<String, Integer> scriptNumbers = new ConcurrentHashMap<>();
+    private final AtomicInteger scriptCount = new AtomicInteger();
+    private final EdgeShard[] tableEdges;
+    private final EdgeShard[] scriptReads;
+    private final EdgeShard[] scriptWrites;
+    private volatile boolean built;
+
+    public DependencyGraphBuilder() {
+        this(64);
+    }
+
+    /**
+     * @param shards the number of shards per kind of edge, rounded up to a power of two
+     */
+    public DependencyGraphBuilder(int shards) {
+        if (shards <= 0) {
+            throw new IllegalArgumentException("shards must be positive: " + shards);
+        }
+        int count = Math.max(Integer.highestOneBit(shards - 1) << 1, 1);
+        tableEdges = newShards(count);
+        scriptReads = newShards(count);
+        scriptWrites = newShards(count);
+    }
+
+    private static EdgeShard[] newShards(int count) {
+        EdgeShard[] shards = new EdgeShard[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new EdgeShard();
+        }
+        return shards;
+    }
+
+    public void add(String scriptId, ExtractionResult result) {
+        add(scriptId, result.getStatementResults());
+    }
+
+    /**
+     * Adds the tables read and written by the statements of a script. Thread-safe.
+     */
+    public void add(String scriptId, List<StatementResult> statements) {
+        if (built) {
+            throw new IllegalStateException("Graph already built");
+        }
+        int script = scriptNumbers.computeIfAbsent(scriptId, id -> scriptCount.getAndIncrement());
+        // Group the edges of the script by shard so that each shard is locked once
+        LongBuffer[] pendingTableEdges = new LongBuffer[tableEdges.length];
+        LongBuffer[] pendingReads = new LongBuffer[scriptReads.length];
+        LongBuffer[] pendingWrites = new LongBuffer[scriptWrites.length];
+        for (StatementResult statement : statements) {
+            List<String> sources = statement.getSourceTables();
+            int[] sourceIds = new int[sources.size()];
+            for (int i = 0; i < sourceIds.length; i++) {
+                sourceIds[i] = tableId(sources.get(i));
+                stage(pendingReads, script, sourceIds[i]);
+            }
+            for (TableTarget target : statement.getTargets()) {
+                int targetId = tableId(target.getTable());
+                stage(pendingWrites, script, targetId);
+                for (int sourceId : sourceIds) {
+                    if (sourceId != targetId) {
+                        stage(pendingTableEdges, sourceId, targetId);
+                    }
+                }
+            }
+        }
+        flush(pendingTableEdges, tableEdges);
+        flush(pendingReads, scriptReads);
+        flush(pendingWrites, scriptWrites);
+    }
+
+    private static void stage(LongBuffer[] pending, int from, int to) {
+        int shard = from & (pending.length - 1);
+        if (pending[shard] == null) {
+            pending[shard] = new LongBuffer(8);
+        }
+        pending[shard].add((long) from << 32 | (to & 0xFFFFFFFFL));
+    }
+
+    private static void flush(LongBuffer[] pending, EdgeShard[] shards) {
+        for (int i = 0; i < pending.length; i++) {
+            if (pending[i] != null) {
+                shards[i].addAll(pending[i]);
+            }
+        }
+    }
+
+    private int tableId(String table) {
+        Integer id = tableIds.get(table);
+        return id != null ? id : tableIds.computeIfAbsent(table, name -> tableCount.getAndIncrement());
+    }
+
+    /**
+     * Builds the graph from everything added so far. Must not run concurrently with
+     * {@link #add(String, List)}.
+     */
+    public DependencyGraph build() {
+        if (built) {
+            throw new IllegalStateException("Graph already built");
+        }
+        built = true;
+        String[] tableNames = new String[tableCount.get()];
+        for (Map.Entry<String, Integer> table : tableIds.entrySet()) {
+            tableNames[table.getValue()] = table.getKey();
+        }
+        String[] scriptIds = new String[scriptCount.get()];
+        for (Map.Entry<String, Integer> script : scriptNumbers.entrySet()) {
+            scriptIds[script.getValue()] = script.getKey();
+        }
+
+        EdgeShard[][] kinds = {tableEdges, scriptReads, scriptWrites};
+        long[][][] edges = new long[kinds.length][][];
+        int[][] counts = new int[kinds.length][];
+        for (int k = 0; k < kinds.length; k++) {
+            EdgeShard[] shards = kinds[k];
+            edges[k] = new long[shards.length][];
+            counts[k] = new int[shards.length];
+            int kind = k;
+            IntStream.range(0, shards.length).parallel().forEach(s -> {
+                counts[kind][s] = shards[s].sortDistinct();
+                edges[kind][s] = shards[s].edges.array;
+            });
+        }
+
+        int tables = tableNames.length;
+        int scripts = scriptIds.length;
+        DependencyGraph.Adjacency[] adjacency = new DependencyGraph.Adjacency[6];
+        IntStream.range(0, adjacency.length).parallel().forEach(i -> {
+            int kind = i / 2;
+            boolean reverse = i % 2 == 1;
+            int nodeCount = kind == 0 || reverse ? tables : scripts;
+            adjacency[i] = DependencyGraph.Adjacency.of(edges[kind], counts[kind], nodeCount, reverse);
+        });
+        return new DependencyGraph(tableNames, tableIds, scriptIds, scriptNumbers,
+                adjacency[0], adjacency[1], adjacency[2], adjacency[4], adjacency[3], adjacency[5]);
+    }
+
+    private static final class EdgeShard {
+
+        private final LongBuffer edges = new LongBuffer(64);
+
+        synchronized void addAll(LongBuffer buffer) {
+            edges.addAll(buffer);
+        }
+
+        /**
+         * Sorts the edges and drops duplicates in place.
+         *
+         * @return the number of distinct edges
+         */
+        synchronized int sortDistinct() {
+            long[] array = edges.array;
+            Arrays.sort(array, 0, edges.size);
+            int distinct = 0;
+            for (int i = 0; i < edges.size; i++) {
+                if (distinct == 0 || array[i] != array[distinct - 1]) {
+                    array[distinct++] = array[i];
+                }
+            }
+            edges.size = distinct;
+            return distinct;
+        }
+    }
+
+    private static final class LongBuffer {
+
+        long[] array;
+        int size;
+
+        LongBuffer(int capacity) {
+            array = new long[capacity];
+        }
+
+        void add(long value) {
+            if (size == array.length) {
+                array = Arrays.copyOf(array, size * 2);
+            }
+            array[size++] = value;
+        }
+
+        void addAll(LongBuffer other) {
+            if (size + other.size > array.length) {
+                array = Arrays.copyOf(array, Math.max(array.length * 2, size + other.size));
+            }
+            System.arraycopy(other.array, 0, array, size, other.size);
+            size += other.size;
+        }
+    }
+}
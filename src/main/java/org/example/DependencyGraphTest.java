@@ -0,0 +1,77 @@
+package org.example;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+public class DependencyGraphTest {
+
+    @Test
+    public void testTablesAndScripts() throws Exception {
+        DependencyGraphBuilder builder = new DependencyGraphBuilder(4);
+        builder.add("ods.sql", HiveSqlParser.extract("insert overwrite table ods.orders select * from raw.orders"));
+        builder.add("dw.sql", HiveSqlParser.extract("use dw; insert into orders_daily select * from ods.orders join ods.users u on 1 = 1; "
+                + "create table orders_report as select * from orders_daily"));
+        builder.add("adhoc.sql", HiveSqlParser.extract("select * from dw.orders_report"));
+        DependencyGraph graph = builder.build();
+
+        Assert.assertEquals(5, graph.getTableCount());
+        Assert.assertEquals(3, graph.getScriptCount());
+        Assert.assertEquals(4, graph.getEdgeCount());
+        Assert.assertEquals(Arrays.asList("ods.orders", "ods.users"), graph.getUpstreamTables("dw.orders_daily", false));
+        Assert.assertEquals(Arrays.asList("dw.orders_daily", "ods.orders", "ods.users", "raw.orders"),
+                sorted(graph.getUpstreamTables("dw.orders_report", true)));
+        Assert.assertEquals(Arrays.asList("dw.orders_daily", "dw.orders_report"), graph.getDownstreamTables("ods.orders", true));
+        Assert.assertEquals(Collections.emptyList(), graph.getDownstreamTables("missing.table", true));
+
+        Assert.assertEquals(Collections.singletonList("ods.sql"), graph.getUpstreamScripts("dw.sql", true));
+        Assert.assertEquals(Arrays.asList("dw.sql", "ods.sql"), sorted(graph.getUpstreamScripts("adhoc.sql", true)));
+        Assert.assertEquals(Collections.singletonList("dw.sql"), graph.getUpstreamScripts("adhoc.sql", false));
+        Assert.assertEquals(Arrays.asList("adhoc.sql", "dw.sql"), sorted(graph.getDownstreamScripts("ods.sql", true)));
+        Assert.assertEquals(Collections.singletonList("dw.sql"), graph.getReaders("ods.users"));
+        Assert.assertEquals(Collections.singletonList("ods.sql"), graph.getWriters("ods.orders"));
+    }
+
+    @Test
+    public void testCycles() {
+        DependencyGraphBuilder builder = new DependencyGraphBuilder();
+        builder.add("a.sql", Collections.singletonList(statement("db.b", "db.a")));
+        builder.add("b.sql", Collections.singletonList(statement("db.a", "db.b")));
+        DependencyGraph graph = builder.build();
+        Assert.assertEquals(Collections.singletonList("db.a"), graph.getUpstreamTables("db.b", true));
+        Assert.assertEquals(Collections.singletonList("b.sql"), graph.getDownstreamScripts("a.sql", true));
+    }
+
+    @Test
+    public void testConcurrentAdds() {
+        DependencyGraphBuilder builder = new DependencyGraphBuilder(8);
+        // A chain t0 <- t1 <- ... <- t999, each link added by its own script, twice over
+        IntStream.range(0, 2000).parallel().forEach(i -> builder.add("script_" + (i % 1000),
+                Collections.singletonList(statement("db.t" + (i % 1000), "db.t" + (i % 1000 + 1)))));
+        DependencyGraph graph = builder.build();
+        Assert.assertEquals(1001, graph.getTableCount());
+        Assert.assertEquals(1000, graph.getScriptCount());
+        Assert.assertEquals(1000, graph.getEdgeCount());
+        Assert.assertEquals(1000, graph.getUpstreamTables("db.t1000", true).size());
+        Assert.assertEquals(999, graph.getDownstreamScripts("script_0", true).size());
+        Assert.assertEquals(Collections.singletonList("script_998"), graph.getUpstreamScripts("script_999", false));
+    }
+
+    private static StatementResult statement(String source, String target) {
+        return new StatementResult(new SymbolTable(), 0, StatementType.INSERT, "db",
+                Collections.singletonList(new TableTarget(target, Collections.<String, String>emptyMap())),
+                Collections.singletonList(source));
+    }
+
+    private static List<String> sorted(List<String> values) {
+        List<String> copy = new ArrayList<>(new HashSet<>(values));
+        Collections.sort(copy);
+        return copy;
+    }
+}
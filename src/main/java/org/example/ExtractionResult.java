@@ -0,0 +1,94 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable result of analyzing a script: the result of each statement, the tables read by the
+ * script, and the statements that could not be analyzed in fail-soft mode.
+ */
+public final class ExtractionResult {
+
+    private final List<StatementResult> statementResults;
+    private final List<List<String>> statementTableNames;
+    private final List<String> tableNames;
+    private final Set<String> distinctTableNames;
+    private final List<StatementError> statementErrors;
+
+    /**
+     * @param statementResults the result of each statement, in statement order
+     */
+    public ExtractionResult(List<StatementResult> statementResults) {
+        this(statementResults, Collections.<StatementError>emptyList());
+    }
+
+    /**
+     * @param statementErrors the statements that could not be analyzed, in statement order
+     */
+    public ExtractionResult(List<StatementResult> statementResults, List<StatementError> statementErrors) {
+        List<List<String>> statements = new ArrayList<>(statementResults.size());
+        List<String> all = new ArrayList<>();
+        for (StatementResult result : statementResults) {
+            List<String> tables = result.getSourceTables();
+            statements.add(tables);
+            // Each name is looked up once here, and the view is not copied
+            for (int i = 0; i < tables.size(); i++) {
+                all.add(tables.get(i));
+            }
+        }
+        Set<String> distinct = new LinkedHashSet<>(all);
+        this.statementResults = Collections.unmodifiableList(new ArrayList<>(statementResults));
+        this.statementTableNames = Collections.unmodifiableList(statements);
+        this.tableNames = Collections.unmodifiableList(all);
+        this.distinctTableNames = Collections.unmodifiableSet(distinct);
+        this.statementErrors = statementErrors.isEmpty() ? Collections.<StatementError>emptyList()
+                : Collections.unmodifiableList(new ArrayList<>(statementErrors));
+    }
+
+    /**
+     * The tables of every statement, in order; see {@link HiveSqlParser#getTableNames()}.
+     */
+    public List<String> getTableNames() {
+        return tableNames;
+    }
+
+    public Set<String> getDistinctTableNames() {
+        return distinctTableNames;
+    }
+
+    public List<List<String>> getStatementTableNames() {
+        return statementTableNames;
+    }
+
+    public List<StatementResult> getStatementResults() {
+        return statementResults;
+    }
+
+    /**
+     * See {@link HiveSqlParser#getStatementErrors()}.
+     */
+    public List<StatementError> getStatementErrors() {
+        return statementErrors;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ExtractionResult)) return false;
+        ExtractionResult that = (ExtractionResult) o;
+        return statementResults.equals(that.statementResults) && statementErrors.equals(that.statementErrors);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * statementResults.hashCode() + statementErrors.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "ExtractionResult" + statementResults + (statementErrors.isEmpty() ? "" : ", errors " + statementErrors);
+    }
+}
@@ -0,0 +1,79 @@
+package org.example;
+
+import org.apache.hadoop.hive.ql.parse.ParseException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class FailSoftParseTest {
+
+    @Test(expected = ParseException.class)
+    public void testAbortsByDefault() throws Exception {
+        new HiveSqlParser().parse("select * from a; select * from b where; select * from c");
+    }
+
+    @Test
+    public void testSkipsFailedStatements() throws Exception {
+        HiveSqlParser parser = new HiveSqlParser();
+        parser.setFailSoft(true);
+        String script = "select * from a; select * from b where; select * from c";
+        parser.parse(script);
+
+        Assert.assertEquals(Arrays.asList("default.a", "default.c"), parser.getTableNames());
+        Assert.assertEquals(1, parser.getStatementErrors().size());
+        StatementError error = parser.getStatementErrors().get(0);
+        Assert.assertEquals(1, error.getIndex());
+        Assert.assertEquals(script.indexOf("select * from b"), error.getOffset());
+        Assert.assertEquals("ParseException", error.getErrorType());
+        Assert.assertNotNull(error.getMessage());
+        Assert.assertFalse(error.isRecovered());
+        Assert.assertEquals(2, parser.getStatementResults().get(1).getIndex());
+    }
+
+    @Test
+    public void testRelaxedFallback() throws Exception {
+        HiveSqlParser parser = new HiveSqlParser();
+        parser.setFailSoft(true);
+        parser.setRelaxedFallback(true);
+        parser.parse("use dw; upsert into ods.t select * from b join `c` x on b.id = x.id; "
+                + "with x as (select 1) selec * from x, d; drop table where");
+
+        Assert.assertEquals(3, parser.getStatementErrors().size());
+        Assert.assertTrue(parser.getStatementErrors().get(0).isRecovered());
+        Assert.assertTrue(parser.getStatementErrors().get(1).isRecovered());
+        Assert.assertFalse(parser.getStatementErrors().get(2).isRecovered());
+
+        Assert.assertEquals(2, parser.getStatementResults().size());
+        StatementResult upsert = parser.getStatementResults().get(0);
+        Assert.assertEquals(1, upsert.getIndex());
+        Assert.assertEquals(StatementType.OTHER, upsert.getType());
+        Assert.assertEquals(Collections.singletonList(new TableTarget("ods.t", Collections.<String, String>emptyMap())),
+                upsert.getTargets());
+        Assert.assertEquals(Arrays.asList("dw.b", "dw.c"), upsert.getSourceTables());
+        StatementResult query = parser.getStatementResults().get(1);
+        Assert.assertEquals(StatementType.QUERY, query.getType());
+        Assert.assertEquals(Collections.singletonList("dw.d"), query.getSourceTables());
+    }
+
+    @Test
+    public void testErrorsInExtractionResult() throws Exception {
+        HiveSqlParser parser = new HiveSqlParser();
+        parser.setFailSoft(true);
+        parser.parse("select * from a; select from");
+        ExtractionResult result = new ExtractionResult(parser.getStatementResults(), parser.getStatementErrors());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ResultWriter writer = new ResultWriter(bytes)) {
+            writer.write("script", result);
+        }
+        try (ResultReader reader = new ResultReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            ExtractionResult read = reader.read().getResult();
+            Assert.assertEquals(result, read);
+            Assert.assertEquals(parser.getStatementErrors(), read.getStatementErrors());
+        }
+    }
+}
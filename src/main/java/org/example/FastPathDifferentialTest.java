@@ -0,0 +1,139 @@
+package org.example;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that the fast path and the AST path give the same results on generated statements, and
+ * that the fast path is actually taken for the simple ones.
+ */
+public class FastPathDifferentialTest {
+
+    private static final String[] TABLES = {"a", "db.b", "`db`.`c`", "`d.e`", "Mixed.Case", "t_1", "9x", "`select`",
+            "user", "data", "db.`weird``name`"};
+    private static final String[] JOINS = {" join ", " inner join ", " left join ", " LEFT OUTER JOIN ", " right join ",
+            " full outer join ", ", ", " left semi join ", " cross join "};
+    private static final String[] SELECT_LISTS = {"*", "x.id", "count(*) as c", "if(a > 1, 'from', \"x\") v",
+            "sum(v) over (partition by k order by t)", "extract(day from dt)", "cast(a as string)",
+            "a -- trailing comment\n", "/* hint */ a, b"};
+    private static final String[] CLAUSES = {"", " where a.id in (1, 2)", " where x = 'it''s'", " group by k having count(*) > 1",
+            " order by k limit 10", " where a in (select id from z)", " distribute by k sort by v",
+            " union all select * from u"};
+
+    private static class FastPathCount implements ParseListener {
+
+        int count;
+
+        @Override
+        public void onStatement(StatementMetrics metrics) {
+            if (metrics.getAstNodeCount() == 0) {
+                count++;
+            }
+        }
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static String generate(Random random) {
+        StringBuilder sql = new StringBuilder();
+        switch (random.nextInt(4)) {
+            case 0:
+                sql.append("insert into table ").append(pick(random, TABLES)).append(' ');
+                break;
+            case 1:
+                sql.append("INSERT OVERWRITE TABLE ").append(pick(random, TABLES))
+                        .append(" partition (dt='2024-01-0").append(random.nextInt(9) + 1).append("', hr) ");
+                break;
+            default:
+                break;
+        }
+        sql.append("select ").append(pick(random, SELECT_LISTS)).append(" from ").append(pick(random, TABLES));
+        if (random.nextBoolean()) {
+            sql.append(" x");
+        }
+        int joins = random.nextInt(4);
+        for (int i = 0; i < joins; i++) {
+            String join = pick(random, JOINS);
+            sql.append(join).append(pick(random, TABLES)).append(" t").append(i);
+            if (!join.equals(", ") && !join.contains("cross")) {
+                sql.append(" on x.id = t").append(i).append(".id");
+            }
+        }
+        return sql.append(pick(random, CLAUSES)).toString();
+    }
+
+    private static List<StatementResult> parse(String statement, boolean fastPath, ParseListener listener) {
+        HiveSqlParser processor = new HiveSqlParser();
+        processor.setFastPath(fastPath);
+        processor.setParseListener(listener);
+        try {
+            processor.parse(statement);
+        } catch (Exception e) {
+            return null;
+        }
+        return processor.getStatementResults();
+    }
+
+    @Test
+    public void testGeneratedStatements() {
+        Random random = new Random(7);
+        FastPathCount fastPathCount = new FastPathCount();
+        int parsed = 0;
+        for (int i = 0; i < 1500; i++) {
+            String statement = generate(random);
+            List<StatementResult> expected = parse(statement, false, null);
+            if (expected == null) {
+                // Not valid Hive SQL; the fast path is not required to reject it
+                continue;
+            }
+            parsed++;
+            Assert.assertEquals(statement, expected, parse(statement, true, fastPathCount));
+        }
+        Assert.assertTrue("valid statements: " + parsed, parsed > 500);
+        Assert.assertTrue("fast path taken " + fastPathCount.count + " times", fastPathCount.count > parsed / 4);
+    }
+
+    @Test
+    public void testGeneratedScripts() throws Exception {
+        // Valid generated statements, with use statements and comments in between
+        Random random = new Random(11);
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            String statement = generate(random);
+            if (parse(statement, false, null) == null) {
+                continue;
+            }
+            if (i % 10 == 0) {
+                script.append("use db_").append(i / 10).append(";\n");
+            }
+            script.append("-- step ").append(i).append('\n').append(statement).append(";\n");
+        }
+        StringBuilder cteChain = new StringBuilder("with cte_0 as (select id, value from db.base_table)");
+        for (int i = 1; i < 20; i++) {
+            cteChain.append(", cte_").append(i).append(" as (select a.id, b.value from cte_").append(i - 1)
+                    .append(" a join db.table_").append(i).append(" b on a.id = b.id)");
+        }
+        cteChain.append(" insert overwrite table db.target select * from cte_19");
+        StringBuilder unionAll = new StringBuilder("select id from db.table_0");
+        for (int i = 1; i < 20; i++) {
+            unionAll.append(" union all select id from db.table_").append(i);
+        }
+
+        List<String> scripts = new ArrayList<>();
+        scripts.add(script.toString());
+        scripts.add(ParseLimitTest.joins(50));
+        scripts.add(cteChain.toString());
+        scripts.add(unionAll.toString());
+        for (String sql : scripts) {
+            List<StatementResult> expected = parse(sql, false, null);
+            Assert.assertNotNull(sql, expected);
+            Assert.assertEquals(expected, parse(sql, true, null));
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package org.example;
+
+import org.apache.hadoop.hive.ql.parse.BaseSemanticAnalyzer;
+import org.example.SqlTokenizer.Token;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Extracts the tables of simple statements from their tokens, without running the Hive parser.
+ * <p>
+ * Recognized are a single {@code SELECT} whose FROM clause is a list of tables combined with
+ * commas and inner or outer joins, optionally preceded by {@code INSERT INTO [TABLE]} or
+ * {@code INSERT OVERWRITE TABLE} with a partition spec. Any other shape, such as subqueries, CTEs,
+ * UNION, lateral views, semi or cross joins, or a name that is also a Hive keyword, makes the
+ * extractor give up, so that the statement goes through {@link HiveSqlParser}'s AST path. The
+ * result is the same as the AST path's for every statement the extractor accepts. Expressions are
+ * skipped without being checked, so a statement with a malformed expression may be accepted where
+ * the Hive parser would reject it. An extractor must not be shared between threads.
+ */
+final class FastPathExtractor {
+
+    // Words that make a statement too complex for the fast path wherever they appear
+    private static final Set<String> UNSUPPORTED = new HashSet<>();
+    // Words that end a FROM clause
+    private static final Set<String> CLAUSES = new HashSet<>();
+
+    static {
+        for (String word : new String[]{"with", "union", "intersect", "except", "minus", "lateral", "transform",
+                "map", "reduce", "values", "tablesample", "semi", "cross", "uniquejoin"}) {
+            UNSUPPORTED.add(word);
+        }
+        for (String word : new String[]{"where", "group", "having", "order", "sort", "cluster", "distribute",
+                "limit", "window"}) {
+            CLAUSES.add(word);
+        }
+    }
+
+    private final List<Token> tokens = new ArrayList<>();
+    private int position;
+
+    private StatementType type;
+    private final Set<String> tableNames = new LinkedHashSet<>();
+    private final List<TableTarget> targets = new ArrayList<>();
+
+    /**
+     * Extracts the tables read and written by the statement, as written in the statement.
+     *
+     * @return false, leaving the arguments untouched, if the statement is not recognized
+     */
+    boolean extract(String statement, Set<String> tableNames, List<TableTarget> targets) {
+        try {
+            if (!SqlTokenizer.tokenize(statement, tokens, false) || !statement()) {
+                return false;
+            }
+            tableNames.addAll(this.tableNames);
+            targets.addAll(this.targets);
+            return true;
+        } finally {
+            tokens.clear();
+            this.tableNames.clear();
+            this.targets.clear();
+        }
+    }
+
+    /**
+     * The type of the statement last extracted.
+     */
+    StatementType getType() {
+        return type;
+    }
+
+    private boolean statement() {
+        int selects = 0;
+        int froms = 0;
+        for (Token token : tokens) {
+            if (token.type == Token.WORD) {
+                if (UNSUPPORTED.contains(token.text.toLowerCase())) {
+                    return false;
+                }
+                selects += "select".equals(token.text) ? 1 : 0;
+                froms += "from".equals(token.text) ? 1 : 0;
+            }
+        }
+        if (selects != 1 || froms > 1) {
+            return false;
+        }
+
+        position = 0;
+        type = StatementType.QUERY;
+        if (isWord("insert")) {
+            if (!insertClause()) {
+                return false;
+            }
+            type = StatementType.INSERT;
+        }
+        if (!isWord("select")) {
+            return false;
+        }
+        position++;
+        // Skip the select list
+        int depth = 0;
+        boolean empty = true;
+        while (position < tokens.size() && !(depth == 0 && isWord("from"))) {
+            depth += depthChange(tokens.get(position));
+            if (depth < 0) {
+                return false;
+            }
+            empty = false;
+            position++;
+        }
+        if (empty || depth != 0) {
+            return false;
+        }
+        if (position == tokens.size()) {
+            return true;
+        }
+        position++;
+        return fromClause() && rest();
+    }
+
+    private boolean insertClause() {
+        position++;
+        String table;
+        if (isWord("into")) {
+            position++;
+            if (isWord("table")) {
+                position++;
+            }
+        } else if (isWord("overwrite")) {
+            position++;
+            if (!isWord("table")) {
+                return false;
+            }
+            position++;
+        } else {
+            return false;
+        }
+        table = tableName();
+        if (table == null) {
+            return false;
+        }
+        Map<String, String> partitionSpec = new LinkedHashMap<>();
+        if (isWord("partition")) {
+            position++;
+            if (!isSymbol('(')) {
+                return false;
+            }
+            do {
+                position++;
+                Token column = next();
+                if (!isIdentifier(column)) {
+                    return false;
+                }
+                String value = null;
+                if (isSymbol('=')) {
+                    position++;
+                    Token literal = next();
+                    if (literal == null) {
+                        return false;
+                    } else if (literal.type == Token.STRING) {
+                        value = BaseSemanticAnalyzer.unescapeSQLString(literal.text);
+                    } else if (literal.type == Token.WORD && Character.isDigit(literal.text.charAt(0))) {
+                        value = literal.text;
+                    } else {
+                        return false;
+                    }
+                }
+                partitionSpec.put(column.text.toLowerCase(), value);
+            } while (isSymbol(','));
+            if (!isSymbol(')')) {
+                return false;
+            }
+            position++;
+        }
+        targets.add(new TableTarget(table, partitionSpec));
+        return true;
+    }
+
+    private boolean fromClause() {
+        while (true) {
+            String table = tableName();
+            if (table == null) {
+                return false;
+            }
+            tableNames.add(table);
+            if (isWord("as")) {
+                position++;
+                if (!isIdentifier(next())) {
+                    return false;
+                }
+            } else if (position < tokens.size() && isIdentifier(tokens.get(position))) {
+                position++;
+            }
+
+            if (isWord("on")) {
+                // Skip the join condition
+                position++;
+                int depth = 0;
+                while (position < tokens.size() && !(depth == 0 && (isJoin() || isClause()))) {
+                    depth += depthChange(tokens.get(position));
+                    if (depth < 0) {
+                        return false;
+                    }
+                    position++;
+                }
+                if (depth != 0) {
+                    return false;
+                }
+            }
+            if (position == tokens.size() || isClause()) {
+                return true;
+            }
+            if (!isJoin()) {
+                return false;
+            }
+            if (isSymbol(',')) {
+                position++;
+                continue;
+            }
+            if (isWord("inner")) {
+                position++;
+            } else if (isWord("left") || isWord("right") || isWord("full")) {
+                position++;
+                if (isWord("outer")) {
+                    position++;
+                }
+            }
+            if (!isWord("join")) {
+                return false;
+            }
+            position++;
+        }
+    }
+
+    /**
+     * Checks the clauses after the FROM clause for balanced parentheses.
+     */
+    private boolean rest() {
+        int depth = 0;
+        for (; position < tokens.size(); position++) {
+            depth += depthChange(tokens.get(position));
+            if (depth < 0) {
+                return false;
+            }
+        }
+        return depth == 0;
+    }
+
+    /**
+     * @return the table name at the current position, as {@code table} or {@code db.table}, or
+     * null if there is none
+     */
+    private String tableName() {
+        Token first = next();
+        if (!isIdentifier(first)) {
+            return null;
+        }
+        if (!isSymbol('.')) {
+            return first.text;
+        }
+        position++;
+        Token second = next();
+        if (!isIdentifier(second) || isSymbol('.')) {
+            return null;
+        }
+        return first.text + "." + second.text;
+    }
+
+    private boolean isJoin() {
+        return isSymbol(',') || isWord("join") || isWord("inner") || isWord("left") || isWord("right") || isWord("full");
+    }
+
+    private boolean isClause() {
+        return position < tokens.size() && tokens.get(position).type == Token.WORD && CLAUSES.contains(tokens.get(position).text);
+    }
+
+    private boolean isWord(String word) {
+        if (position >= tokens.size()) {
+            return false;
+        }
+        Token token = tokens.get(position);
+        return token.type == Token.WORD && token.text.equals(word);
+    }
+
+    private boolean isSymbol(char symbol) {
+        if (position >= tokens.size()) {
+            return false;
+        }
+        Token token = tokens.get(position);
+        return token.type == Token.SYMBOL && token.text.charAt(0) == symbol;
+    }
+
+    private Token next() {
+        return position < tokens.size() ? tokens.get(position++) : null;
+    }
+
+    /**
+     * Whether the token can only be read as an identifier: quoted, or a word that starts with a
+     * letter and is not a Hive keyword.
+     */
+    private static boolean isIdentifier(Token token) {
+        if (token == null) {
+            return false;
+        }
+        if (token.type == Token.QUOTED_IDENTIFIER) {
+            return !token.text.isEmpty();
+        }
+        return token.type == Token.WORD && SqlTokenizer.isLetter(token.text.charAt(0)) && !SqlTokenizer.isKeyword(token.text);
+    }
+
+    private static int depthChange(Token token) {
+        if (token.type != Token.SYMBOL) {
+            return 0;
+        }
+        char symbol = token.text.charAt(0);
+        return symbol == '(' ? 1 : symbol == ')' ? -1 : 0;
+    }
+}
@@ -0,0 +1,14 @@
+package org.example;
+
+/**
+ * Runs every {@link HiveSqlParserTest} with the fast path enabled.
+ */
+public class FastPathHiveSqlParserTest extends HiveSqlParserTest {
+
+    @Override
+    protected HiveSqlParser newParser() {
+        HiveSqlParser processor = new HiveSqlParser();
+        processor.setFastPath(true);
+        return processor;
+    }
+}
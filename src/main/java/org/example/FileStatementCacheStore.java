@@ -0,0 +1,264 @@
+package org.example;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link StatementCacheStore} backed by an append-only file, so cached statements survive
+ * restarts. Only the file offset of each entry is kept in memory, keyed by a 64-bit hash of its
+ * key, and an entry is read from the file when it is loaded; the in-memory cache in front of the
+ * store holds the results in use. The rare entries whose key hashes the same as an earlier entry's
+ * are kept by their full key instead. A file written in an older format is discarded.
+ */
+public class FileStatementCacheStore implements StatementCacheStore, Closeable {
+
+    private static Logger logger = LoggerFactory.getLogger(FileStatementCacheStore.class);
+
+    // Leads the file; changes whenever the entry format or what is extracted from a statement does
+    private static final int FORMAT_MAGIC = 0x48535234;
+
+    // Offset of each entry's length prefix, by the hash of its key
+    private final Map<Long, Long> offsets = new ConcurrentHashMap<>();
+    // Offset of each entry whose key's hash is taken by an earlier entry, by its key
+    private final Map<String, Long> collidingOffsets = new ConcurrentHashMap<>();
+    private final FileChannel channel;
+    private long size;
+    // Loaded results resolve their names here, so that they share them
+    private final SymbolTable symbols = new SymbolTable();
+
+    public FileStatementCacheStore(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            size = indexEntries(file);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Indexes the entries of the file, starting it over if it is empty or in an older format.
+     *
+     * @return the end of the last complete entry
+     */
+    private long indexEntries(Path file) throws IOException {
+        if (channel.size() >= 4) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(0))));
+            if (in.readInt() == FORMAT_MAGIC) {
+                long offset = 4;
+                while (true) {
+                    int length;
+                    try {
+                        length = in.readInt();
+                    } catch (EOFException e) {
+                        return offset;
+                    }
+                    try {
+                        String key = readString(in);
+                        skipFully(in, length - 4 - key.getBytes(StandardCharsets.UTF_8).length);
+                        if (offsets.putIfAbsent(hash(key), offset) != null) {
+                            collidingOffsets.putIfAbsent(key, offset);
+                        }
+                        offset += 4 + length;
+                    } catch (EOFException e) {
+                        logger.warn("Ignore truncated statement cache entry at the end of the file");
+                        channel.truncate(offset);
+                        return offset;
+                    }
+                }
+            }
+        }
+        if (channel.size() > 0) {
+            logger.warn("Discard statement cache file {} written in an older format", file);
+        }
+        channel.truncate(0);
+        ByteBuffer magic = ByteBuffer.allocate(4).putInt(0, FORMAT_MAGIC);
+        while (magic.hasRemaining()) {
+            channel.write(magic, magic.position());
+        }
+        return 4;
+    }
+
+    private static void skipFully(InputStream in, long n) throws IOException {
+        while (n > 0) {
+            long skipped = in.skip(n);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new EOFException();
+                }
+                skipped = 1;
+            }
+            n -= skipped;
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the key's characters.
+     */
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private StatementResult readResult(DataInputStream in) throws IOException {
+        StatementType type = StatementType.valueOf(readString(in));
+        String database = readString(in);
+        int targetCount = in.readInt();
+        List<TableTarget> targets = new ArrayList<>(targetCount);
+        for (int i = 0; i < targetCount; i++) {
+            String table = readString(in);
+            int partitionCount = in.readInt();
+            Map<String, String> partitionSpec = new LinkedHashMap<>();
+            for (int j = 0; j < partitionCount; j++) {
+                String column = readString(in);
+                partitionSpec.put(column, in.readBoolean() ? readString(in) : null);
+            }
+            targets.add(new TableTarget(table, partitionSpec));
+        }
+        int sourceCount = in.readInt();
+        List<String> sources = new ArrayList<>(sourceCount);
+        for (int i = 0; i < sourceCount; i++) {
+            sources.add(readString(in));
+        }
+        return new StatementResult(symbols, 0, type, database, targets, sources);
+    }
+
+    @Override
+    public StatementResult load(String key) {
+        Long offset = offsets.get(hash(key));
+        if (offset == null) {
+            return null;
+        }
+        try {
+            StatementResult result = readEntry(key, offset);
+            if (result == null) {
+                // The entry of another key with the same hash
+                offset = collidingOffsets.get(key);
+                result = offset == null ? null : readEntry(key, offset);
+            }
+            return result;
+        } catch (IOException e) {
+            logger.error("Read statement cache entry fail, message: " + e);
+            return null;
+        }
+    }
+
+    /**
+     * @return the result of the entry at the offset, or null if it is the entry of another key
+     */
+    private StatementResult readEntry(String key, long offset) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(readEntryBytes(offset)));
+        return key.equals(readString(in)) ? readResult(in) : null;
+    }
+
+    private byte[] readEntryBytes(long offset) throws IOException {
+        ByteBuffer length = ByteBuffer.allocate(4);
+        readFully(length, offset);
+        ByteBuffer entry = ByteBuffer.allocate(length.getInt(0));
+        readFully(entry, offset + 4);
+        return entry.array();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void store(String key, StatementResult result) {
+        long hash = hash(key);
+        Long offset = offsets.get(hash);
+        try {
+            if (offset != null) {
+                if (collidingOffsets.containsKey(key)) {
+                    return;
+                }
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(readEntryBytes(offset)));
+                if (key.equals(readString(in))) {
+                    return;
+                }
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0);
+            writeString(out, key);
+            writeString(out, result.getType().name());
+            writeString(out, result.getDatabase());
+            out.writeInt(result.getTargets().size());
+            for (TableTarget target : result.getTargets()) {
+                writeString(out, target.getTable());
+                Map<String, String> partitionSpec = target.getPartitionSpec();
+                out.writeInt(partitionSpec.size());
+                for (Map.Entry<String, String> partition : partitionSpec.entrySet()) {
+                    writeString(out, partition.getKey());
+                    out.writeBoolean(partition.getValue() != null);
+                    if (partition.getValue() != null) {
+                        writeString(out, partition.getValue());
+                    }
+                }
+            }
+            out.writeInt(result.getSourceTables().size());
+            for (String tableName : result.getSourceTables()) {
+                writeString(out, tableName);
+            }
+            ByteBuffer entry = ByteBuffer.wrap(bytes.toByteArray());
+            entry.putInt(0, entry.remaining() - 4);
+            while (entry.hasRemaining()) {
+                channel.write(entry, size + entry.position());
+            }
+            if (offset == null) {
+                offsets.put(hash, size);
+            } else {
+                logger.debug("Statement cache key hash {} collides, keep the entry by its key", hash);
+                collidingOffsets.put(key, size);
+            }
+            size += entry.limit();
+        } catch (IOException e) {
+            logger.error("Write statement cache entry fail, message: " + e);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
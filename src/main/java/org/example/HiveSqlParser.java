@@ -1,285 +1,709 @@
 package org.example;
 
-import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
-import org.apache.hadoop.hive.conf.HiveConf;
 import org.apache.hadoop.hive.ql.Context;
-import org.apache.hadoop.hive.ql.lib.*;
 import org.apache.hadoop.hive.ql.parse.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
-public class HiveSqlParser implements NodeProcessor {
+public class HiveSqlParser {
 
     private static Logger logger = LoggerFactory.getLogger(HiveSqlParser.class);
-    private static Context context = null;
-    private final static String HDFS_SESSION_PATH_KEY = "_hive.hdfs.session.path";
-    private final static String LOCAL_SESSION_PATH_KEY = "_hive.local.session.path";
+    // A symbol table created by the parser is replaced on reset once it holds this many identifiers
+    private static final int MAX_OWN_SYMBOLS = 1 << 16;
+    private Context context = null;
+    private IOException contextError;
+    private final ParseEnvironment environment;
+    // Qualified table names and databases recur across statements and scripts; keep one instance of each
+    private SymbolTable symbols;
+    private final boolean ownSymbols;
+    private int defaultDatabase;
 
-    private static String hdfsTemporaryDirectory(HiveConf hiveConf) {
-        return hiveConf.get("hadoop.tmp.dir", "/tmp");
+    public HiveSqlParser() {
+        this(ParseEnvironment.getDefault());
     }
 
-    private static String localTemporaryDirectory() {
-        return System.getProperty("java.io.tmpdir", "/tmp");
+    public HiveSqlParser(ParseEnvironment environment) {
+        this(environment, null);
     }
 
+    public HiveSqlParser(SymbolTable symbols) {
+        this(ParseEnvironment.getDefault(), symbols);
+    }
 
-    public HiveSqlParser() {
+    /**
+     * @param symbols the table that database and table names are interned in, which may be shared
+     *                by several parsers; null for a table of the parser's own, replaced by a new one
+     *                on {@link #reset()} once it has grown large
+     */
+    public HiveSqlParser(ParseEnvironment environment, SymbolTable symbols) {
+        this.environment = environment;
+        this.ownSymbols = symbols == null;
+        useSymbols(symbols == null ? new SymbolTable() : symbols);
         initContext();
     }
 
+    private void useSymbols(SymbolTable symbols) {
+        this.symbols = symbols;
+        this.defaultDatabase = symbols.intern("default");
+        this.currentDatabase = defaultDatabase;
+    }
+
     private void initContext() {
-        HiveConf hiveConf = new HiveConf();
-        if (hiveConf.get(HDFS_SESSION_PATH_KEY) == null) {
-            hiveConf.set(HDFS_SESSION_PATH_KEY, hdfsTemporaryDirectory(hiveConf));
-        }
-        if (hiveConf.get(LOCAL_SESSION_PATH_KEY) == null) {
-            hiveConf.set(LOCAL_SESSION_PATH_KEY, localTemporaryDirectory());
-        }
         try {
-            context = new Context(hiveConf);
+            context = environment.newContext();
+            contextError = null;
         } catch (IOException e) {
+            contextError = e;
             logger.error("Init hive context fail, message: " + e);
         }
     }
 
     List<String> allTableNames = new ArrayList<>();
-    List<String> tableNames = new ArrayList<>();
+    Set<String> distinctTableNames = new LinkedHashSet<>();
+    List<StatementResult> statementResults = new ArrayList<>();
+    Set<String> tableNames = new LinkedHashSet<>();
     Set<String> cteNames = new HashSet<>();
-    private String currentDatabase = "default";
+    List<TableTarget> targets = new ArrayList<>();
+    private StatementType statementType;
+    // The symbol id of the current database
+    private int currentDatabase;
+    private StatementCache statementCache;
+    private ColumnLineageExtractor lineageExtractor;
+    List<ColumnLineage> columnLineage = new ArrayList<>();
+    private final ParseDriver parseDriver = new ParseDriver();
+    private final TableReferenceVisitor visitor = new TableReferenceVisitor();
+    private final DeadlineParseDriver deadlineParseDriver = new DeadlineParseDriver(parseDriver);
+    private final ScriptParseDriver scriptParseDriver = new ScriptParseDriver(parseDriver);
+    private boolean scriptTokenization = false;
+    // Whether the statement being analyzed is the current statement of the script parse driver
+    private boolean inScript = false;
+    private int maxStatementLength = 0;
+    private long statementTimeoutNanos = 0;
+    private FastPathExtractor fastPath;
+    private ParseListener listener = ParseListener.NONE;
+    // Stage metrics of the statement being analyzed, only measured when a listener is set
+    private long parseNanos;
+    private long walkNanos;
+    private long resolveNanos;
+    private int astNodeCount;
+    private boolean cacheHit;
+    private boolean incremental = false;
+    // Analyzed statements of the previous and of the current run in incremental mode, by text
+    private Map<String, AnalyzedStatement> previousRun = new HashMap<>();
+    private Map<String, AnalyzedStatement> currentRun = new HashMap<>();
+    private boolean explain = false;
+    private int maxDumpNodes = 500;
+    private int maxDumpDepth = 50;
+    private boolean failSoft = false;
+    private RelaxedTableExtractor relaxedExtractor;
+    List<StatementError> statementErrors = new ArrayList<>();
+
+    /**
+     * Looks up statements in the given cache before parsing them, and caches the result of every
+     * statement that had to be parsed. Pass null to disable caching.
+     */
+    public void setStatementCache(StatementCache statementCache) {
+        this.statementCache = statementCache;
+    }
+
+    /**
+     * Also resolves the output columns of the tables written by INSERT, CREATE TABLE AS SELECT
+     * and CREATE VIEW statements to their source columns, see {@link #getColumnLineage()}.
+     * Statements are not served from the statement cache while this is enabled.
+     */
+    public void setColumnLineage(boolean enabled) {
+        this.lineageExtractor = enabled ? new ColumnLineageExtractor() : null;
+    }
+
+    /**
+     * Reports per-statement metrics and failures to the listener. Stages are only timed while a
+     * listener other than {@link ParseListener#NONE} is set.
+     */
+    public void setParseListener(ParseListener listener) {
+        this.listener = listener == null ? ParseListener.NONE : listener;
+    }
+
+    /**
+     * Extracts the tables of simple SELECT and INSERT ... SELECT statements from their tokens
+     * instead of parsing them with the Hive parser, see {@link FastPathExtractor}. Other
+     * statements are parsed as usual. The fast path is not taken while column lineage or explain
+     * is enabled, since both need the AST. Expressions are not validated on the fast path, so a
+     * simple statement with a malformed expression may not fail as it would when parsed.
+     */
+    public void setFastPath(boolean enabled) {
+        this.fastPath = enabled ? new FastPathExtractor() : null;
+    }
+
+    /**
+     * In incremental mode every call to {@code parse} analyzes a new version of the same script:
+     * the results of the previous call are replaced, the script starts in the {@code default}
+     * database again, and only statements whose text changed since the previous call are parsed.
+     * An unchanged statement whose current database changed, because a {@code use} before it was
+     * edited, is re-resolved without parsing. The statement cache is not consulted in this mode.
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+        previousRun = new HashMap<>();
+        currentRun = new HashMap<>();
+    }
+
+    /**
+     * Logs every statement with its AST at INFO level. Without this option the AST is only
+     * rendered when TRACE is enabled, and the statement text is logged at DEBUG.
+     */
+    public void setExplain(boolean explain) {
+        this.explain = explain;
+    }
+
+    /**
+     * Caps the logged AST at the given number of nodes and nesting depth.
+     */
+    public void setAstDumpLimits(int maxNodes, int maxDepth) {
+        this.maxDumpNodes = maxNodes;
+        this.maxDumpDepth = maxDepth;
+    }
+
+    /**
+     * In fail-soft mode a statement that cannot be analyzed is recorded as a {@link StatementError}
+     * and skipped instead of aborting the script, see {@link #getStatementErrors()}.
+     */
+    public void setFailSoft(boolean failSoft) {
+        this.failSoft = failSoft;
+    }
+
+    /**
+     * In fail-soft mode, retries every statement that cannot be analyzed with the
+     * {@link RelaxedTableExtractor}, whose best-effort result is kept like any other. The error is
+     * still recorded, as recovered.
+     */
+    public void setRelaxedFallback(boolean enabled) {
+        this.relaxedExtractor = enabled ? new RelaxedTableExtractor() : null;
+    }
+
+    /**
+     * Rejects statements longer than {@code maxLength} characters before parsing them, and ASTs
+     * nested deeper than {@code maxAstDepth} or with more than {@code maxAstNodes} nodes before
+     * extracting from them, with a {@link ParseLimitException}. 0 means no limit. Statements too
+     * deeply nested for the Hive parser's recursion fail the same way regardless of the limits.
+     */
+    public void setStatementLimits(int maxLength, int maxAstDepth, int maxAstNodes) {
+        this.maxStatementLength = maxLength;
+        visitor.setLimits(maxAstDepth, maxAstNodes);
+    }
+
+    /**
+     * Fails the parse of any statement that takes longer than the timeout with a
+     * {@link ParseLimitException}; 0 means no timeout. Only the Hive parser is timed, since the
+     * later stages are bounded by the AST limits. With a timeout, a parse whose thread is
+     * interrupted also stops within the statement, with a {@link CancellationException}.
+     */
+    public void setStatementTimeout(long timeoutMillis) {
+        this.statementTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    /**
+     * Tokenizes every script passed to {@link #parse(String)} once and parses its statements
+     * straight from that token stream, see {@link ScriptParseDriver}, instead of splitting the
+     * text and setting up the Hive lexer and parser again for every statement. {@code use}
+     * statements are recognized from their tokens. Scripts read from a reader or a file are still
+     * split, so that they need not be held in memory.
+     */
+    public void setScriptTokenization(boolean enabled) {
+        this.scriptTokenization = enabled;
+    }
 
     public void parse(String queries) throws ParseException, SemanticException {
-        String[] individualQueries = queries.split(";");
-        for (String query : individualQueries) {
-            query = query.trim();
-            if (query.toLowerCase().startsWith("use ")) {
-                handleUseDatabase(query);
-            } else {
-                handleQuery(query);
+        if (scriptTokenization) {
+            parseTokenized(queries);
+            return;
+        }
+        startRun();
+        Iterator<Statement> statements = StatementSplitter.split(queries).iterator();
+        while (true) {
+            long splitStart = startTimer();
+            if (!statements.hasNext()) {
+                break;
             }
-
-            allTableNames.addAll(tableNames.stream()
-                    .filter(name -> !cteNames.contains(name))
-                    .collect(Collectors.toList()));
-            tableNames.clear();
-            cteNames.clear();
+            Statement statement = statements.next();
+            checkInterrupted();
+            analyzeStatement(statement, elapsedSince(splitStart), this::collectStatementResult);
         }
     }
 
-    private void handleUseDatabase(String query) {
-        String[] parts = query.split("\\s+");
-        if (parts.length == 2) {
-            currentDatabase = parts[1];
-            logger.info("Set current database to: {}", currentDatabase);
+    private void parseTokenized(String script) throws ParseException, SemanticException {
+        startRun();
+        if (context == null) {
+            // Only configures the lexer and parser; a missing context fails the first statement parsed
+            initContext();
+        }
+        scriptParseDriver.start(script, context);
+        try {
+            while (true) {
+                long splitStart = startTimer();
+                Statement statement = scriptParseDriver.next();
+                if (statement == null) {
+                    break;
+                }
+                checkInterrupted();
+                String database = scriptParseDriver.getUseDatabase();
+                if (database != null) {
+                    setCurrentDatabase(symbols.intern(database));
+                    logger.debug("Set current database to: {}", database);
+                    continue;
+                }
+                inScript = true;
+                try {
+                    analyzeStatement(statement, elapsedSince(splitStart), this::collectStatementResult);
+                } finally {
+                    inScript = false;
+                }
+            }
+        } finally {
+            scriptParseDriver.finish();
         }
     }
 
-    private void handleQuery(String query) throws ParseException, SemanticException {
-        ParseDriver pd = new ParseDriver();
-        ASTNode tree = pd.parse(query, context);
-        logger.info("Start to analyze query: {}, ASTNode: {}", query, tree.dump());
+    /**
+     * Parses a script read incrementally from the reader. Each statement is analyzed as soon as it
+     * is complete, so only the current statement is held in memory.
+     */
+    public void parse(Reader reader) throws IOException, ParseException, SemanticException {
+        parseStatements(reader, this::collectStatementResult);
+    }
 
-        Map<Rule, NodeProcessor> rules = Maps.newLinkedHashMap();
-        Dispatcher disp = new DefaultRuleDispatcher(this, rules, null);
-        GraphWalker ogw = new DefaultGraphWalker(disp);
-        final List<Node> topNodes = Lists.newArrayList(tree);
+    /**
+     * Like {@link #parse(Reader)}, but hands every table name to {@code tableNameSink} as soon as
+     * its statement has been analyzed instead of collecting them in {@link #getTableNames()}.
+     */
+    public void parse(Reader reader, Consumer<String> tableNameSink) throws IOException, ParseException, SemanticException {
+        parseStatements(reader, result -> result.getSourceTables().forEach(tableNameSink));
+    }
 
-        // Traverse the AST
-        ogw.startWalking(topNodes, null);
-        this.initContext();
+    private void parseStatements(Reader reader, Consumer<StatementResult> statementSink) throws IOException, ParseException, SemanticException {
+        startRun();
+        StatementReader statements = new StatementReader(reader);
+        while (true) {
+            long splitStart = startTimer();
+            Statement statement = statements.next();
+            if (statement == null) {
+                break;
+            }
+            checkInterrupted();
+            analyzeStatement(statement, elapsedSince(splitStart), statementSink);
+        }
     }
 
-    public List<String> getTableNames() {
-        return allTableNames;
+    public void parse(InputStream inputStream) throws IOException, ParseException, SemanticException {
+        parse(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
     }
 
-    @Override
-    public Object process(Node nd, Stack<Node> stack, NodeProcessorCtx procCtx, Object... nodeOutputs) throws SemanticException {
-        if (!(nd instanceof ASTNode)) {
-            return null;
+    /**
+     * Parses a UTF-8 script file through a memory-mapped {@link java.nio.channels.FileChannel}.
+     */
+    public void parse(Path path) throws IOException, ParseException, SemanticException {
+        try (Reader reader = new MappedScriptReader(path, StandardCharsets.UTF_8)) {
+            parseStatements(reader, this::collectStatementResult);
         }
+    }
 
-        ASTNode pt = (ASTNode) nd;
-        int type = pt.getType();
+    public void parse(Path path, Consumer<String> tableNameSink) throws IOException, ParseException, SemanticException {
+        try (Reader reader = new MappedScriptReader(path, StandardCharsets.UTF_8)) {
+            parse(reader, tableNameSink);
+        }
+    }
 
-        switch (type) {
-            case HiveParser.TOK_CREATETABLE:
-                extractTableNameFromCreateTable(pt);
-                break;
-            case HiveParser.TOK_TAB:
-                extractTableNameFromInsert(pt);
-                break;
-            case HiveParser.TOK_QUERY:
-                extractTableNamesFromQuery(pt);
-                break;
-            case HiveParser.TOK_CTE:
-                extractTableNamesFromWithClause(pt);
-                break;
-            default:
-                // Handle other types of nodes if needed
-                break;
+    /**
+     * Discards everything collected so far, as if the parser had just been created, so that it can
+     * be reused for an unrelated script; see {@link HiveSqlParserPool}. Settings such as the
+     * statement cache or fail-soft mode are kept, as are the Hive context, the parse driver and the
+     * AST visitor.
+     */
+    public void reset() {
+        allTableNames.clear();
+        distinctTableNames.clear();
+        statementResults.clear();
+        statementErrors.clear();
+        columnLineage.clear();
+        tableNames.clear();
+        cteNames.clear();
+        targets.clear();
+        previousRun.clear();
+        currentRun.clear();
+        if (ownSymbols && symbols.size() > MAX_OWN_SYMBOLS) {
+            // Results already returned keep the table they were resolved in
+            useSymbols(new SymbolTable());
         }
-        return null;
+        setCurrentDatabase(defaultDatabase);
     }
 
-    private String getActualTableName(String tableName) {
-        if (tableName.contains(".")) {
-            return tableName;
+    private void startRun() {
+        if (!incremental) {
+            return;
         }
-        return currentDatabase + "." + tableName;
+        allTableNames.clear();
+        distinctTableNames.clear();
+        statementResults.clear();
+        statementErrors.clear();
+        columnLineage.clear();
+        setCurrentDatabase(defaultDatabase);
+        // Only keep the statements of the last run, so that deleted statements are dropped
+        previousRun = currentRun;
+        currentRun = new HashMap<>();
     }
 
-    private void extractTableNameFromCreateTable(ASTNode pt) {
-        for (Node child : pt.getChildren()) {
-            ASTNode createTableChild = (ASTNode) child;
-            if (createTableChild.getToken().getType() == HiveParser.TOK_QUERY) {
-                // This is a CTAS statement
-                extractTableNamesFromQuery(createTableChild);
-            }
+    /**
+     * Lets a parse running on an interrupted thread, e.g. one cancelled after a timeout, stop at the
+     * next statement, or within it when it is parsed with a statement timeout. The interrupt status
+     * is left set.
+     */
+    static void checkInterrupted() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Parse interrupted");
         }
     }
 
-    private void extractTableNameFromInsert(ASTNode pt) {
-        for (Node node : pt.getChildren()) {
-            ASTNode insertNode = (ASTNode) node;
-            if (insertNode.getToken().getType() == HiveParser.TOK_TAB) {
-                String tableName = getActualTableName(BaseSemanticAnalyzer.getUnescapedName(insertNode));
-                if (!tableNames.contains(tableName)) {
-                    tableNames.add(tableName);
+    private void collectStatementResult(StatementResult result) {
+        allTableNames.addAll(result.getSourceTables());
+        distinctTableNames.addAll(result.getSourceTables());
+        statementResults.add(result);
+    }
+
+    private void analyzeStatement(Statement statement, long splitNanos, Consumer<StatementResult> statementSink) throws ParseException, SemanticException {
+        if (statement.startsWithKeyword("use")) {
+            handleUseDatabase(statement);
+            return;
+        }
+
+        resetStageMetrics();
+        StatementResult result;
+        try {
+            if (incremental) {
+                result = analyzeIncrementally(statement);
+            } else if (statementCache == null || lineageExtractor != null) {
+                result = analyzeQuery(statement);
+            } else {
+                String key = statementCache.keyFor(statement, symbols.name(currentDatabase));
+                result = statementCache.get(key);
+                cacheHit = result != null;
+                if (result == null) {
+                    result = analyzeQuery(statement);
+                    statementCache.put(key, result);
+                } else {
+                    result = result.withIndex(statement.getIndex());
                 }
             }
+        } catch (ParseException | SemanticException | RuntimeException e) {
+            if (listener != ParseListener.NONE) {
+                listener.onFailure(statement, e);
+            }
+            // A cancelled parse is not a failure of the statement
+            if (!failSoft || e instanceof CancellationException) {
+                throw e;
+            }
+            result = relaxedExtractor == null ? null : analyzeRelaxed(statement);
+            statementErrors.add(new StatementError(statement.getIndex(), statement.getStart(),
+                    e.getClass().getSimpleName(), e.getMessage(), result != null));
+            logger.debug("Skip statement {} in fail-soft mode, message: {}", statement.getIndex(), e.getMessage());
+            if (result == null) {
+                return;
+            }
+        }
+        statementSink.accept(result);
+
+        if (listener != ParseListener.NONE) {
+            listener.onStatement(new StatementMetrics(statement.getIndex(), splitNanos, parseNanos, walkNanos,
+                    resolveNanos, astNodeCount, result.getSourceTables().size(), statementCache != null || incremental, cacheHit));
         }
     }
 
-    private void extractTableNamesFromQuery(ASTNode pt) {
-        if (pt == null) return;
+    private StatementResult analyzeQuery(Statement statement) throws ParseException, SemanticException {
+        try {
+            extractTables(statement.getText());
+            long resolveStart = startTimer();
+            StatementResult result = resolve(statement.getIndex(), statementType, tableNames, cteNames, targets);
+            resolveNanos = elapsedSince(resolveStart);
+            return result;
+        } finally {
+            tableNames.clear();
+            cteNames.clear();
+            targets.clear();
+        }
+    }
 
-        switch (pt.getToken().getType()) {
-            case HiveParser.TOK_SELECT:
-                extractTableNamesFromSelect(pt);
-                break;
-            case HiveParser.TOK_SUBQUERY:
-                extractTableNamesFromQuery((ASTNode) pt.getChild(0)); // handle subquery
-                break;
-            case HiveParser.TOK_JOIN:
-            case HiveParser.TOK_LEFTOUTERJOIN:
-            case HiveParser.TOK_RIGHTOUTERJOIN:
-            case HiveParser.TOK_FULLOUTERJOIN:
-                for (Node child : pt.getChildren()) {
-                    extractTableNamesFromQuery((ASTNode) child); // handle joins
-                }
-                break;
-            case HiveParser.TOK_UNIONALL:
-                for (Node child : pt.getChildren()) {
-                    extractTableNamesFromQuery((ASTNode) child); // handle UNION ALL
-                }
-                break;
-            case HiveParser.TOK_QUERY:
-                for (Node child : pt.getChildren()) {
-                    extractTableNamesFromQuery((ASTNode) child); // Process children of TOK_QUERY node
-                }
-                break;
-            case HiveParser.TOK_FROM:
-                for (Node child : pt.getChildren()) {
-                    if (child instanceof ASTNode && ((ASTNode) child).getToken().getType() == HiveParser.TOK_TABREF) {
-                        extractTableNamesFromTabref((ASTNode) child);
-                    } else {
-                        extractTableNamesFromQuery((ASTNode) child); // Handle other types of FROM clauses
-                    }
-                }
-                break;
-            case HiveParser.TOK_TABREF:
-                extractTableNamesFromTabref(pt);
-                break;
-            case HiveParser.TOK_LATERAL_VIEW:
-                for (Node child : pt.getChildren()) {
-                    extractTableNamesFromQuery((ASTNode) child); // Recursively process children of TOK_LATERAL_VIEW
-                }
-                break;
-            default:
-                // Handle other cases if needed
-                break;
+    /**
+     * @return null if the relaxed extractor finds no table either
+     */
+    private StatementResult analyzeRelaxed(Statement statement) {
+        Set<String> relaxedTableNames = new LinkedHashSet<>();
+        Set<String> relaxedCteNames = new HashSet<>();
+        List<TableTarget> relaxedTargets = new ArrayList<>();
+        StatementType type = relaxedExtractor.extract(statement.getText(), relaxedTableNames, relaxedCteNames, relaxedTargets);
+        if (relaxedTableNames.isEmpty() && relaxedTargets.isEmpty()) {
+            return null;
         }
+        return resolve(statement.getIndex(), type, relaxedTableNames, relaxedCteNames, relaxedTargets);
     }
 
-    private void extractTableNamesFromTabref(ASTNode tabref) {
-        ASTNode tableTree = (ASTNode) tabref.getChild(0);
-        String tableName = BaseSemanticAnalyzer.getUnescapedName((ASTNode) tableTree.getChild(0));
-        if (tableTree.getChildCount() > 1) {
-            tableName = tableName + "." + tableTree.getChild(1);
+    private StatementResult analyzeIncrementally(Statement statement) throws ParseException, SemanticException {
+        String text = statement.getText();
+        AnalyzedStatement analyzed = currentRun.get(text);
+        if (analyzed == null) {
+            analyzed = previousRun.get(text);
+        }
+        if (analyzed != null && (lineageExtractor == null || analyzed.canReuseLineage(symbols, currentDatabase))) {
+            cacheHit = true;
+            if (!analyzed.resolvedIn(symbols, currentDatabase)) {
+                long resolveStart = startTimer();
+                analyzed = analyzed.withResult(resolve(statement.getIndex(), analyzed.result.getType(),
+                        analyzed.tableNames, analyzed.cteNames, analyzed.targets));
+                resolveNanos = elapsedSince(resolveStart);
+            }
+            if (lineageExtractor != null) {
+                columnLineage.addAll(analyzed.lineage);
+            }
+            currentRun.put(text, analyzed);
+            return analyzed.result.withIndex(statement.getIndex());
+        }
+
+        int lineageStart = columnLineage.size();
+        try {
+            extractTables(text);
+            long resolveStart = startTimer();
+            StatementResult result = resolve(statement.getIndex(), statementType, tableNames, cteNames, targets);
+            resolveNanos = elapsedSince(resolveStart);
+            List<ColumnLineage> lineage = lineageExtractor == null ? null
+                    : new ArrayList<>(columnLineage.subList(lineageStart, columnLineage.size()));
+            currentRun.put(text, new AnalyzedStatement(tableNames, cteNames, targets, result, lineage));
+            return result;
+        } finally {
+            tableNames.clear();
+            cteNames.clear();
+            targets.clear();
         }
-        tableName = getActualTableName(tableName);
-        if (!tableNames.contains(tableName) && !cteNames.contains(tableName)) {
-            tableNames.add(tableName);
+    }
+
+    private StatementResult resolve(int index, StatementType type, Collection<String> rawTableNames,
+                                    Set<String> rawCteNames, List<TableTarget> rawTargets) {
+        long[] sources = resolveTableIds(symbols, rawTableNames, rawCteNames, currentDatabase);
+        long[] statementTargets = new long[rawTargets.size()];
+        for (int i = 0; i < statementTargets.length; i++) {
+            statementTargets[i] = symbols.qualify(rawTargets.get(i).getTable(), currentDatabase);
         }
+        return new StatementResult(symbols, index, type, currentDatabase, statementTargets,
+                StatementResult.partitionSpecs(rawTargets), sources);
     }
 
-    private void extractTableNamesFromSelect(ASTNode pt) {
-        if (pt == null) return;
+    static List<String> resolveTableNames(SymbolTable symbols, Collection<String> tableNames, Set<String> cteNames,
+                                          String currentDatabase) {
+        long[] ids = resolveTableIds(symbols, tableNames, cteNames, symbols.intern(currentDatabase));
+        List<String> names = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            names.add(symbols.qualifiedName(id));
+        }
+        return Collections.unmodifiableList(names);
+    }
 
-        // Find the TOK_TABREF node under TOK_SELECT node
-        for (Node child : pt.getChildren()) {
-            ASTNode selectChild = (ASTNode) child;
-            if (selectChild.getToken().getType() == HiveParser.TOK_SELEXPR) {
-                extractTableNamesFromSelectExpr(selectChild);
-            } else if (selectChild.getToken().getType() == HiveParser.TOK_WHERE) {
-                extractTableNamesFromWhere(selectChild);
+    /**
+     * Qualifies the tables of a statement with the current database, drops the references to the
+     * statement's own CTEs and the repeated tables. Names are compared by their symbol ids, so
+     * regardless of case.
+     */
+    private static long[] resolveTableIds(SymbolTable symbols, Collection<String> tableNames, Set<String> cteNames,
+                                          int currentDatabase) {
+        Set<Long> qualifiedCteIds = Collections.emptySet();
+        if (!cteNames.isEmpty()) {
+            qualifiedCteIds = new HashSet<>();
+            for (String cteName : cteNames) {
+                qualifiedCteIds.add(symbols.qualify(cteName, currentDatabase));
+            }
+        }
+        Set<Long> statementTableIds = new LinkedHashSet<>();
+        for (String tableName : tableNames) {
+            long qualifiedId = symbols.qualify(tableName, currentDatabase);
+            if (!qualifiedCteIds.contains(qualifiedId)) {
+                statementTableIds.add(qualifiedId);
             }
         }
+        long[] ids = new long[statementTableIds.size()];
+        int i = 0;
+        for (long id : statementTableIds) {
+            ids[i++] = id;
+        }
+        return ids;
     }
 
-    private void extractTableNamesFromSelectExpr(ASTNode pt) {
-        if (pt == null) return;
+    private void setCurrentDatabase(int database) {
+        currentDatabase = database;
+    }
 
-        // TOK_SELEXPR node contains expressions, including references to tables
-        for (Node child : pt.getChildren()) {
-            ASTNode exprNode = (ASTNode) child;
-            if (exprNode.getToken().getType() == HiveParser.TOK_TABLE_OR_COL) {
-                ASTNode tableRef = (ASTNode) exprNode.getChild(0);
-                if (tableRef != null && tableRef.getToken() != null) {
-                    String tableName = getActualTableName(BaseSemanticAnalyzer.getUnescapedName(tableRef));
-                    if (!tableNames.contains(tableName) && !cteNames.contains(tableName)) {
-                        tableNames.add(tableName);
-                    }
-                }
-            }
+    private long startTimer() {
+        return listener == ParseListener.NONE ? 0L : System.nanoTime();
+    }
+
+    private long elapsedSince(long start) {
+        return listener == ParseListener.NONE ? 0L : System.nanoTime() - start;
+    }
+
+    private void resetStageMetrics() {
+        parseNanos = 0;
+        walkNanos = 0;
+        resolveNanos = 0;
+        astNodeCount = 0;
+        cacheHit = false;
+    }
+
+    private void handleUseDatabase(Statement statement) {
+        // Expect exactly "use <database>", optionally with the database quoted in backticks
+        int length = statement.length();
+        int start = "use".length();
+        while (start < length && Character.isWhitespace(statement.charAt(start))) {
+            start++;
         }
+        int end = start;
+        while (end < length && !Character.isWhitespace(statement.charAt(end))) {
+            end++;
+        }
+        if (start == end || end != length) {
+            return;
+        }
+        if (end - start > 2 && statement.charAt(start) == '`' && statement.charAt(end - 1) == '`') {
+            start++;
+            end--;
+        }
+        setCurrentDatabase(symbols.intern(statement.substring(start, end)));
+        logger.debug("Set current database to: {}", symbols.name(currentDatabase));
     }
 
-    private void extractTableNamesFromWhere(ASTNode pt) {
-        if (pt == null) return;
+    private void extractTables(String query) throws ParseException, SemanticException {
+        if (maxStatementLength > 0 && query.length() > maxStatementLength) {
+            throw new ParseLimitException(ParseLimitException.Limit.STATEMENT_LENGTH,
+                    "Statement is longer than " + maxStatementLength + " characters");
+        }
+        if (fastPath != null && lineageExtractor == null && !explain) {
+            long parseStart = startTimer();
+            boolean extracted = fastPath.extract(query, tableNames, targets);
+            parseNanos = elapsedSince(parseStart);
+            if (extracted) {
+                statementType = fastPath.getType();
+                logger.debug("Analyzed query on the fast path: {}", query);
+                return;
+            }
+        }
+        handleQuery(query);
+    }
 
-        for (Node child : pt.getChildren()) {
-            ASTNode whereChild = (ASTNode) child;
-            if (whereChild.getToken().getType() == HiveParser.TOK_TABLE_OR_COL) {
-                ASTNode tableRef = (ASTNode) whereChild.getChild(0);
-                if (tableRef != null && tableRef.getToken() != null) {
-                    String tableName = getActualTableName(BaseSemanticAnalyzer.getUnescapedName(tableRef));
-                    if (!tableNames.contains(tableName) && !cteNames.contains(tableName)) {
-                        tableNames.add(tableName);
-                    }
-                }
+    private void ensureContext() {
+        if (context == null) {
+            initContext();
+            if (context == null) {
+                throw new IllegalStateException("Init hive context fail", contextError);
             }
         }
     }
 
-    private void extractTableNamesFromWithClause(ASTNode pt) {
-        for (Node child : pt.getChildren()) {
-            ASTNode cteNode = (ASTNode) child;
-            if (cteNode.getToken().getType() == HiveParser.TOK_SUBQUERY) {
-                ASTNode aliasNode = (ASTNode) cteNode.getChild(1);
-                if (aliasNode != null && aliasNode.getToken().getType() == HiveParser.Identifier) {
-                    String cteName = getActualTableName(BaseSemanticAnalyzer.getUnescapedName(aliasNode));
-                    cteNames.add(cteName); // Add CTE name to the set
-                    extractTableNamesFromQuery((ASTNode) cteNode.getChild(0)); // Process the CTE query
-                }
+    private void handleQuery(String query) throws ParseException, SemanticException {
+        ensureContext();
+        long parseStart = startTimer();
+        ASTNode tree;
+        try {
+            if (inScript) {
+                tree = scriptParseDriver.parse(query, statementTimeoutNanos);
+            } else {
+                tree = statementTimeoutNanos > 0 ? deadlineParseDriver.parse(query, context, statementTimeoutNanos)
+                        : parseDriver.parse(query, context);
             }
+        } catch (StackOverflowError e) {
+            throw new ParseLimitException(ParseLimitException.Limit.AST_DEPTH, "Statement is nested too deeply to parse");
+        }
+        parseNanos = elapsedSince(parseStart);
+        if (explain && logger.isInfoEnabled()) {
+            logger.info("Explain query: {}, ASTNode: {}", query, AstDumper.dump(tree, maxDumpNodes, maxDumpDepth));
+        } else if (logger.isTraceEnabled()) {
+            logger.trace("Start to analyze query: {}, ASTNode: {}", query, AstDumper.dump(tree, maxDumpNodes, maxDumpDepth));
+        } else {
+            logger.debug("Start to analyze query: {}", query);
+        }
+
+        long walkStart = startTimer();
+        statementType = StatementType.of(tree);
+        astNodeCount = visitor.visit(tree, tableNames, cteNames, targets);
+        if (lineageExtractor != null) {
+            columnLineage.addAll(lineageExtractor.extract(tree, symbols, currentDatabase));
         }
+        walkNanos = elapsedSince(walkStart);
+    }
+
+    /**
+     * The tables of every statement parsed so far, in order. A table read by several statements
+     * is listed once per statement.
+     */
+    public List<String> getTableNames() {
+        return allTableNames;
+    }
+
+    /**
+     * The tables of the script, each listed once, in the order they were first found.
+     */
+    public Set<String> getDistinctTableNames() {
+        return Collections.unmodifiableSet(distinctTableNames);
+    }
+
+    /**
+     * The tables of each statement other than {@code use}, in statement order.
+     */
+    public List<List<String>> getStatementTableNames() {
+        List<List<String>> tablesByStatement = new ArrayList<>(statementResults.size());
+        for (StatementResult result : statementResults) {
+            tablesByStatement.add(result.getSourceTables());
+        }
+        return Collections.unmodifiableList(tablesByStatement);
+    }
+
+    /**
+     * The result of each statement other than {@code use}, in statement order.
+     */
+    public List<StatementResult> getStatementResults() {
+        return Collections.unmodifiableList(statementResults);
+    }
+
+    /**
+     * The statements that could not be analyzed in fail-soft mode, in statement order.
+     */
+    public List<StatementError> getStatementErrors() {
+        return Collections.unmodifiableList(statementErrors);
+    }
+
+    /**
+     * The column lineage of every table written so far, in statement order. Only collected when
+     * enabled with {@link #setColumnLineage(boolean)}.
+     */
+    public List<ColumnLineage> getColumnLineage() {
+        return Collections.unmodifiableList(columnLineage);
+    }
+
+    /**
+     * Thread-safe entry point: parses the script with a private parser instance and returns an
+     * immutable snapshot of the extracted table names.
+     */
+    public static ExtractionResult extract(String script) throws ParseException, SemanticException {
+        return extract(script, ParseEnvironment.getDefault());
+    }
+
+    public static ExtractionResult extract(String script, ParseEnvironment environment) throws ParseException, SemanticException {
+        HiveSqlParser processor = new HiveSqlParser(environment);
+        processor.parse(script);
+        return new ExtractionResult(processor.getStatementResults(), processor.getStatementErrors());
     }
 
     public static void main(String[] args) throws ParseException, SemanticException {
@@ -287,4 +711,53 @@ public class HiveSqlParser implements NodeProcessor {
         String queries = "use mydb; with cte_table as (select id, name from test.my_table) select * from cte_table;";
         processor.parse(queries);
     }
+
+    /**
+     * A statement analyzed in incremental mode: the names as written in the statement, which do
+     * not depend on the current database, and the result they resolved to.
+     */
+    private static final class AnalyzedStatement {
+
+        final List<String> tableNames;
+        final Set<String> cteNames;
+        final List<TableTarget> targets;
+        final StatementResult result;
+        // Null unless column lineage was enabled
+        final List<ColumnLineage> lineage;
+
+        AnalyzedStatement(Collection<String> tableNames, Set<String> cteNames, List<TableTarget> targets,
+                          StatementResult result, List<ColumnLineage> lineage) {
+            this.tableNames = new ArrayList<>(tableNames);
+            this.cteNames = cteNames.isEmpty() ? Collections.<String>emptySet() : new HashSet<>(cteNames);
+            this.targets = new ArrayList<>(targets);
+            this.result = result;
+            this.lineage = lineage;
+        }
+
+        private AnalyzedStatement(AnalyzedStatement raw, StatementResult result) {
+            this.tableNames = raw.tableNames;
+            this.cteNames = raw.cteNames;
+            this.targets = raw.targets;
+            this.result = result;
+            this.lineage = null;
+        }
+
+        AnalyzedStatement withResult(StatementResult result) {
+            return new AnalyzedStatement(this, result);
+        }
+
+        /**
+         * Whether the result was resolved against this database, in this symbol table.
+         */
+        boolean resolvedIn(SymbolTable symbols, int currentDatabase) {
+            return result.getSymbolTable() == symbols && result.getDatabaseId() == currentDatabase;
+        }
+
+        /**
+         * Lineage holds qualified names, so it can only be reused in the same database.
+         */
+        boolean canReuseLineage(SymbolTable symbols, int currentDatabase) {
+            return lineage != null && resolvedIn(symbols, currentDatabase);
+        }
+    }
 }
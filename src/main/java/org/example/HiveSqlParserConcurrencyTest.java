@@ -0,0 +1,77 @@
+package org.example;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class HiveSqlParserConcurrencyTest {
+
+    private static final List<String> SCRIPTS = Arrays.asList(
+            "select id, name from test.my_table where id > 10; select * from test.another_table",
+            "use test_db; with cte_table as (select id, name from my_table) select * from cte_table",
+            "use db_a; select * from t1; use db_b; select * from t1 join t2 on t1.id = t2.id",
+            "insert overwrite table test.my_table select id, name from test.another_table",
+            "create table test.new_table as select id, name from test.my_table",
+            "with temp_a as (select * from test.table5), temp_b as (select * from test.table6), temp_c as (select * from temp_a join temp_b on temp_a.id=temp_b.id)select t1.id, t2.name from test.table1 t1 join test.table2 t2 on t1.id = t2.id left join (select * from test.table3 a, test.table9 b where a.id=b.id ) t3 on t2.name =t3.name right join temp_c t4 on t1.id=t4.id",
+            "SELECT t.id, t.name, item FROM test.table_with_array t LATERAL VIEW EXPLODE(t.items) itemTable AS item",
+            "SELECT id, name FROM test.table1 UNION ALL SELECT id, name FROM test.table2 UNION SELECT id, name FROM test.table3",
+            "use other; select id, name from my_table where id in (select id from filter_table)"
+    );
+
+    @Test
+    public void testExtractMatchesSingleThreadedResults() throws Exception {
+        List<ExtractionResult> expected = new ArrayList<>();
+        for (String script : SCRIPTS) {
+            expected.add(HiveSqlParser.extract(script));
+        }
+
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        int iterations = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int offset = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    int checked = 0;
+                    for (int i = 0; i < iterations; i++) {
+                        for (int s = 0; s < SCRIPTS.size(); s++) {
+                            // Rotate the starting script so threads parse different statements at the same time
+                            int index = (s + offset) % SCRIPTS.size();
+                            Assert.assertEquals(expected.get(index), HiveSqlParser.extract(SCRIPTS.get(index)));
+                            checked++;
+                        }
+                    }
+                    return checked;
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> future : futures) {
+                Assert.assertEquals(iterations * SCRIPTS.size(), (int) future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testExtractResultIsImmutable() throws Exception {
+        ExtractionResult result = HiveSqlParser.extract("select * from test.my_table");
+        Assert.assertEquals(Arrays.asList("test.my_table"), result.getTableNames());
+        try {
+            result.getTableNames().add("test.other");
+            Assert.fail("result should be immutable");
+        } catch (UnsupportedOperationException expectedException) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.example;
+
+import org.apache.hadoop.hive.ql.parse.ParseException;
+import org.apache.hadoop.hive.ql.parse.SemanticException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool of ready {@link HiveSqlParser}s for serving many short requests, so that the Hive
+ * context, parse driver and AST visitor of a parser are created once and reused. Borrowing never
+ * blocks: a new parser is created when none is idle, and a returned parser is dropped when
+ * {@code maxIdle} parsers are already idle. A pool is thread-safe; the parsers it hands out are
+ * not, and must only be used by the borrowing thread until returned.
+ */
+public class HiveSqlParserPool {
+
+    private final BlockingQueue<HiveSqlParser> idle;
+    private final Supplier<HiveSqlParser> parserFactory;
+
+    public HiveSqlParserPool(int maxIdle) {
+        this(maxIdle, HiveSqlParser::new);
+    }
+
+    /**
+     * @param parserFactory creates the parsers of the pool, with any settings they should share
+     */
+    public HiveSqlParserPool(int maxIdle, Supplier<HiveSqlParser> parserFactory) {
+        if (maxIdle <= 0) {
+            throw new IllegalArgumentException("maxIdle must be positive: " + maxIdle);
+        }
+        this.idle = new ArrayBlockingQueue<>(maxIdle);
+        this.parserFactory = parserFactory;
+    }
+
+    public HiveSqlParser borrow() {
+        HiveSqlParser parser = idle.poll();
+        return parser != null ? parser : parserFactory.get();
+    }
+
+    /**
+     * Resets the parser and makes it available to the next {@link #borrow()}. The parser's results
+     * must not be used afterwards; copy them, e.g. into an {@link ExtractionResult}, first.
+     */
+    public void release(HiveSqlParser parser) {
+        parser.reset();
+        idle.offer(parser);
+    }
+
+    /**
+     * Parses the script with a pooled parser, like {@link HiveSqlParser#extract(String)}. A parser
+     * that throws an {@link Error} is dropped rather than returned, since it may be left in any
+     * state.
+     */
+    public ExtractionResult extract(String script) throws ParseException, SemanticException {
+        HiveSqlParser parser = borrow();
+        try {
+            parser.parse(script);
+            return new ExtractionResult(parser.getStatementResults(), parser.getStatementErrors());
+        } catch (Error e) {
+            parser = null;
+            throw e;
+        } finally {
+            if (parser != null) {
+                release(parser);
+            }
+        }
+    }
+
+    /**
+     * The number of parsers waiting to be borrowed.
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+}
@@ -0,0 +1,68 @@
+package org.example;
+
+import org.apache.hadoop.hive.ql.parse.ParseException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class HiveSqlParserPoolTest {
+
+    @Test
+    public void testReset() throws Exception {
+        HiveSqlParser parser = new HiveSqlParser();
+        parser.parse("use dw; select * from a");
+        parser.reset();
+        Assert.assertTrue(parser.getTableNames().isEmpty());
+        Assert.assertTrue(parser.getStatementResults().isEmpty());
+
+        parser.parse("select * from b");
+        Assert.assertEquals(Collections.singletonList("default.b"), parser.getTableNames());
+    }
+
+    @Test
+    public void testReusesParsers() throws Exception {
+        HiveSqlParserPool pool = new HiveSqlParserPool(1);
+        HiveSqlParser parser = pool.borrow();
+        parser.parse("use dw; select * from a");
+        pool.release(parser);
+        Assert.assertEquals(1, pool.getIdleCount());
+        Assert.assertSame(parser, pool.borrow());
+        Assert.assertEquals(0, pool.getIdleCount());
+        Assert.assertNotSame(parser, pool.borrow());
+
+        pool.release(parser);
+        ExtractionResult result = pool.extract("select * from b");
+        Assert.assertEquals(Collections.singletonList("default.b"), result.getTableNames());
+        Assert.assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void testReleasesParserOnFailure() throws Exception {
+        HiveSqlParserPool pool = new HiveSqlParserPool(2);
+        try {
+            pool.extract("use dw; select * from a; select from");
+            Assert.fail();
+        } catch (ParseException expected) {
+        }
+        Assert.assertEquals(1, pool.getIdleCount());
+        Assert.assertEquals(Arrays.asList("default.c"), pool.extract("select * from c").getTableNames());
+    }
+
+    @Test
+    public void testDropsParserOnError() throws Exception {
+        HiveSqlParserPool pool = new HiveSqlParserPool(2, () -> new HiveSqlParser() {
+            @Override
+            public void parse(String queries) {
+                throw new StackOverflowError();
+            }
+        });
+        try {
+            pool.extract("select * from a");
+            Assert.fail();
+        } catch (StackOverflowError expected) {
+        }
+        Assert.assertEquals(0, pool.getIdleCount());
+    }
+}
@@ -1,15 +1,30 @@
 package org.example;
+import org.apache.hadoop.hive.ql.parse.ASTNode;
+import org.apache.hadoop.hive.ql.parse.ParseDriver;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class HiveSqlParserTest {
 
+    protected HiveSqlParser newParser() {
+        return new HiveSqlParser();
+    }
+
     @Test
     public void testUseBetweenQueries() throws Exception {
         String query = "select id, name from test.my_table where id > 10; select * from test.another_table";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(2, tableNames.size());
@@ -20,7 +35,7 @@ public class HiveSqlParserTest {
     @Test
     public void testParseCreateTable() throws Exception {
         String query = "create table if not exists test.my_table(id int, name string)";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(0, tableNames.size());
@@ -29,7 +44,7 @@ public class HiveSqlParserTest {
     @Test
     public void testParseSelectQuery() throws Exception {
         String query = "select id, name from test.my_table where id > 10";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         System.out.println(tableNames);
@@ -40,7 +55,7 @@ public class HiveSqlParserTest {
     @Test
     public void testParseInsertQuery() throws Exception {
         String query = "insert into test.my_table values (1, 'John')";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(0, tableNames.size());
@@ -50,7 +65,7 @@ public class HiveSqlParserTest {
     @Test
     public void testParseCreateTableAsSelect() throws Exception {
         String query = "create table test.new_table as select id, name from test.my_table";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(1, tableNames.size());
@@ -60,7 +75,7 @@ public class HiveSqlParserTest {
     @Test
     public void testParseWithClause() throws Exception {
         String query = "with cte_table as (select id, name from test.my_table) select * from cte_table";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(1, tableNames.size());
@@ -71,7 +86,7 @@ public class HiveSqlParserTest {
     @Test
     public void testParseInsertOverwriteQuery() throws Exception {
         String query = "insert overwrite table test.my_table select id, name from test.another_table";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(1, tableNames.size());
@@ -81,7 +96,7 @@ public class HiveSqlParserTest {
     @Test
     public void testParseInsertOverwriteQuery1() throws Exception {
         String query = "with temp_a as (select * from test.table_1 where id=1)insert overwrite table test.my_table select id, name from test.another_table a join temp_a b on a.id=b.id";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(2, tableNames.size());
@@ -92,7 +107,7 @@ public class HiveSqlParserTest {
     @Test
     public void testParseSubquery() throws Exception {
         String query = "select id, name from (select id, name from test.my_table) t where t.id > 10";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(1, tableNames.size());
@@ -102,7 +117,7 @@ public class HiveSqlParserTest {
     @Test
     public void testParseJoinQuery() throws Exception {
         String query = "select t1.id, t2.name from test.table1 t1 join test.table2 t2 on t1.id = t2.id";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(2, tableNames.size());
@@ -113,7 +128,7 @@ public class HiveSqlParserTest {
     @Test
     public void testParseJoinQuery1() throws Exception {
         String query = "select t1.id, t2.name from test.table1 t1 join test.table2 t2 on t1.id = t2.id left join (select * from test.table3 a, test.table9 b where a.id=b.id ) t3 on t2.name =t3.name";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(4, tableNames.size());
@@ -127,7 +142,7 @@ public class HiveSqlParserTest {
     @Test
     public void testParseJoinQuery3() throws Exception {
         String query = "with temp_a as (select * from test.table5), temp_b as (select * from test.table6), temp_c as (select * from temp_a join temp_b on temp_a.id=temp_b.id)select t1.id, t2.name from test.table1 t1 join test.table2 t2 on t1.id = t2.id left join (select * from test.table3 a, test.table9 b where a.id=b.id ) t3 on t2.name =t3.name right join temp_c t4 on t1.id=t4.id";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(6, tableNames.size());
@@ -142,7 +157,7 @@ public class HiveSqlParserTest {
     @Test
     public void testParseExistsQuery() throws Exception {
         String query = "select id, name from    test.my_table where exists (select 1 from test.another_table where another_table.id = my_table.id)";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(2, tableNames.size());
@@ -153,7 +168,7 @@ public class HiveSqlParserTest {
     @Test
     public void testParseInQuery() throws Exception {
         String query = "select id, name from test.my_table where id in (select id from test.filter_table)";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(2, tableNames.size());
@@ -164,7 +179,7 @@ public class HiveSqlParserTest {
     @Test
     public void testParseGroupByQuery() throws Exception {
         String query = "select id, count(*) from test.my_table group by id";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(1, tableNames.size());
@@ -174,7 +189,7 @@ public class HiveSqlParserTest {
     @Test
     public void testParseOrderByQuery() throws Exception {
         String query = "select id, name from test.my_table order by id desc";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(1, tableNames.size());
@@ -184,7 +199,7 @@ public class HiveSqlParserTest {
     @Test
     public void testParseHavingQuery() throws Exception {
         String query = "select id, count(*) as cnt from test.my_table group by id having cnt > 5";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(1, tableNames.size());
@@ -194,7 +209,7 @@ public class HiveSqlParserTest {
     @Test
     public void testParsePartitionedTable() throws Exception {
         String query = "CREATE TABLE test.partitioned_table (id INT, name STRING) PARTITIONED BY (dt STRING)";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(0, tableNames.size());
@@ -203,7 +218,7 @@ public class HiveSqlParserTest {
     @Test
     public void testParseInsertIntoPartition() throws Exception {
         String query = "INSERT INTO TABLE test.partitioned_table PARTITION (dt='2023-05-01') SELECT id, name FROM test.source_table";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(1, tableNames.size());
@@ -213,7 +228,7 @@ public class HiveSqlParserTest {
     @Test
     public void testParseCreateExternalTable() throws Exception {
         String query = "CREATE EXTERNAL TABLE test.external_table (id INT, name STRING) STORED AS PARQUET LOCATION '/path/to/data'";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(0, tableNames.size());
@@ -222,7 +237,7 @@ public class HiveSqlParserTest {
     @Test
     public void testParseBucketedTable() throws Exception {
         String query = "CREATE TABLE test.bucketed_table (id INT, name STRING) CLUSTERED BY (id) INTO 4 BUCKETS";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(0, tableNames.size());
@@ -231,7 +246,7 @@ public class HiveSqlParserTest {
     @Test
     public void testParseWindowFunction() throws Exception {
         String query = "SELECT id, name, AVG(salary) OVER (PARTITION BY department ORDER BY salary) AS avg_salary FROM test.employee_table";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(1, tableNames.size());
@@ -241,7 +256,7 @@ public class HiveSqlParserTest {
     @Test
     public void testParseLateralViewExplode() throws Exception {
         String query = "SELECT t.id, t.name, item FROM test.table_with_array t LATERAL VIEW EXPLODE(t.items) itemTable AS item";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(1, tableNames.size());
@@ -251,7 +266,7 @@ public class HiveSqlParserTest {
     @Test
     public void testParseComplexUnionQuery() throws Exception {
         String query = "SELECT id, name FROM test.table1 UNION ALL SELECT id, name FROM test.table2 UNION SELECT id, name FROM test.table3";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(3, tableNames.size());
@@ -263,7 +278,7 @@ public class HiveSqlParserTest {
     @Test
     public void testParseCreateViewQuery() throws Exception {
         String query = "CREATE VIEW test.my_view AS SELECT id, name FROM test.base_table WHERE id > 100";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(1, tableNames.size());
@@ -276,7 +291,7 @@ public class HiveSqlParserTest {
                 "(SELECT id FROM test.table1 WHERE id > 100) a " +
                 "JOIN test.table2 b ON a.id = b.id " +
                 "LEFT JOIN (SELECT id, MAX(value) as value FROM test.table3 GROUP BY id) c ON a.id = c.id";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(3, tableNames.size());
@@ -288,7 +303,7 @@ public class HiveSqlParserTest {
     @Test
     public void testParseInsertOverwriteDirectory() throws Exception {
         String query = "INSERT OVERWRITE DIRECTORY '/output/path' SELECT id, name FROM test.source_table";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(1, tableNames.size());
@@ -298,7 +313,7 @@ public class HiveSqlParserTest {
     @Test
     public void testUseBeforeSelectQuery() throws Exception {
         String query = "use test_db; select id, name from test.my_table where id > 10";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(1, tableNames.size());
@@ -308,7 +323,7 @@ public class HiveSqlParserTest {
     @Test
     public void testUseAfterSelectQuery() throws Exception {
         String query = "select id, name from test.my_table where id > 10; use test_db";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(1, tableNames.size());
@@ -318,7 +333,7 @@ public class HiveSqlParserTest {
     @Test
     public void testUseWithCreateTable() throws Exception {
         String query = "use test_db; create table if not exists test.my_table(id int, name string)";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(0, tableNames.size());
@@ -327,7 +342,7 @@ public class HiveSqlParserTest {
     @Test
     public void testUseWithInsertInto() throws Exception {
         String query = "use test_db; insert into test.my_table values (1, 'John')";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(0, tableNames.size());
@@ -337,7 +352,7 @@ public class HiveSqlParserTest {
     @Test
     public void testUseWithCreateTableAsSelect() throws Exception {
         String query = "use test_db; create table test.new_table as select id, name from test.my_table";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(1, tableNames.size());
@@ -347,7 +362,7 @@ public class HiveSqlParserTest {
     @Test
     public void testUseWithWithClause() throws Exception {
         String query = "use test_db; with cte_table as (select id, name from test.my_table) select * from cte_table";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(1, tableNames.size());
@@ -357,7 +372,7 @@ public class HiveSqlParserTest {
     @Test
     public void testUseWithInsertOverwrite() throws Exception {
         String query = "use test_db; insert overwrite table test.my_table select id, name from test.another_table";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(1, tableNames.size());
@@ -367,7 +382,7 @@ public class HiveSqlParserTest {
     @Test
     public void testUseWithSubquery() throws Exception {
         String query = "use test_db; select id, name from (select id, name from test.my_table) t where t.id > 10";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(1, tableNames.size());
@@ -377,7 +392,7 @@ public class HiveSqlParserTest {
     @Test
     public void testUseWithJoinQuery() throws Exception {
         String query = "use test_db; select t1.id, t2.name from test.table1 t1 join test.table2 t2 on t1.id = t2.id";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(2, tableNames.size());
@@ -388,7 +403,7 @@ public class HiveSqlParserTest {
     @Test
     public void testUseWithComplexJoinQuery() throws Exception {
         String query = "use test_db; select t1.id, t2.name from test.table1 t1 join test.table2 t2 on t1.id = t2.id left join (select * from test.table3 a, test.table9 b where a.id=b.id ) t3 on t2.name =t3.name";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(4, tableNames.size());
@@ -401,7 +416,7 @@ public class HiveSqlParserTest {
     @Test
     public void testUseWithExistsQuery() throws Exception {
         String query = "use test_db; select id, name from test.my_table where exists (select 1 from test.another_table where another_table.id = my_table.id)";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(2, tableNames.size());
@@ -412,7 +427,7 @@ public class HiveSqlParserTest {
     @Test
     public void testUseWithInQuery() throws Exception {
         String query = "use test_db; select id, name from test.my_table where id in (select id from test.filter_table)";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(2, tableNames.size());
@@ -423,7 +438,7 @@ public class HiveSqlParserTest {
     @Test
     public void testUseWithGroupByQuery() throws Exception {
         String query = "use test_db; select id, count(*) from test.my_table group by id";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(1, tableNames.size());
@@ -433,7 +448,7 @@ public class HiveSqlParserTest {
     @Test
     public void testUseWithOrderByQuery() throws Exception {
         String query = "use test_db; select id, name from test.my_table order by id desc";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(1, tableNames.size());
@@ -443,7 +458,7 @@ public class HiveSqlParserTest {
     @Test
     public void testUseWithHavingQuery() throws Exception {
         String query = "use test_db; select id, count(*) as cnt from test.my_table group by id having cnt > 5";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(1, tableNames.size());
@@ -453,7 +468,7 @@ public class HiveSqlParserTest {
     @Test
     public void testUseWithPartitionedTable() throws Exception {
         String query = "use test_db; CREATE TABLE test.partitioned_table (id INT, name STRING) PARTITIONED BY (dt STRING)";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(0, tableNames.size());
@@ -462,7 +477,7 @@ public class HiveSqlParserTest {
     @Test
     public void testUseWithInsertIntoPartition() throws Exception {
         String query = "use test_db; INSERT INTO TABLE test.partitioned_table PARTITION (dt='2023-05-01') SELECT id, name FROM test.source_table";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(1, tableNames.size());
@@ -472,7 +487,7 @@ public class HiveSqlParserTest {
     @Test
     public void testUseWithCreateExternalTable() throws Exception {
         String query = "use test_db; CREATE EXTERNAL TABLE test.external_table (id INT, name STRING) STORED AS PARQUET LOCATION '/path/to/data'";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(0, tableNames.size());
@@ -481,7 +496,7 @@ public class HiveSqlParserTest {
     @Test
     public void testUseWithBucketedTable() throws Exception {
         String query = "use test_db; CREATE TABLE test.bucketed_table (id INT, name STRING) CLUSTERED BY (id) INTO 4 BUCKETS";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(0, tableNames.size());
@@ -490,7 +505,7 @@ public class HiveSqlParserTest {
     @Test
     public void testUseWithWindowFunction() throws Exception {
         String query = "use test_db; SELECT id, name, AVG(salary) OVER (PARTITION BY department ORDER BY salary) AS avg_salary FROM test.employee_table";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(1, tableNames.size());
@@ -500,7 +515,7 @@ public class HiveSqlParserTest {
     @Test
     public void testUseWithLateralViewExplode() throws Exception {
         String query = "use test_db; SELECT t.id, t.name, item FROM test.table_with_array t LATERAL VIEW EXPLODE(t.items) itemTable AS item";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(1, tableNames.size());
@@ -510,7 +525,7 @@ public class HiveSqlParserTest {
     @Test
     public void testUseWithComplexUnionQuery() throws Exception {
         String query = "use test_db; SELECT id, name FROM test.table1 UNION ALL SELECT id, name FROM test.table2 UNION SELECT id, name FROM test.table3";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(3, tableNames.size());
@@ -522,7 +537,7 @@ public class HiveSqlParserTest {
     @Test
     public void testUseWithCreateViewQuery() throws Exception {
         String query = "use test_db; CREATE VIEW test.my_view AS SELECT id, name FROM test.base_table WHERE id > 100";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(1, tableNames.size());
@@ -536,7 +551,7 @@ public class HiveSqlParserTest {
                 "(SELECT id FROM test.table1 WHERE id > 100) a " +
                 "JOIN table2 b ON a.id = b.id " +
                 "LEFT JOIN (SELECT id, MAX(value) as value FROM test.table3 GROUP BY id) c ON a.id = c.id";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(6, tableNames.size());
@@ -551,12 +566,82 @@ public class HiveSqlParserTest {
     @Test
     public void testUseWithInsertOverwriteDirectory() throws Exception {
         String query = "use test_db; INSERT OVERWRITE DIRECTORY '/output/path' SELECT id, name FROM test.source_table";
-        HiveSqlParser processor = new HiveSqlParser();
+        HiveSqlParser processor = newParser();
         processor.parse(query);
         List<String> tableNames = processor.getTableNames();
         Assert.assertEquals(1, tableNames.size());
         Assert.assertTrue(tableNames.contains("test.source_table"));
     }
 
-}
 
+    @Test
+    public void testParseFromReaderAndPath() throws Exception {
+        String query = "use test_db; select * from my_table; select * from test.another_table";
+        HiveSqlParser readerProcessor = newParser();
+        readerProcessor.parse(new StringReader(query));
+        Assert.assertEquals(Arrays.asList("test_db.my_table", "test.another_table"), readerProcessor.getTableNames());
+
+        Path file = Files.createTempFile("query", ".sql");
+        try {
+            Files.write(file, query.getBytes(StandardCharsets.UTF_8));
+            HiveSqlParser pathProcessor = newParser();
+            pathProcessor.parse(file);
+            Assert.assertEquals(readerProcessor.getTableNames(), pathProcessor.getTableNames());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testAstDumpIsCapped() throws Exception {
+        ASTNode tree = new ParseDriver().parse("select t1.id from test.table1 t1 join test.table2 t2 on t1.id = t2.id");
+        String full = AstDumper.dump(tree, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        Assert.assertTrue(full.contains("(TOK_TABNAME test table1)"));
+        Assert.assertFalse(full.contains("truncated"));
+
+        String capped = AstDumper.dump(tree, 5, Integer.MAX_VALUE);
+        Assert.assertTrue(capped.endsWith("[truncated at 5 nodes / depth 2147483647]"));
+        Assert.assertTrue(capped.length() < full.length());
+        Assert.assertTrue(AstDumper.dump(tree, Integer.MAX_VALUE, 2).startsWith("(nil (TOK_QUERY ...)"));
+    }
+
+    @Test
+    public void testDistinctAndStatementViews() throws Exception {
+        String query = "select * from test.a join test.b on a.id = b.id; use test; select * from a; select * from c join a on c.id = a.id";
+        HiveSqlParser processor = newParser();
+        processor.parse(query);
+        Assert.assertEquals(Arrays.asList("test.a", "test.b", "test.a", "test.c", "test.a"), processor.getTableNames());
+        Assert.assertEquals(Arrays.asList("test.a", "test.b", "test.c"), new ArrayList<>(processor.getDistinctTableNames()));
+        Assert.assertEquals(Arrays.asList(
+                Arrays.asList("test.a", "test.b"),
+                Arrays.asList("test.a"),
+                Arrays.asList("test.c", "test.a")), processor.getStatementTableNames());
+    }
+
+    @Test
+    public void testStatementResults() throws Exception {
+        String query = "use test; insert overwrite table dw.t partition(dt='2024-01-01', hr) select a, hr from src;" +
+                "create table t2 as select * from src join dw.t on src.id = t.id;" +
+                "create view v as select * from src; create table t3 (id int); select * from src";
+        HiveSqlParser processor = newParser();
+        processor.parse(query);
+        List<StatementResult> results = processor.getStatementResults();
+        Assert.assertEquals(5, results.size());
+
+        Map<String, String> partitionSpec = new LinkedHashMap<>();
+        partitionSpec.put("dt", "2024-01-01");
+        partitionSpec.put("hr", null);
+        Assert.assertEquals(new StatementResult(new SymbolTable(), 1, StatementType.INSERT, "test",
+                Arrays.asList(new TableTarget("dw.t", partitionSpec)), Arrays.asList("test.src")), results.get(0));
+        Assert.assertEquals(StatementType.CREATE_TABLE_AS_SELECT, results.get(1).getType());
+        Assert.assertEquals(Arrays.asList(new TableTarget("test.t2", Collections.<String, String>emptyMap())), results.get(1).getTargets());
+        Assert.assertEquals(Arrays.asList("test.src", "dw.t"), results.get(1).getSourceTables());
+        Assert.assertEquals(StatementType.CREATE_VIEW, results.get(2).getType());
+        Assert.assertEquals("test.v", results.get(2).getTargets().get(0).getTable());
+        Assert.assertEquals(StatementType.CREATE_TABLE, results.get(3).getType());
+        Assert.assertEquals(Collections.emptyList(), results.get(3).getSourceTables());
+        Assert.assertEquals(StatementType.QUERY, results.get(4).getType());
+        Assert.assertEquals(Collections.emptyList(), results.get(4).getTargets());
+        Assert.assertEquals(5, results.get(4).getIndex());
+    }
+}
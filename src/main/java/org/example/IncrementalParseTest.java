@@ -0,0 +1,83 @@
+package org.example;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class IncrementalParseTest {
+
+    private static class ParsedStatements implements ParseListener {
+
+        final List<Integer> parsed = new ArrayList<>();
+
+        @Override
+        public void onStatement(StatementMetrics metrics) {
+            if (!metrics.isCacheHit()) {
+                parsed.add(metrics.getStatementIndex());
+            }
+        }
+    }
+
+    @Test
+    public void testOnlyChangedStatementsAreParsed() throws Exception {
+        HiveSqlParser processor = new HiveSqlParser();
+        processor.setIncremental(true);
+        ParsedStatements listener = new ParsedStatements();
+        processor.setParseListener(listener);
+
+        processor.parse("select * from a; insert into t select * from b; select * from c");
+        Assert.assertEquals(Arrays.asList(0, 1, 2), listener.parsed);
+
+        listener.parsed.clear();
+        processor.parse("select * from a; insert into t select * from b join d on b.id = d.id; select * from c");
+        Assert.assertEquals(Arrays.asList(1), listener.parsed);
+        Assert.assertEquals(Arrays.asList("default.a", "default.b", "default.d", "default.c"), processor.getTableNames());
+        Assert.assertEquals(3, processor.getStatementResults().size());
+    }
+
+    @Test
+    public void testUnchangedStatementsFollowEditedUse() throws Exception {
+        HiveSqlParser processor = new HiveSqlParser();
+        processor.setIncremental(true);
+        ParsedStatements listener = new ParsedStatements();
+        processor.setParseListener(listener);
+
+        processor.parse("use db1; select * from a; insert overwrite table t partition(dt='1') select * from b");
+        listener.parsed.clear();
+        processor.parse("use db2; select * from a; insert overwrite table t partition(dt='1') select * from b");
+        Assert.assertEquals(new ArrayList<Integer>(), listener.parsed);
+        Assert.assertEquals(Arrays.asList("db2.a", "db2.b"), processor.getTableNames());
+        StatementResult insert = processor.getStatementResults().get(1);
+        Assert.assertEquals("db2", insert.getDatabase());
+        Assert.assertEquals("db2.t PARTITION(dt='1')", insert.getTargets().get(0).toString());
+
+        // Inserting a statement shifts the indexes of the following ones
+        processor.parse("use db2; select 1; select * from a; insert overwrite table t partition(dt='1') select * from b");
+        Assert.assertEquals(Arrays.asList(1), listener.parsed);
+        Assert.assertEquals(3, processor.getStatementResults().get(2).getIndex());
+    }
+
+    @Test
+    public void testLineageIsReusedInSameDatabase() throws Exception {
+        HiveSqlParser processor = new HiveSqlParser();
+        processor.setIncremental(true);
+        processor.setColumnLineage(true);
+        ParsedStatements listener = new ParsedStatements();
+        processor.setParseListener(listener);
+
+        String insert = "insert into t select x from a";
+        processor.parse(insert);
+        processor.parse("select 1; " + insert);
+        Assert.assertEquals(Arrays.asList(0, 0), listener.parsed);
+        Assert.assertEquals(1, processor.getColumnLineage().size());
+        Assert.assertEquals("default.a.x", processor.getColumnLineage().get(0).getSourceColumns("x").iterator().next());
+
+        // Lineage holds qualified names, so a changed database needs a new parse
+        processor.parse("use db; " + insert);
+        Assert.assertEquals(Arrays.asList(0, 0, 1), listener.parsed);
+        Assert.assertEquals("db.a.x", processor.getColumnLineage().get(0).getSourceColumns("x").iterator().next());
+    }
+}
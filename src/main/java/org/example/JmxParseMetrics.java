@@ -0,0 +1,91 @@
+package org.example;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+/**
+ * Exposes a {@link ParseMetrics} as a platform MXBean, e.g. under
+ * {@code org.example:type=HiveSqlParser,name=lineage}.
+ */
+public class JmxParseMetrics implements ParseMetricsMXBean {
+
+    private final ParseMetrics metrics;
+
+    private JmxParseMetrics(ParseMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public static ObjectName register(ParseMetrics metrics, String name) throws JMException {
+        ObjectName objectName = new ObjectName("org.example:type=HiveSqlParser,name=" + ObjectName.quote(name));
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(new JmxParseMetrics(metrics), objectName);
+        return objectName;
+    }
+
+    public static void unregister(ObjectName objectName) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+    }
+
+    @Override
+    public long getStatementCount() {
+        return metrics.getStatementCount();
+    }
+
+    @Override
+    public long getAstNodeCount() {
+        return metrics.getAstNodeCount();
+    }
+
+    @Override
+    public long getTableCount() {
+        return metrics.getTableCount();
+    }
+
+    @Override
+    public long getCacheHitCount() {
+        return metrics.getCacheHitCount();
+    }
+
+    @Override
+    public long getCacheMissCount() {
+        return metrics.getCacheMissCount();
+    }
+
+    @Override
+    public Map<String, Long> getFailureCounts() {
+        return metrics.getFailureCounts();
+    }
+
+    @Override
+    public double getMeanParseNanos() {
+        return metrics.getParseLatency().getMeanNanos();
+    }
+
+    @Override
+    public long getP99ParseNanos() {
+        return metrics.getParseLatency().percentileNanos(0.99);
+    }
+
+    @Override
+    public double getMeanWalkNanos() {
+        return metrics.getWalkLatency().getMeanNanos();
+    }
+
+    @Override
+    public long getP99WalkNanos() {
+        return metrics.getWalkLatency().percentileNanos(0.99);
+    }
+
+    @Override
+    public double getMeanSplitNanos() {
+        return metrics.getSplitLatency().getMeanNanos();
+    }
+
+    @Override
+    public double getMeanResolveNanos() {
+        return metrics.getResolveLatency().getMeanNanos();
+    }
+}
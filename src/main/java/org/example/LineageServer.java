@@ -0,0 +1,322 @@
+package org.example;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.hadoop.hive.ql.parse.ParseException;
+import org.apache.hadoop.hive.ql.parse.SemanticException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Embedded HTTP service on top of the JDK {@link HttpServer} that analyzes scripts sent as the
+ * body of {@code POST /analyze} and answers with the statement results and statement errors as
+ * JSON. {@code GET /health} answers {@code {"status":"ok"}}.
+ * <p>
+ * Requests are handled on a virtual thread each when running on JDK 21 or later, else on a
+ * bounded thread pool. Scripts are parsed on a separate pool of {@code parseThreads} threads
+ * with pooled parsers; a request waits at most {@code timeoutMillis} for its script and is then
+ * answered with 503, and its parse is cancelled. A parser with a statement timeout, as the default
+ * ones are, stops within a few hundred tokens; others stop at the next statement. A body larger
+ * than {@code maxRequestBytes} is rejected with 413, a script that fails to parse with 400, and
+ * a request that finds the parse queue full with 503.
+ * <p>
+ * Usage: {@code LineageServer [port]}
+ */
+public class LineageServer {
+
+    private static Logger logger = LoggerFactory.getLogger(LineageServer.class);
+
+    private final HttpServer server;
+    private final ExecutorService requestExecutor;
+    private final ThreadPoolExecutor parseExecutor;
+    private final HiveSqlParserPool parsers;
+    private final int maxRequestBytes;
+    private final long timeoutMillis;
+
+    /**
+     * Parses with default parsers whose statement timeout is {@code timeoutMillis}.
+     */
+    public LineageServer(InetSocketAddress address, int maxRequestBytes, long timeoutMillis) throws IOException {
+        this(address, maxRequestBytes, timeoutMillis, Runtime.getRuntime().availableProcessors(), () -> {
+            HiveSqlParser parser = new HiveSqlParser();
+            parser.setStatementTimeout(timeoutMillis);
+            return parser;
+        });
+    }
+
+    /**
+     * @param parserFactory creates the parsers, with any settings such as fail-soft mode or the
+     *                      {@link SymbolTable} they resolve names in. A parser created without one
+     *                      has a table of its own that it replaces once large, so scripts from
+     *                      clients cannot grow it without bound. Parsers should have a
+     *                      {@link HiveSqlParser#setStatementTimeout(long) statement timeout}, so
+     *                      that a cancelled parse frees its thread within the statement.
+     */
+    public LineageServer(InetSocketAddress address, int maxRequestBytes, long timeoutMillis, int parseThreads,
+                         Supplier<HiveSqlParser> parserFactory) throws IOException {
+        if (maxRequestBytes <= 0 || timeoutMillis <= 0 || parseThreads <= 0) {
+            throw new IllegalArgumentException("maxRequestBytes, timeoutMillis and parseThreads must be positive");
+        }
+        this.maxRequestBytes = maxRequestBytes;
+        this.timeoutMillis = timeoutMillis;
+        this.parsers = new HiveSqlParserPool(parseThreads, parserFactory);
+        this.parseExecutor = new ThreadPoolExecutor(parseThreads, parseThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(parseThreads * 16), daemonThreads("lineage-parse-"));
+        this.requestExecutor = newRequestExecutor(parseThreads);
+        this.server = HttpServer.create(address, 0);
+        server.setExecutor(requestExecutor);
+        server.createContext("/analyze", this::handleAnalyze);
+        server.createContext("/health", exchange -> respond(exchange, 200, "{\"status\":\"ok\"}"));
+    }
+
+    /**
+     * A virtual thread per request on JDK 21 or later; looked up reflectively since the project
+     * targets Java 8.
+     */
+    private static ExecutorService newRequestExecutor(int parseThreads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            logger.debug("Virtual threads not available, using a bounded request pool");
+        }
+        // Requests mostly wait for their parse, so allow more of them than parse threads
+        int threads = parseThreads * 4;
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(threads * 16), daemonThreads("lineage-request-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public void start() {
+        server.start();
+        logger.info("Lineage server listening on {}", server.getAddress());
+    }
+
+    /**
+     * Stops accepting requests, waiting up to the given number of seconds for running exchanges.
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        requestExecutor.shutdownNow();
+        parseExecutor.shutdownNow();
+    }
+
+    /**
+     * The bound port, useful when the server was created on port 0.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handleAnalyze(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                respond(exchange, 405, error("MethodNotAllowed", "Use POST"));
+                return;
+            }
+            String script = readBody(exchange);
+            if (script == null) {
+                respond(exchange, 413, error("RequestTooLarge", "Request body exceeds " + maxRequestBytes + " bytes"));
+                return;
+            }
+            Future<ExtractionResult> future;
+            try {
+                future = parseExecutor.submit(() -> parsers.extract(script));
+            } catch (RejectedExecutionException e) {
+                respond(exchange, 503, error("Overloaded", "Too many scripts queued"));
+                return;
+            }
+            ExtractionResult result;
+            try {
+                result = future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                respond(exchange, 503, error("Timeout", "Analysis took longer than " + timeoutMillis + " ms"));
+                return;
+            } catch (InterruptedException e) {
+                future.cancel(true);
+                Thread.currentThread().interrupt();
+                respond(exchange, 503, error("Interrupted", "Server is shutting down"));
+                return;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof ParseException || cause instanceof SemanticException) {
+                    respond(exchange, 400, error(cause.getClass().getSimpleName(), cause.getMessage()));
+                } else {
+                    logger.error("Analyze script fail, message: " + cause);
+                    respond(exchange, 500, error(cause.getClass().getSimpleName(), cause.getMessage()));
+                }
+                return;
+            }
+            respond(exchange, 200, toJson(result));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * @return the body as UTF-8, or null if it is larger than {@code maxRequestBytes}
+     */
+    private String readBody(HttpExchange exchange) throws IOException {
+        String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (contentLength != null) {
+            try {
+                if (Long.parseLong(contentLength.trim()) > maxRequestBytes) {
+                    return null;
+                }
+            } catch (NumberFormatException e) {
+                // Let the actual length decide
+            }
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = exchange.getRequestBody()) {
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                if (body.size() + n > maxRequestBytes) {
+                    return null;
+                }
+                body.write(buffer, 0, n);
+            }
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String error(String type, String message) {
+        StringBuilder json = new StringBuilder("{\"error\":{\"type\":");
+        appendString(json, type);
+        json.append(",\"message\":");
+        appendString(json, message);
+        return json.append("}}").toString();
+    }
+
+    /**
+     * Renders the result as {@code {"statements":[...],"errors":[...]}}.
+     */
+    static String toJson(ExtractionResult result) {
+        StringBuilder json = new StringBuilder("{\"statements\":[");
+        List<StatementResult> statements = result.getStatementResults();
+        for (int i = 0; i < statements.size(); i++) {
+            StatementResult statement = statements.get(i);
+            json.append(i == 0 ? "" : ",").append("{\"index\":").append(statement.getIndex()).append(",\"type\":");
+            appendString(json, statement.getType().name());
+            json.append(",\"database\":");
+            appendString(json, statement.getDatabase());
+            json.append(",\"targets\":[");
+            List<TableTarget> targets = statement.getTargets();
+            for (int j = 0; j < targets.size(); j++) {
+                json.append(j == 0 ? "" : ",").append("{\"table\":");
+                appendString(json, targets.get(j).getTable());
+                json.append(",\"partition\":{");
+                boolean first = true;
+                for (Map.Entry<String, String> partition : targets.get(j).getPartitionSpec().entrySet()) {
+                    json.append(first ? "" : ",");
+                    appendString(json, partition.getKey());
+                    json.append(':');
+                    appendString(json, partition.getValue());
+                    first = false;
+                }
+                json.append("}}");
+            }
+            json.append("],\"sources\":[");
+            List<String> sources = statement.getSourceTables();
+            for (int j = 0; j < sources.size(); j++) {
+                json.append(j == 0 ? "" : ",");
+                appendString(json, sources.get(j));
+            }
+            json.append("]}");
+        }
+        json.append("],\"errors\":[");
+        List<StatementError> errors = result.getStatementErrors();
+        for (int i = 0; i < errors.size(); i++) {
+            StatementError error = errors.get(i);
+            json.append(i == 0 ? "" : ",").append("{\"index\":").append(error.getIndex())
+                    .append(",\"offset\":").append(error.getOffset()).append(",\"type\":");
+            appendString(json, error.getErrorType());
+            json.append(",\"message\":");
+            appendString(json, error.getMessage());
+            json.append(",\"recovered\":").append(error.isRecovered()).append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        LineageServer server = new LineageServer(new InetSocketAddress(port), 4 * 1024 * 1024, 10_000);
+        server.start();
+    }
+}
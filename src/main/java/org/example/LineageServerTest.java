@@ -0,0 +1,128 @@
+package org.example;
+
+import org.apache.hadoop.hive.ql.parse.ParseException;
+import org.apache.hadoop.hive.ql.parse.SemanticException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class LineageServerTest {
+
+    private LineageServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new LineageServer(new InetSocketAddress("localhost", 0), 64 * 1024, 2_000);
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testAnalyze() throws Exception {
+        String[] response = post("/analyze", "use dw; insert overwrite table t partition(dt='2024-01-01', hr) "
+                + "select a, hr from src join ods.`user` u on src.id = u.id");
+        Assert.assertEquals("200", response[0]);
+        Assert.assertEquals("{\"statements\":[{\"index\":1,\"type\":\"INSERT\",\"database\":\"dw\",\"targets\":"
+                + "[{\"table\":\"dw.t\",\"partition\":{\"dt\":\"2024-01-01\",\"hr\":null}}],"
+                + "\"sources\":[\"dw.src\",\"ods.user\"]}],\"errors\":[]}", response[1]);
+    }
+
+    @Test
+    public void testParseError() throws Exception {
+        String[] response = post("/analyze", "select * from a; select from");
+        Assert.assertEquals("400", response[0]);
+        Assert.assertTrue(response[1], response[1].startsWith("{\"error\":{\"type\":\"ParseException\""));
+    }
+
+    @Test
+    public void testLimits() throws Exception {
+        StringBuilder large = new StringBuilder();
+        while (large.length() <= 64 * 1024) {
+            large.append("select * from a;\n");
+        }
+        Assert.assertEquals("413", post("/analyze", large.toString())[0]);
+
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + "/analyze").openConnection();
+        Assert.assertEquals(405, connection.getResponseCode());
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        server.stop(0);
+        server = new LineageServer(new InetSocketAddress("localhost", 0), 4 * 1024 * 1024, 1, 1, HiveSqlParser::new);
+        server.start();
+        String[] response = post("/analyze", ParseLimitTest.joins(2000));
+        Assert.assertEquals("503", response[0]);
+        Assert.assertTrue(response[1], response[1].contains("\"Timeout\""));
+        Assert.assertEquals("200", post("/health", "")[0]);
+    }
+
+    @Test
+    public void testTimeoutFreesTheParseThread() throws Exception {
+        server.stop(0);
+        BlockingQueue<Object> parseEnds = new LinkedBlockingQueue<>();
+        server = new LineageServer(new InetSocketAddress("localhost", 0), 4 * 1024 * 1024, 100, 1, () -> {
+            HiveSqlParser parser = new HiveSqlParser() {
+                @Override
+                public void parse(String queries) throws ParseException, SemanticException {
+                    try {
+                        super.parse(queries);
+                        parseEnds.add("parsed");
+                    } catch (RuntimeException e) {
+                        parseEnds.add(e);
+                        throw e;
+                    }
+                }
+            };
+            // Long enough that only the cancellation can stop the statement
+            parser.setStatementTimeout(600_000);
+            return parser;
+        });
+        server.start();
+        // Creates the pooled parser and its Hive context, which may take longer than the timeout
+        post("/analyze", "select * from a");
+        Assert.assertNotNull(parseEnds.poll(30, TimeUnit.SECONDS));
+
+        // A single statement that takes seconds to parse
+        Assert.assertEquals("503", post("/analyze", ParseLimitTest.joins(40000))[0]);
+        Object parseEnd = parseEnds.poll(30, TimeUnit.SECONDS);
+        Assert.assertTrue(String.valueOf(parseEnd), parseEnd instanceof CancellationException);
+    }
+
+    private String[] post(String path, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + path).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        int status = connection.getResponseCode();
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                response.write(buffer, 0, n);
+            }
+        }
+        return new String[]{String.valueOf(status), new String(response.toByteArray(), StandardCharsets.UTF_8)};
+    }
+}
@@ -0,0 +1,90 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Decodes a script file through memory-mapped windows of its {@link FileChannel}, so that large
+ * files are read without copying them onto the heap.
+ */
+final class MappedScriptReader extends Reader {
+
+    private static final long DEFAULT_WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private final long windowSize;
+    private final FileChannel channel;
+    private final long size;
+    private final CharsetDecoder decoder;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private boolean endOfInput;
+
+    MappedScriptReader(Path path, Charset charset) throws IOException {
+        this(path, charset, DEFAULT_WINDOW_SIZE);
+    }
+
+    MappedScriptReader(Path path, Charset charset, long windowSize) throws IOException {
+        this.windowSize = windowSize;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (endOfInput) {
+            return -1;
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (window == null) {
+            map(0);
+        }
+        CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+        while (true) {
+            boolean lastWindow = windowStart + window.limit() == size;
+            CoderResult result = decoder.decode(window, out, lastWindow);
+            if (result.isError()) {
+                result.throwException();
+            }
+            if (lastWindow && !window.hasRemaining()) {
+                decoder.flush(out);
+                endOfInput = true;
+            }
+            int read = out.position() - off;
+            if (read > 0) {
+                return read;
+            }
+            if (result.isOverflow()) {
+                throw new IOException("Read buffer of " + len + " chars is too small to decode the next character");
+            }
+            if (lastWindow) {
+                return -1;
+            }
+            // The window ends inside a character, or is used up: continue from the first undecoded byte
+            map(windowStart + window.position());
+        }
+    }
+
+    private void map(long position) throws IOException {
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize, size - position));
+        windowStart = position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,86 @@
+package org.example;
+
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.ql.Context;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Long-lived configuration shared by all {@link HiveSqlParser} instances.
+ * <p>
+ * Building a {@link HiveConf} re-reads the Hadoop/Hive XML resources, so it is done once per JVM
+ * (or once per config profile) and never mutated afterwards. Parsers only derive their
+ * {@link Context} from it. Each thread reads from its own copy of the configuration, because
+ * {@link org.apache.hadoop.conf.Configuration} lookups synchronize on the instance.
+ */
+public final class ParseEnvironment {
+
+    private final static String HDFS_SESSION_PATH_KEY = "_hive.hdfs.session.path";
+    private final static String LOCAL_SESSION_PATH_KEY = "_hive.local.session.path";
+
+    private static final Map<Map<String, String>, ParseEnvironment> PROFILES = new ConcurrentHashMap<>();
+
+    private final HiveConf hiveConf;
+    private final Map<String, String> overrides;
+    private final ThreadLocal<HiveConf> threadConf;
+
+    private ParseEnvironment(Map<String, String> overrides) {
+        HiveConf conf = new HiveConf();
+        if (conf.get(HDFS_SESSION_PATH_KEY) == null) {
+            conf.set(HDFS_SESSION_PATH_KEY, hdfsTemporaryDirectory(conf));
+        }
+        if (conf.get(LOCAL_SESSION_PATH_KEY) == null) {
+            conf.set(LOCAL_SESSION_PATH_KEY, localTemporaryDirectory());
+        }
+        for (Map.Entry<String, String> entry : overrides.entrySet()) {
+            conf.set(entry.getKey(), entry.getValue());
+        }
+        this.hiveConf = conf;
+        this.overrides = overrides;
+        this.threadConf = ThreadLocal.withInitial(() -> new HiveConf(hiveConf));
+    }
+
+    private static String hdfsTemporaryDirectory(HiveConf hiveConf) {
+        return hiveConf.get("hadoop.tmp.dir", "/tmp");
+    }
+
+    private static String localTemporaryDirectory() {
+        return System.getProperty("java.io.tmpdir", "/tmp");
+    }
+
+    /**
+     * The environment built from the default Hive/Hadoop resources on the classpath.
+     */
+    public static ParseEnvironment getDefault() {
+        return forProfile(Collections.emptyMap());
+    }
+
+    /**
+     * The environment for the given configuration overrides. Environments are cached per distinct
+     * set of overrides, so asking twice for the same profile returns the same instance.
+     */
+    public static ParseEnvironment forProfile(Map<String, String> overrides) {
+        Map<String, String> key = Collections.unmodifiableMap(new TreeMap<>(overrides));
+        return PROFILES.computeIfAbsent(key, ParseEnvironment::new);
+    }
+
+    public Map<String, String> getOverrides() {
+        return overrides;
+    }
+
+    public String get(String key) {
+        return hiveConf.get(key);
+    }
+
+    /**
+     * Creates a {@link Context} backed by the calling thread's copy of this environment's
+     * configuration. The context must not be shared with other threads.
+     */
+    public Context newContext() throws IOException {
+        return new Context(threadConf.get());
+    }
+}
@@ -0,0 +1,31 @@
+package org.example;
+
+import org.apache.hadoop.hive.ql.parse.SemanticException;
+
+/**
+ * Thrown when a statement exceeds one of the limits set with
+ * {@link HiveSqlParser#setStatementLimits(int, int, int)} or
+ * {@link HiveSqlParser#setStatementTimeout(long)}, or is nested too deeply for the thread stack.
+ */
+public class ParseLimitException extends SemanticException {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Limit {
+        STATEMENT_LENGTH,
+        AST_DEPTH,
+        AST_NODES,
+        TIMEOUT
+    }
+
+    private final Limit limit;
+
+    public ParseLimitException(Limit limit, String message) {
+        super(message);
+        this.limit = limit;
+    }
+
+    public Limit getLimit() {
+        return limit;
+    }
+}
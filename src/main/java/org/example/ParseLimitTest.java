@@ -0,0 +1,151 @@
+package org.example;
+
+import org.apache.hadoop.hive.ql.parse.ParseException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ParseLimitTest {
+
+    @Test
+    public void testStatementLength() throws Exception {
+        HiveSqlParser parser = new HiveSqlParser();
+        parser.setStatementLimits(20, 0, 0);
+        parser.parse("select * from a");
+        assertLimit(parser, "select * from a_much_longer_table_name", ParseLimitException.Limit.STATEMENT_LENGTH);
+    }
+
+    @Test
+    public void testAstLimits() throws Exception {
+        String nested = "select * from a";
+        for (int i = 0; i < 20; i++) {
+            nested = "select * from (" + nested + ") t" + i;
+        }
+        HiveSqlParser parser = new HiveSqlParser();
+        parser.setStatementLimits(0, 50, 0);
+        assertLimit(parser, nested, ParseLimitException.Limit.AST_DEPTH);
+
+        parser = new HiveSqlParser();
+        parser.setStatementLimits(0, 0, 50);
+        parser.parse("select * from a");
+        assertLimit(parser, joins(20), ParseLimitException.Limit.AST_NODES);
+    }
+
+    @Test
+    public void testLongExpressionDoesNotOverflowTheStack() throws Exception {
+        StringBuilder query = new StringBuilder("select * from a where x = 0");
+        for (int i = 1; i < 5000; i++) {
+            query.append(" or x = ").append(i);
+        }
+        HiveSqlParser parser = new HiveSqlParser();
+        parser.parse(query.toString());
+        Assert.assertEquals(Collections.singletonList("default.a"), parser.getTableNames());
+    }
+
+    @Test
+    public void testNestingBeyondTheStack() throws Exception {
+        StringBuilder query = new StringBuilder("select ");
+        for (int i = 0; i < 20000; i++) {
+            query.append('(');
+        }
+        query.append('1');
+        for (int i = 0; i < 20000; i++) {
+            query.append(')');
+        }
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread thread = new Thread(null, () -> {
+            try {
+                new HiveSqlParser().parse(query.toString());
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        }, "small-stack", 512 * 1024);
+        thread.start();
+        thread.join();
+        Assert.assertTrue(String.valueOf(failure.get()), failure.get() instanceof ParseLimitException);
+        Assert.assertEquals(ParseLimitException.Limit.AST_DEPTH, ((ParseLimitException) failure.get()).getLimit());
+    }
+
+    @Test
+    public void testLineageNestingBeyondTheStack() throws Exception {
+        // The parser reads a UNION ALL chain in a loop; so does the lineage walk, whatever the stack
+        StringBuilder query = new StringBuilder("insert overwrite table t select c from s0");
+        for (int i = 1; i < 5000; i++) {
+            query.append(" union all select c from s").append(i);
+        }
+        // Loads the parser's classes, which would not fit on the small stack
+        HiveSqlParser parser = new HiveSqlParser();
+        parser.setColumnLineage(true);
+        parser.parse("insert overwrite table t select c from s0 union all select c from s1");
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread thread = new Thread(null, () -> {
+            try {
+                parser.parse(query.toString());
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        }, "small-stack", 128 * 1024);
+        thread.start();
+        thread.join();
+        Assert.assertNull(String.valueOf(failure.get()), failure.get());
+        List<ColumnLineage> lineage = parser.getColumnLineage();
+        Assert.assertEquals(2, lineage.size());
+        Set<String> sources = lineage.get(1).getSourceColumns("c");
+        Assert.assertEquals(5000, sources.size());
+        Assert.assertTrue(sources.contains("default.s4999.c"));
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        HiveSqlParser parser = new HiveSqlParser();
+        parser.setStatementTimeout(60_000);
+        parser.parse("use dw; insert overwrite table t partition(dt='x') select * from a join b on a.id = b.id");
+        Assert.assertEquals(Arrays.asList("dw.a", "dw.b"), parser.getTableNames());
+        Assert.assertEquals("dw.t", parser.getStatementResults().get(0).getTargets().get(0).getTable());
+        try {
+            parser.parse("select * from a; select from");
+            Assert.fail();
+        } catch (ParseException expected) {
+        }
+
+        parser = new HiveSqlParser();
+        parser.setStatementTimeout(1);
+        assertLimit(parser, joins(2000), ParseLimitException.Limit.TIMEOUT);
+    }
+
+    @Test
+    public void testFailSoft() throws Exception {
+        HiveSqlParser parser = new HiveSqlParser();
+        parser.setFailSoft(true);
+        parser.setStatementLimits(20, 0, 0);
+        parser.parse("select * from a_much_longer_table_name; select * from b");
+        Assert.assertEquals(Collections.singletonList("default.b"), parser.getTableNames());
+        Assert.assertEquals("ParseLimitException", parser.getStatementErrors().get(0).getErrorType());
+    }
+
+    /**
+     * A select over {@code tables} tables chained with joins, large enough to take a while to
+     * parse; also used by other tests.
+     */
+    static String joins(int tables) {
+        StringBuilder sql = new StringBuilder("select t0.id from db.table_0 t0");
+        for (int i = 1; i < tables; i++) {
+            sql.append(" join db.table_").append(i).append(" t").append(i).append(" on t0.id = t").append(i).append(".id");
+        }
+        return sql.toString();
+    }
+
+    private static void assertLimit(HiveSqlParser parser, String query, ParseLimitException.Limit limit) throws Exception {
+        try {
+            parser.parse(query);
+            Assert.fail();
+        } catch (ParseLimitException e) {
+            Assert.assertEquals(limit, e.getLimit());
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.example;
+
+/**
+ * Receives instrumentation events from a {@link HiveSqlParser}. Methods are called on the parsing
+ * thread, so implementations shared by several parsers must be thread-safe.
+ */
+public interface ParseListener {
+
+    /**
+     * The default listener. While it is set the parser does not time any stage.
+     */
+    ParseListener NONE = new ParseListener() {
+    };
+
+    /**
+     * Called after every statement other than {@code use} has been analyzed.
+     */
+    default void onStatement(StatementMetrics metrics) {
+    }
+
+    /**
+     * Called when a statement fails, before the error is propagated.
+     */
+    default void onFailure(Statement statement, Exception error) {
+    }
+}
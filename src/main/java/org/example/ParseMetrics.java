@@ -0,0 +1,94 @@
+package org.example;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link ParseListener} that accumulates metrics across statements, scripts and parsers: stage
+ * latency histograms, statement, AST node and table counts, failures by exception type and cache
+ * hits. One instance can be shared by all parsers of a service.
+ */
+public class ParseMetrics implements ParseListener {
+
+    private final LatencyHistogram splitLatency = new LatencyHistogram();
+    private final LatencyHistogram parseLatency = new LatencyHistogram();
+    private final LatencyHistogram walkLatency = new LatencyHistogram();
+    private final LatencyHistogram resolveLatency = new LatencyHistogram();
+    private final LongAdder statementCount = new LongAdder();
+    private final LongAdder astNodeCount = new LongAdder();
+    private final LongAdder tableCount = new LongAdder();
+    private final LongAdder cacheHitCount = new LongAdder();
+    private final LongAdder cacheMissCount = new LongAdder();
+    private final Map<String, LongAdder> failureCounts = new ConcurrentHashMap<>();
+
+    @Override
+    public void onStatement(StatementMetrics metrics) {
+        statementCount.increment();
+        splitLatency.record(metrics.getSplitNanos());
+        tableCount.add(metrics.getTableCount());
+        if (metrics.isCacheEnabled()) {
+            if (metrics.isCacheHit()) {
+                cacheHitCount.increment();
+                return;
+            }
+            cacheMissCount.increment();
+        }
+        parseLatency.record(metrics.getParseNanos());
+        walkLatency.record(metrics.getWalkNanos());
+        resolveLatency.record(metrics.getResolveNanos());
+        astNodeCount.add(metrics.getAstNodeCount());
+    }
+
+    @Override
+    public void onFailure(Statement statement, Exception error) {
+        failureCounts.computeIfAbsent(error.getClass().getSimpleName(), type -> new LongAdder()).increment();
+    }
+
+    public LatencyHistogram getSplitLatency() {
+        return splitLatency;
+    }
+
+    public LatencyHistogram getParseLatency() {
+        return parseLatency;
+    }
+
+    public LatencyHistogram getWalkLatency() {
+        return walkLatency;
+    }
+
+    public LatencyHistogram getResolveLatency() {
+        return resolveLatency;
+    }
+
+    public long getStatementCount() {
+        return statementCount.sum();
+    }
+
+    public long getAstNodeCount() {
+        return astNodeCount.sum();
+    }
+
+    public long getTableCount() {
+        return tableCount.sum();
+    }
+
+    public long getCacheHitCount() {
+        return cacheHitCount.sum();
+    }
+
+    public long getCacheMissCount() {
+        return cacheMissCount.sum();
+    }
+
+    /**
+     * Failure counts keyed by the simple name of the exception class.
+     */
+    public Map<String, Long> getFailureCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        failureCounts.forEach((type, count) -> counts.put(type, count.sum()));
+        return Collections.unmodifiableMap(counts);
+    }
+}
@@ -0,0 +1,33 @@
+package org.example;
+
+import java.util.Map;
+
+/**
+ * JMX view of a {@link ParseMetrics}, registered with {@link JmxParseMetrics#register}.
+ */
+public interface ParseMetricsMXBean {
+
+    long getStatementCount();
+
+    long getAstNodeCount();
+
+    long getTableCount();
+
+    long getCacheHitCount();
+
+    long getCacheMissCount();
+
+    Map<String, Long> getFailureCounts();
+
+    double getMeanParseNanos();
+
+    long getP99ParseNanos();
+
+    double getMeanWalkNanos();
+
+    long getP99WalkNanos();
+
+    double getMeanSplitNanos();
+
+    double getMeanResolveNanos();
+}
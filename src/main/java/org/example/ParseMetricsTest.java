@@ -0,0 +1,65 @@
+package org.example;
+
+import org.apache.hadoop.hive.ql.parse.ParseException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ParseMetricsTest {
+
+    @Test
+    public void testStatementMetrics() throws Exception {
+        List<StatementMetrics> events = new ArrayList<>();
+        HiveSqlParser processor = new HiveSqlParser();
+        processor.setParseListener(new ParseListener() {
+            @Override
+            public void onStatement(StatementMetrics metrics) {
+                events.add(metrics);
+            }
+        });
+        processor.parse("use test_db; select * from t1 join t2 on t1.id = t2.id; select * from test.t3");
+
+        Assert.assertEquals(2, events.size());
+        StatementMetrics first = events.get(0);
+        Assert.assertEquals(1, first.getStatementIndex());
+        Assert.assertEquals(2, first.getTableCount());
+        Assert.assertTrue(first.getParseNanos() > 0);
+        Assert.assertTrue(first.getAstNodeCount() > 0);
+        Assert.assertFalse(first.isCacheEnabled());
+        Assert.assertEquals(1, events.get(1).getTableCount());
+    }
+
+    @Test
+    public void testCumulativeMetrics() throws Exception {
+        ParseMetrics metrics = new ParseMetrics();
+        HiveSqlParser processor = new HiveSqlParser();
+        processor.setParseListener(metrics);
+        processor.setStatementCache(new StatementCache(10, true));
+        processor.parse("select * from t1 where id = 1; select * from t1 where id = 2; select * from t2");
+        try {
+            processor.parse("select from where");
+            Assert.fail("statement should not parse");
+        } catch (ParseException expected) {
+            // expected
+        }
+
+        Assert.assertEquals(3, metrics.getStatementCount());
+        Assert.assertEquals(3, metrics.getTableCount());
+        Assert.assertEquals(1, metrics.getCacheHitCount());
+        Assert.assertEquals(2, metrics.getCacheMissCount());
+        Assert.assertEquals(2, metrics.getParseLatency().getCount());
+        Assert.assertEquals(Long.valueOf(1), metrics.getFailureCounts().get("ParseException"));
+        Assert.assertTrue(metrics.getParseLatency().percentileNanos(0.99) >= metrics.getParseLatency().getMeanNanos() / 2);
+
+        ObjectName name = JmxParseMetrics.register(metrics, "test");
+        try {
+            Assert.assertEquals(3L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "StatementCount"));
+        } finally {
+            JmxParseMetrics.unregister(name);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.example;
+
+import org.example.SqlTokenizer.Token;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Best-effort extraction of table names for statements the Hive parser rejects, such as other SQL
+ * dialects or statements cut short. The name after {@code FROM} or {@code JOIN}, and every name of
+ * a comma-separated FROM list, is read as a source table, the name after {@code INTO} or
+ * {@code OVERWRITE TABLE} as a target, and a name followed by {@code AS (} as a CTE. The result
+ * may be incomplete or contain names that are not tables. An extractor must not be shared between
+ * threads.
+ */
+final class RelaxedTableExtractor {
+
+    // Words that cannot be a table name where one is expected
+    private static final Set<String> NOT_TABLES = new HashSet<>(Arrays.asList("select", "table", "values", "where",
+            "join", "on", "as", "group", "order", "limit", "lateral", "partition", "having", "union", "inner", "left",
+            "right", "full", "cross", "set", "if"));
+
+    private final List<Token> tokens = new ArrayList<>();
+    private int position;
+
+    /**
+     * Adds the table names found in the statement, as written in the statement.
+     *
+     * @return the statement type guessed from its first word
+     */
+    StatementType extract(String statement, Set<String> tableNames, Set<String> cteNames, List<TableTarget> targets) {
+        try {
+            SqlTokenizer.tokenize(statement, tokens, true);
+            for (position = 0; position < tokens.size(); ) {
+                Token token = tokens.get(position++);
+                if (token.type == Token.QUOTED_IDENTIFIER || (token.type == Token.WORD && !isWord(token, "as"))) {
+                    if (isWord(current(), "as") && isSymbol(peek(1), '(')) {
+                        cteNames.add(token.text);
+                        continue;
+                    }
+                }
+                if (isWord(token, "from") || isWord(token, "join")) {
+                    sources(tableNames);
+                } else if (isWord(token, "into") || (isWord(token, "overwrite") && isWord(current(), "table"))) {
+                    if (isWord(current(), "table")) {
+                        position++;
+                    }
+                    String table = tableName();
+                    if (table != null) {
+                        targets.add(new TableTarget(table, Collections.<String, String>emptyMap()));
+                    }
+                }
+            }
+            return guessType();
+        } finally {
+            tokens.clear();
+        }
+    }
+
+    private void sources(Set<String> tableNames) {
+        while (true) {
+            String table = tableName();
+            if (table == null) {
+                return;
+            }
+            tableNames.add(table);
+            // Skip an alias
+            if (isWord(current(), "as")) {
+                position += 2;
+            } else if (current() != null && current().type != Token.SYMBOL && !SqlTokenizer.isKeyword(current().text)) {
+                position++;
+            }
+            if (!isSymbol(current(), ',')) {
+                return;
+            }
+            position++;
+        }
+    }
+
+    private String tableName() {
+        Token first = current();
+        if (!isName(first)) {
+            return null;
+        }
+        position++;
+        if (!isSymbol(current(), '.') || !isName(peek(1))) {
+            return first.text;
+        }
+        position += 2;
+        return first.text + "." + tokens.get(position - 1).text;
+    }
+
+    private StatementType guessType() {
+        Token first = tokens.isEmpty() ? null : tokens.get(0);
+        if (isWord(first, "insert")) {
+            return StatementType.INSERT;
+        }
+        if (isWord(first, "select") || isWord(first, "with") || isWord(first, "from")) {
+            return StatementType.QUERY;
+        }
+        return StatementType.OTHER;
+    }
+
+    private Token current() {
+        return peek(0);
+    }
+
+    private Token peek(int offset) {
+        return position + offset < tokens.size() ? tokens.get(position + offset) : null;
+    }
+
+    private static boolean isName(Token token) {
+        if (token == null) {
+            return false;
+        }
+        if (token.type == Token.QUOTED_IDENTIFIER) {
+            return !token.text.isEmpty();
+        }
+        return token.type == Token.WORD && !NOT_TABLES.contains(token.text.toLowerCase());
+    }
+
+    private static boolean isWord(Token token, String word) {
+        return token != null && token.type == Token.WORD && token.text.equalsIgnoreCase(word);
+    }
+
+    private static boolean isSymbol(Token token, char symbol) {
+        return token != null && token.type == Token.SYMBOL && token.text.charAt(0) == symbol;
+    }
+}
@@ -0,0 +1,93 @@
+package org.example;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class ResultCodecTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Map<String, ExtractionResult> scripts = new LinkedHashMap<>();
+        scripts.put("etl/load.sql", HiveSqlParser.extract("use dw; insert overwrite table t partition(dt='2024-01-01', hr) "
+                + "select a, hr from src join ods.`user` u on src.id = u.id"));
+        scripts.put("report.sql", HiveSqlParser.extract("create table dw.r as select * from dw.t; select * from dw.t"));
+        scripts.put("empty.sql", HiveSqlParser.extract("use dw"));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ResultWriter writer = new ResultWriter(bytes)) {
+            for (Map.Entry<String, ExtractionResult> script : scripts.entrySet()) {
+                writer.write(script.getKey(), script.getValue());
+            }
+        }
+
+        Map<String, ExtractionResult> read = new LinkedHashMap<>();
+        try (ResultReader reader = new ResultReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            ScriptResult script;
+            while ((script = reader.read()) != null) {
+                read.put(script.getScriptId(), script.getResult());
+            }
+        }
+        Assert.assertEquals(scripts, read);
+        Assert.assertNull(read.get("etl/load.sql").getStatementResults().get(0).getTargets().get(0).getPartitionSpec().get("hr"));
+        // Names are shared across scripts
+        Assert.assertSame(read.get("etl/load.sql").getStatementResults().get(0).getTargets().get(0).getTable(),
+                read.get("report.sql").getStatementResults().get(0).getSourceTables().get(0));
+    }
+
+    @Test
+    public void testLongNamesAndManyNames() throws Exception {
+        char[] longName = new char[100 * 1024];
+        Arrays.fill(longName, 'x');
+        StatementResult statement = new StatementResult(new SymbolTable(), 0, StatementType.QUERY, "db",
+                Collections.<TableTarget>emptyList(), Arrays.asList("db." + new String(longName), "db.t"));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ResultWriter writer = new ResultWriter(bytes)) {
+            for (int i = 0; i < 1000; i++) {
+                writer.write("script_" + i, new ExtractionResult(Arrays.asList(statement,
+                        new StatementResult(new SymbolTable(), 1, StatementType.QUERY, "db", Collections.<TableTarget>emptyList(),
+                                Collections.singletonList("db.t_" + i)))));
+            }
+        }
+        try (ResultReader reader = new ResultReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            for (int i = 0; i < 1000; i++) {
+                ScriptResult script = reader.read();
+                Assert.assertEquals("script_" + i, script.getScriptId());
+                Assert.assertEquals(statement, script.getResult().getStatementResults().get(0));
+                Assert.assertEquals(Collections.singletonList("db.t_" + i), script.getResult().getStatementTableNames().get(1));
+            }
+            Assert.assertNull(reader.read());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsOtherStreams() throws Exception {
+        new ResultReader(new ByteArrayInputStream("select 1".getBytes("UTF-8")));
+    }
+
+    @Test
+    public void testRejectsUnknownStatementType() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ResultWriter writer = new ResultWriter(bytes)) {
+            writer.write("s", HiveSqlParser.extract("select * from a"));
+        }
+        byte[] stream = bytes.toByteArray();
+        // magic, version, script id length and byte, statement count, statement index
+        int typeOffset = 4 + 1 + 2 + 1 + 1;
+        Assert.assertEquals(StatementType.QUERY.ordinal(), stream[typeOffset]);
+        stream[typeOffset] = (byte) StatementType.values().length;
+        try (ResultReader reader = new ResultReader(new ByteArrayInputStream(stream))) {
+            reader.read();
+            Assert.fail();
+        } catch (IOException expected) {
+            Assert.assertTrue(expected.getMessage(), expected.getMessage().startsWith("Unknown statement type"));
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads back the results written by a {@link ResultWriter}, one script at a time. Names are
+ * decoded and resolved in the reader's {@link SymbolTable} once per stream, and shared by every
+ * result that references them. A reader is not thread-safe.
+ */
+public class ResultReader implements Closeable {
+
+    private static final StatementType[] TYPES = StatementType.values();
+    private static final String[] NO_PARTITION_SPEC = new String[0];
+    private static final String[][] NO_PARTITION_SPECS = new String[0][];
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[64 * 1024];
+    private int position;
+    private int limit;
+    private String[] dictionary = new String[256];
+    // The id pair of each dictionary name read as a table, or -1
+    private long[] tableIds = new long[0];
+    private int dictionarySize;
+    private final int version;
+    private final SymbolTable symbols;
+
+    public ResultReader(InputStream in) throws IOException {
+        this(in, new SymbolTable());
+    }
+
+    /**
+     * @param symbols the table that the names of the results are interned in
+     */
+    public ResultReader(InputStream in, SymbolTable symbols) throws IOException {
+        this.in = in;
+        this.symbols = symbols;
+        int magic = 0;
+        for (int i = 0; i < 4; i++) {
+            magic = (magic << 8) | readByte();
+        }
+        if (magic != ResultWriter.MAGIC) {
+            throw new IOException("Not a parse result stream");
+        }
+        version = readVarint();
+        if (version < 1 || version > ResultWriter.VERSION) {
+            throw new IOException("Unsupported parse result stream version: " + version);
+        }
+    }
+
+    /**
+     * @return the next script, or null at the end of the stream
+     */
+    public ScriptResult read() throws IOException {
+        if (!fill(1)) {
+            return null;
+        }
+        String scriptId = readString();
+        int statementCount = readVarint();
+        List<StatementResult> statements = new ArrayList<>(statementCount);
+        for (int i = 0; i < statementCount; i++) {
+            int index = readVarint();
+            int ordinal = readByte();
+            if (ordinal >= TYPES.length) {
+                throw new IOException("Unknown statement type " + ordinal + " in script " + scriptId);
+            }
+            StatementType type = TYPES[ordinal];
+            int database = symbols.intern(readName(0));
+            int targetCount = readVarint();
+            long[] targets = new long[targetCount];
+            String[][] partitionSpecs = NO_PARTITION_SPECS;
+            for (int j = 0; j < targetCount; j++) {
+                targets[j] = readTable();
+                int partitionCount = readVarint();
+                if (partitionCount > 0) {
+                    if (partitionSpecs.length == 0) {
+                        partitionSpecs = new String[targetCount][];
+                        Arrays.fill(partitionSpecs, NO_PARTITION_SPEC);
+                    }
+                    String[] partitionSpec = new String[partitionCount * 2];
+                    for (int k = 0; k < partitionSpec.length; k += 2) {
+                        partitionSpec[k] = readName(0);
+                        partitionSpec[k + 1] = readName(1);
+                    }
+                    partitionSpecs[j] = partitionSpec;
+                }
+            }
+            int sourceCount = readVarint();
+            long[] sources = new long[sourceCount];
+            for (int j = 0; j < sourceCount; j++) {
+                sources[j] = readTable();
+            }
+            statements.add(new StatementResult(symbols, index, type, database, targets, partitionSpecs, sources));
+        }
+        List<StatementError> errors = Collections.emptyList();
+        int errorCount = version < 2 ? 0 : readVarint();
+        if (errorCount > 0) {
+            errors = new ArrayList<>(errorCount);
+            for (int i = 0; i < errorCount; i++) {
+                int index = readVarint();
+                long offset = readVarlong();
+                String errorType = readName(0);
+                int length = readVarint();
+                String message = length == 0 ? null : readString(length - 1);
+                errors.add(new StatementError(index, offset, errorType, message, readByte() != 0));
+            }
+        }
+        return ScriptResult.success(scriptId, new ExtractionResult(statements, errors));
+    }
+
+    /**
+     * Reads a dictionary encoded name written with the given id offset; ids below the offset
+     * stand for null.
+     */
+    private String readName(int offset) throws IOException {
+        int id = readNameId(offset);
+        return id < 0 ? null : dictionary[id];
+    }
+
+    /**
+     * Like {@link #readName(int)}, but returns the dictionary id of the name, or -1 for null.
+     */
+    private int readNameId(int offset) throws IOException {
+        int id = readVarint();
+        if (id < offset) {
+            return -1;
+        }
+        id -= offset;
+        if (id < dictionarySize) {
+            return id;
+        }
+        if (id != dictionarySize) {
+            throw new IOException("Corrupt parse result stream: unknown name id " + id);
+        }
+        String name = readString();
+        if (dictionarySize == dictionary.length) {
+            dictionary = Arrays.copyOf(dictionary, dictionarySize * 2);
+        }
+        dictionary[dictionarySize] = name;
+        return dictionarySize++;
+    }
+
+    /**
+     * Reads a dictionary encoded qualified table name as its id pair, resolved once per stream.
+     */
+    private long readTable() throws IOException {
+        int id = readNameId(0);
+        if (id < 0) {
+            throw new IOException("Corrupt parse result stream: null table name");
+        }
+        if (id >= tableIds.length) {
+            int length = tableIds.length;
+            tableIds = Arrays.copyOf(tableIds, dictionary.length);
+            Arrays.fill(tableIds, length, tableIds.length, -1L);
+        }
+        long qualifiedId = tableIds[id];
+        if (qualifiedId < 0) {
+            qualifiedId = symbols.qualify(dictionary[id]);
+            tableIds[id] = qualifiedId;
+        }
+        return qualifiedId;
+    }
+
+    private String readString() throws IOException {
+        return readString(readVarint());
+    }
+
+    private String readString(int length) throws IOException {
+        if (length > buffer.length) {
+            byte[] bytes = new byte[length];
+            int read = limit - position;
+            System.arraycopy(buffer, position, bytes, 0, read);
+            position = limit;
+            while (read < length) {
+                int n = in.read(bytes, read, length - read);
+                if (n < 0) {
+                    throw new EOFException();
+                }
+                read += n;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        if (!fill(length)) {
+            throw new EOFException();
+        }
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    private int readVarint() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt parse result stream: varint too long");
+    }
+
+    private long readVarlong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt parse result stream: varlong too long");
+    }
+
+    private int readByte() throws IOException {
+        if (position == limit && !fill(1)) {
+            throw new EOFException();
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    /**
+     * Makes at least {@code count} bytes available in the buffer.
+     *
+     * @return false if the stream ends first
+     */
+    private boolean fill(int count) throws IOException {
+        if (limit - position >= count) {
+            return true;
+        }
+        System.arraycopy(buffer, position, buffer, 0, limit - position);
+        limit -= position;
+        position = 0;
+        while (limit < count) {
+            int n = in.read(buffer, limit, buffer.length - limit);
+            if (n < 0) {
+                return false;
+            }
+            limit += n;
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,147 @@
+package org.example;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams {@link ExtractionResult}s to a compact binary form that {@link ResultReader} loads back
+ * without parsing the scripts again.
+ * <p>
+ * The stream starts with {@link #MAGIC} and {@link #VERSION}, followed by one record per script.
+ * Integers are unsigned varints. Database, table, partition column and partition value names are
+ * dictionary encoded: a name is written as its id, and the first occurrence of a name is written
+ * as the next unused id followed by the name's UTF-8 bytes, which defines the id for the rest of
+ * the stream. A script record is:
+ * <pre>
+ * scriptId:string statementCount
+ *   (index type:byte database:name
+ *    targetCount (table:name partitionCount (column:name value:name-or-0)*)*
+ *    sourceCount source:name*)*
+ * errorCount (index offset:varlong errorType:name message:string-or-0 recovered:byte)*
+ * </pre>
+ * Script ids and error messages are written as length-prefixed UTF-8 since they are not expected
+ * to repeat; a null message is written as length 0 and any other as its length plus one. A
+ * partition value is written as 0 for a dynamic partition, else as its id plus one. The type is
+ * the ordinal of the {@link StatementType}, so the version changes whenever types are added.
+ * Version 1 streams have no error list, and versions 1 and 2 only hold the types up to
+ * {@link StatementType#OTHER}. A writer is not thread-safe.
+ */
+public class ResultWriter implements Closeable, Flushable {
+
+    static final int MAGIC = 0x48535052;
+    static final int VERSION = 3;
+
+    private final OutputStream out;
+    private final Map<String, Integer> dictionary = new HashMap<>();
+
+    public ResultWriter(OutputStream out) throws IOException {
+        this.out = new BufferedOutputStream(out, 64 * 1024);
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            this.out.write(MAGIC >>> shift);
+        }
+        writeVarint(VERSION);
+    }
+
+    public void write(String scriptId, ExtractionResult result) throws IOException {
+        writeString(scriptId);
+        List<StatementResult> statements = result.getStatementResults();
+        writeVarint(statements.size());
+        for (StatementResult statement : statements) {
+            writeVarint(statement.getIndex());
+            out.write(statement.getType().ordinal());
+            writeName(statement.getDatabase());
+            List<TableTarget> targets = statement.getTargets();
+            writeVarint(targets.size());
+            // Indexed loops, since the lists are views that look up each name when asked
+            for (int i = 0; i < targets.size(); i++) {
+                TableTarget target = targets.get(i);
+                writeName(target.getTable());
+                String[] partitionSpec = target.partitionSpecPairs();
+                writeVarint(partitionSpec.length / 2);
+                for (int j = 0; j < partitionSpec.length; j += 2) {
+                    writeName(partitionSpec[j]);
+                    if (partitionSpec[j + 1] == null) {
+                        writeVarint(0);
+                    } else {
+                        writeName(partitionSpec[j + 1], 1);
+                    }
+                }
+            }
+            List<String> sources = statement.getSourceTables();
+            writeVarint(sources.size());
+            for (int i = 0; i < sources.size(); i++) {
+                writeName(sources.get(i));
+            }
+        }
+        List<StatementError> errors = result.getStatementErrors();
+        writeVarint(errors.size());
+        for (StatementError error : errors) {
+            writeVarint(error.getIndex());
+            writeVarlong(error.getOffset());
+            writeName(error.getErrorType());
+            if (error.getMessage() == null) {
+                writeVarint(0);
+            } else {
+                byte[] bytes = error.getMessage().getBytes(StandardCharsets.UTF_8);
+                writeVarint(bytes.length + 1);
+                out.write(bytes);
+            }
+            out.write(error.isRecovered() ? 1 : 0);
+        }
+    }
+
+    private void writeName(String name) throws IOException {
+        writeName(name, 0);
+    }
+
+    private void writeName(String name, int offset) throws IOException {
+        Integer id = dictionary.get(name);
+        if (id != null) {
+            writeVarint(id + offset);
+            return;
+        }
+        int newId = dictionary.size();
+        dictionary.put(name, newId);
+        writeVarint(newId + offset);
+        writeString(name);
+    }
+
+    private void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeVarint(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private void writeVarlong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,237 @@
+package org.example;
+
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.CharStream;
+import org.antlr.runtime.CommonToken;
+import org.antlr.runtime.RecognitionException;
+import org.antlr.runtime.Token;
+import org.antlr.runtime.TokenRewriteStream;
+import org.antlr.runtime.TokenSource;
+import org.apache.hadoop.hive.ql.Context;
+import org.apache.hadoop.hive.ql.parse.ASTNode;
+import org.apache.hadoop.hive.ql.parse.BaseSemanticAnalyzer;
+import org.apache.hadoop.hive.ql.parse.HiveParser;
+import org.apache.hadoop.hive.ql.parse.ParseDriver;
+import org.apache.hadoop.hive.ql.parse.ParseException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses a whole script with one lexer, one token stream and one Hive parser, instead of running
+ * {@link ParseDriver#parse(String, Context)} on every statement. The script is split on the
+ * {@code ;} tokens of the stream, so semicolons in strings and comments need no special care, and
+ * the stream reports the end of input at the end of each statement, so that the parser's
+ * {@code statement} rule runs unchanged over one statement at a time. Tokens are only read from
+ * the lexer as the statements are reached.
+ * <p>
+ * A statement that fails to lex or parse is parsed again on its own with the {@link ParseDriver},
+ * to fail with its usual error message. A driver parses one script at a time and must not be
+ * shared between threads.
+ */
+final class ScriptParseDriver {
+
+    private final ParseDriver parseDriver;
+    private String script;
+    private Context context;
+    private ParseDriver.HiveLexerX lexer;
+    private StatementTokenStream tokens;
+    private HiveParser parser;
+    private int statementIndex;
+    // Token indexes of the current statement's first token and of the ';' or end of input after it
+    private int first;
+    private int end;
+    private boolean lexerFailed;
+
+    ScriptParseDriver(ParseDriver parseDriver) {
+        this.parseDriver = parseDriver;
+    }
+
+    void start(String script, Context context) {
+        this.script = script;
+        this.context = context;
+        lexer = parseDriver.new HiveLexerX(new UpperCaseLookaheadStream(script));
+        tokens = new StatementTokenStream(lexer);
+        if (context != null) {
+            context.setTokenRewriteStream(tokens);
+            lexer.setHiveConf(context.getConf());
+        }
+        parser = new HiveParser(tokens);
+        if (context != null) {
+            parser.setHiveConf(context.getConf());
+        }
+        parser.setTreeAdaptor(ParseDriver.adaptor);
+        statementIndex = 0;
+        end = -1;
+    }
+
+    /**
+     * Moves to the next statement, skipping empty ones.
+     *
+     * @return the statement, or null at the end of the script
+     */
+    Statement next() {
+        tokens.limit = Integer.MAX_VALUE;
+        if (end >= 0) {
+            tokens.seek(end);
+        }
+        while (tokens.LA(1) == HiveParser.SEMICOLON) {
+            tokens.consume();
+        }
+        if (tokens.LA(1) == Token.EOF) {
+            return null;
+        }
+        int lexerErrors = lexer.getErrors().size();
+        first = tokens.index();
+        Token last = tokens.LT(1);
+        while (tokens.LA(1) != HiveParser.SEMICOLON && tokens.LA(1) != Token.EOF) {
+            last = tokens.LT(1);
+            tokens.consume();
+        }
+        end = tokens.index();
+        lexerFailed = lexer.getErrors().size() > lexerErrors;
+        int start = ((CommonToken) tokens.get(first)).getStartIndex();
+        int stop = ((CommonToken) last).getStopIndex() + 1;
+        return new Statement(script, statementIndex++, start, stop);
+    }
+
+    /**
+     * The database of the current statement if it is a {@code use} statement, or null.
+     */
+    String getUseDatabase() {
+        tokens.seek(first);
+        if (tokens.LA(1) != HiveParser.KW_USE || tokens.LT(2).getTokenIndex() >= end || tokens.LT(3).getTokenIndex() < end) {
+            return null;
+        }
+        return BaseSemanticAnalyzer.unescapeIdentifier(tokens.LT(2).getText());
+    }
+
+    /**
+     * Parses the current statement.
+     *
+     * @param timeoutNanos gives up after this long with a {@link ParseLimitException}; 0 means no
+     *                     timeout
+     */
+    ASTNode parse(String statementText, long timeoutNanos) throws ParseException, ParseLimitException {
+        if (lexerFailed) {
+            return parseDriver.parse(statementText, context);
+        }
+        parser.reset();
+        tokens.seek(first);
+        tokens.limit = end;
+        tokens.deadline = timeoutNanos > 0 ? System.nanoTime() + timeoutNanos : 0;
+        HiveParser.statement_return r;
+        try {
+            r = parser.statement();
+        } catch (RecognitionException e) {
+            return parseDriver.parse(statementText, context);
+        } catch (DeadlineParseDriver.DeadlineExceeded e) {
+            throw new ParseLimitException(ParseLimitException.Limit.TIMEOUT,
+                    "Parse exceeded " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms");
+        } finally {
+            tokens.limit = Integer.MAX_VALUE;
+            tokens.deadline = 0;
+        }
+        if (parser.getNumberOfSyntaxErrors() > 0) {
+            return parseDriver.parse(statementText, context);
+        }
+        ASTNode tree = r.getTree();
+        tree.setUnknownTokenBoundaries();
+        return tree;
+    }
+
+    /**
+     * Releases the script and its tokens.
+     */
+    void finish() {
+        script = null;
+        context = null;
+        lexer = null;
+        tokens = null;
+        parser = null;
+    }
+
+    /**
+     * Like {@link ParseDriver.ANTLRNoCaseStringStream}, the lexer sees the script in upper case
+     * while token texts keep their case, but the script is upper-cased once up front instead of a
+     * character at every lookahead.
+     */
+    private static final class UpperCaseLookaheadStream extends ANTLRStringStream {
+
+        private final char[] upperCase;
+
+        UpperCaseLookaheadStream(String script) {
+            super(script);
+            upperCase = new char[n];
+            for (int i = 0; i < n; i++) {
+                upperCase[i] = Character.toUpperCase(data[i]);
+            }
+        }
+
+        @Override
+        public int LA(int i) {
+            if (i == 0) {
+                return 0;
+            }
+            if (i < 0) {
+                i++;
+                if (p + i - 1 < 0) {
+                    return CharStream.EOF;
+                }
+            }
+            if (p + i - 1 >= n) {
+                return CharStream.EOF;
+            }
+            return upperCase[p + i - 1];
+        }
+    }
+
+    /**
+     * Token stream that ends at {@link #limit}, where it returns an end-of-input token instead of
+     * the {@code ;} that ends the statement, and that checks the deadline, if any, and the thread's
+     * interrupt status every few hundred token accesses, as in {@link DeadlineParseDriver}.
+     */
+    private static final class StatementTokenStream extends TokenRewriteStream {
+
+        private static final int CHECK_INTERVAL = 256;
+
+        int limit = Integer.MAX_VALUE;
+        long deadline;
+        private int accesses;
+        private CommonToken eof;
+
+        StatementTokenStream(TokenSource tokenSource) {
+            super(tokenSource);
+        }
+
+        @Override
+        public Token LT(int k) {
+            checkDeadline();
+            Token token = super.LT(k);
+            if (k > 0 && token != null && token.getTokenIndex() >= limit && token.getType() != Token.EOF) {
+                if (eof == null || eof.getTokenIndex() != limit) {
+                    eof = new CommonToken(Token.EOF, "<EOF>");
+                    eof.setTokenIndex(limit);
+                    eof.setLine(token.getLine());
+                    eof.setCharPositionInLine(token.getCharPositionInLine());
+                }
+                return eof;
+            }
+            return token;
+        }
+
+        @Override
+        public void consume() {
+            checkDeadline();
+            super.consume();
+        }
+
+        private void checkDeadline() {
+            if (++accesses % CHECK_INTERVAL == 0) {
+                if (deadline != 0 && System.nanoTime() - deadline > 0) {
+                    throw new DeadlineParseDriver.DeadlineExceeded();
+                }
+                HiveSqlParser.checkInterrupted();
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.example;
+
+/**
+ * Outcome of analyzing one script in a batch: either the extraction result or the error that
+ * stopped the script. A failed script never affects the other scripts of the batch.
+ */
+public final class ScriptResult {
+
+    private final String scriptId;
+    private final ExtractionResult result;
+    private final Exception error;
+
+    private ScriptResult(String scriptId, ExtractionResult result, Exception error) {
+        this.scriptId = scriptId;
+        this.result = result;
+        this.error = error;
+    }
+
+    public static ScriptResult success(String scriptId, ExtractionResult result) {
+        return new ScriptResult(scriptId, result, null);
+    }
+
+    public static ScriptResult failure(String scriptId, Exception error) {
+        return new ScriptResult(scriptId, null, error);
+    }
+
+    public String getScriptId() {
+        return scriptId;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    public ExtractionResult getResult() {
+        return result;
+    }
+
+    public Exception getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return isSuccess() ? scriptId + "=" + result : scriptId + " failed: " + error;
+    }
+}
@@ -0,0 +1,102 @@
+package org.example;
+
+import org.apache.hadoop.hive.ql.parse.ParseException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class ScriptTokenizationTest {
+
+    private static HiveSqlParser tokenizing() {
+        HiveSqlParser parser = new HiveSqlParser();
+        parser.setScriptTokenization(true);
+        return parser;
+    }
+
+    @Test
+    public void testAgreesWithSplitting() throws Exception {
+        StringBuilder script = new StringBuilder();
+        for (StatementCoverageTest.Case c : StatementCoverageTest.corpus()) {
+            script.append(c.sql).append(";\n");
+            if (script.length() % 7 == 0) {
+                script.append("use db").append(script.length() % 3).append(";\n");
+            }
+        }
+        HiveSqlParser split = new HiveSqlParser();
+        split.parse(script.toString());
+        HiveSqlParser tokenized = tokenizing();
+        tokenized.parse(script.toString());
+        Assert.assertEquals(split.getStatementResults(), tokenized.getStatementResults());
+    }
+
+    @Test
+    public void testSemicolonsInStringsAndComments() throws Exception {
+        String script = "-- a; comment\nuse `dw`;; select ';' from a -- trailing; comment\n;\n"
+                + "select * from b where c = \"x;y\";  ;";
+        HiveSqlParser parser = tokenizing();
+        parser.parse(script);
+        Assert.assertEquals(Arrays.asList("dw.a", "dw.b"), parser.getTableNames());
+        HiveSqlParser split = new HiveSqlParser();
+        split.parse(script);
+        Assert.assertEquals(split.getStatementResults(), parser.getStatementResults());
+    }
+
+    @Test
+    public void testUseStatements() throws Exception {
+        HiveSqlParser parser = tokenizing();
+        parser.parse("use DW; select * from a; use default; select * from b");
+        Assert.assertEquals(Arrays.asList("dw.a", "default.b"), parser.getTableNames());
+        Assert.assertEquals("dw", parser.getStatementResults().get(0).getDatabase());
+    }
+
+    @Test
+    public void testStatementOffsets() throws Exception {
+        String script = "select * from a;\n  select * from b where;  select * from c";
+        HiveSqlParser parser = tokenizing();
+        parser.setFailSoft(true);
+        parser.parse(script);
+        Assert.assertEquals(Arrays.asList("default.a", "default.c"), parser.getTableNames());
+        StatementError error = parser.getStatementErrors().get(0);
+        Assert.assertEquals(1, error.getIndex());
+        Assert.assertEquals(script.indexOf("select * from b"), error.getOffset());
+        Assert.assertEquals("ParseException", error.getErrorType());
+    }
+
+    @Test
+    public void testSyntaxErrorMessage() throws Exception {
+        String message = null;
+        try {
+            new HiveSqlParser().parse("select * from a; select from");
+        } catch (ParseException e) {
+            message = e.getMessage();
+        }
+        try {
+            tokenizing().parse("select * from a; select from");
+            Assert.fail();
+        } catch (ParseException e) {
+            Assert.assertEquals(message, e.getMessage());
+        }
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        HiveSqlParser parser = tokenizing();
+        parser.setStatementTimeout(50);
+        parser.setFailSoft(true);
+        parser.parse("select * from a; " + ParseLimitTest.joins(2000) + "; select * from b");
+        Assert.assertEquals(Arrays.asList("default.a", "default.b"), parser.getTableNames());
+        Assert.assertEquals("ParseLimitException", parser.getStatementErrors().get(0).getErrorType());
+    }
+
+    @Test
+    public void testParserIsReusable() throws Exception {
+        HiveSqlParser parser = tokenizing();
+        parser.setFailSoft(true);
+        parser.parse("select * from a where; select * from b");
+        parser.reset();
+        parser.parse("select * from c");
+        Assert.assertEquals(Collections.singletonList("default.c"), parser.getTableNames());
+    }
+}
@@ -0,0 +1,121 @@
+package org.example;
+
+/**
+ * Normalizes statement text for use as a cache key: comments are dropped, runs of whitespace
+ * outside quotes collapse to a single space, unquoted keywords and identifiers are lower cased and,
+ * optionally, string and numeric literals are replaced by {@code ?}. Hive identifiers are
+ * case-insensitive and the extracted names are lower case, so {@code FROM A} and {@code from a}
+ * share a key. Quoted text and numbers, whose suffixes such as {@code 10L} are kept by the
+ * parser, keep their case.
+ */
+public final class SqlNormalizer {
+
+    private SqlNormalizer() {
+    }
+
+    public static String normalize(Statement statement, boolean maskLiterals) {
+        int length = statement.length();
+        StringBuilder out = new StringBuilder(length);
+        boolean space = false;
+        // Whether the unquoted word being copied starts with a digit
+        boolean number = false;
+        int i = 0;
+        while (i < length) {
+            char c = statement.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = true;
+                i++;
+                continue;
+            }
+            if (c == '-' && i + 1 < length && statement.charAt(i + 1) == '-') {
+                while (i < length && statement.charAt(i) != '\n') {
+                    i++;
+                }
+                space = true;
+                continue;
+            }
+            if (c == '/' && i + 1 < length && statement.charAt(i + 1) == '*') {
+                i = skipBlockComment(statement, i + 2);
+                space = true;
+                continue;
+            }
+            if (space && out.length() > 0) {
+                out.append(' ');
+            }
+            space = false;
+            if (c == '\'' || c == '"') {
+                int end = skipQuoted(statement, i, c);
+                if (maskLiterals) {
+                    out.append('?');
+                } else {
+                    appendRange(out, statement, i, end);
+                }
+                i = end;
+            } else if (c == '`') {
+                int end = skipQuoted(statement, i, c);
+                appendRange(out, statement, i, end);
+                i = end;
+            } else if (maskLiterals && isDigit(c) && (out.length() == 0 || !isIdentifierChar(out.charAt(out.length() - 1)))) {
+                int end = i;
+                while (end < length && (isDigit(statement.charAt(end)) || statement.charAt(end) == '.')) {
+                    end++;
+                }
+                if (end < length && isIdentifierChar(statement.charAt(end))) {
+                    // An identifier starting with digits, such as 2020_sales
+                    appendRange(out, statement, i, end);
+                } else {
+                    out.append('?');
+                }
+                i = end;
+            } else {
+                if (isIdentifierChar(c) && (out.length() == 0 || !isIdentifierChar(out.charAt(out.length() - 1)))) {
+                    number = isDigit(c);
+                }
+                out.append(number ? c : Character.toLowerCase(c));
+                i++;
+            }
+        }
+        return out.toString();
+    }
+
+    private static int skipBlockComment(Statement statement, int from) {
+        int length = statement.length();
+        for (int i = from; i + 1 < length; i++) {
+            if (statement.charAt(i) == '*' && statement.charAt(i + 1) == '/') {
+                return i + 2;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Returns the offset just after the closing quote that matches the one at {@code from}.
+     */
+    private static int skipQuoted(Statement statement, int from, char quote) {
+        int length = statement.length();
+        boolean escapes = quote != '`';
+        for (int i = from + 1; i < length; i++) {
+            char c = statement.charAt(i);
+            if (escapes && c == '\\') {
+                i++;
+            } else if (c == quote) {
+                return i + 1;
+            }
+        }
+        return length;
+    }
+
+    private static void appendRange(StringBuilder out, Statement statement, int from, int to) {
+        for (int i = from; i < to; i++) {
+            out.append(statement.charAt(i));
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isIdentifierChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+}
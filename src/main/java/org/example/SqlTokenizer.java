@@ -0,0 +1,133 @@
+package org.example;
+
+import org.apache.hadoop.hive.ql.parse.HiveParser;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Splits a statement into the tokens the token-level extractors work on: words, quoted
+ * identifiers, string literals and single-character symbols. Comments are dropped. Words that are
+ * Hive keywords are lower-cased, other words keep their case.
+ */
+final class SqlTokenizer {
+
+    private static final Set<String> KEYWORDS = new HashSet<>();
+
+    static {
+        for (String tokenName : HiveParser.tokenNames) {
+            if (tokenName.startsWith("KW_")) {
+                KEYWORDS.add(tokenName.substring(3).toLowerCase());
+            }
+        }
+    }
+
+    private SqlTokenizer() {
+    }
+
+    /**
+     * Appends the tokens of the statement to {@code tokens}. A strict tokenizer gives up on
+     * characters it does not know and on unterminated comments, strings and quoted identifiers; a
+     * lenient one skips the unknown characters and ends the unterminated token at the end of the
+     * statement.
+     *
+     * @return false if a strict tokenizer gave up
+     */
+    static boolean tokenize(String statement, List<Token> tokens, boolean lenient) {
+        int length = statement.length();
+        int i = 0;
+        while (i < length) {
+            char c = statement.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '-' && i + 1 < length && statement.charAt(i + 1) == '-') {
+                while (i < length && statement.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (c == '/' && i + 1 < length && statement.charAt(i + 1) == '*') {
+                int end = statement.indexOf("*/", i + 2);
+                if (end < 0 && !lenient) {
+                    return false;
+                }
+                i = end < 0 ? length : end + 2;
+            } else if (c == '\'' || c == '"') {
+                int end = i + 1;
+                while (end < length && statement.charAt(end) != c) {
+                    end += statement.charAt(end) == '\\' ? 2 : 1;
+                }
+                if (end >= length) {
+                    if (!lenient) {
+                        return false;
+                    }
+                    end = length - 1;
+                }
+                tokens.add(new Token(Token.STRING, statement.substring(i, end + 1)));
+                i = end + 1;
+            } else if (c == '`') {
+                StringBuilder identifier = new StringBuilder();
+                int end = i + 1;
+                while (end < length) {
+                    if (statement.charAt(end) == '`') {
+                        if (end + 1 < length && statement.charAt(end + 1) == '`') {
+                            identifier.append('`');
+                            end += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    identifier.append(statement.charAt(end++));
+                }
+                if (end >= length && !lenient) {
+                    return false;
+                }
+                tokens.add(new Token(Token.QUOTED_IDENTIFIER, identifier.toString()));
+                i = end + 1;
+            } else if (isLetter(c) || isDigit(c) || c == '_') {
+                int end = i + 1;
+                while (end < length && (isLetter(statement.charAt(end)) || isDigit(statement.charAt(end)) || statement.charAt(end) == '_')) {
+                    end++;
+                }
+                String word = statement.substring(i, end);
+                tokens.add(new Token(Token.WORD, isKeyword(word) ? word.toLowerCase() : word));
+                i = end;
+            } else if ("(),.=<>!+-*/%&|^~[]:".indexOf(c) >= 0) {
+                tokens.add(new Token(Token.SYMBOL, String.valueOf(c)));
+                i++;
+            } else if (lenient) {
+                i++;
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean isKeyword(String word) {
+        return KEYWORDS.contains(word.toLowerCase());
+    }
+
+    static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    static final class Token {
+
+        static final int WORD = 0;
+        static final int QUOTED_IDENTIFIER = 1;
+        static final int STRING = 2;
+        static final int SYMBOL = 3;
+
+        final int type;
+        final String text;
+
+        Token(int type, String text) {
+            this.type = type;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.example;
+
+/**
+ * One statement of a script. Leading and trailing whitespace and comments are not part of the
+ * statement. The statement is a view into the buffer it was found in; the text is only copied out
+ * when {@link #getText()} is called.
+ */
+public final class Statement {
+
+    private final CharSequence buffer;
+    private final int bufferStart;
+    private final int bufferEnd;
+    private final int index;
+    private final long start;
+
+    Statement(CharSequence script, int index, int start, int end) {
+        this(script, start, end, index, start);
+    }
+
+    /**
+     * @param buffer      characters containing the statement
+     * @param bufferStart offset of the statement's first character in the buffer
+     * @param bufferEnd   offset just after the statement's last character in the buffer
+     * @param index       position of the statement in the script
+     * @param start       offset of the statement's first character in the whole script
+     */
+    Statement(CharSequence buffer, int bufferStart, int bufferEnd, int index, long start) {
+        this.buffer = buffer;
+        this.bufferStart = bufferStart;
+        this.bufferEnd = bufferEnd;
+        this.index = index;
+        this.start = start;
+    }
+
+    /**
+     * Position of the statement in the script, starting at 0.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Character offset of the statement's first character in the script.
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Character offset just after the statement's last character in the script.
+     */
+    public long getEnd() {
+        return start + length();
+    }
+
+    public int length() {
+        return bufferEnd - bufferStart;
+    }
+
+    public char charAt(int offset) {
+        return buffer.charAt(bufferStart + offset);
+    }
+
+    public String getText() {
+        return buffer.subSequence(bufferStart, bufferEnd).toString();
+    }
+
+    /**
+     * Copies out part of the statement; offsets are relative to the start of the statement.
+     */
+    public String substring(int from, int to) {
+        return buffer.subSequence(bufferStart + from, bufferStart + to).toString();
+    }
+
+    /**
+     * Whether the statement starts with the given keyword followed by whitespace or the end of the
+     * statement, ignoring case.
+     */
+    public boolean startsWithKeyword(String keyword) {
+        int length = keyword.length();
+        if (length() < length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (Character.toLowerCase(charAt(i)) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return length() == length || Character.isWhitespace(charAt(length));
+    }
+
+    @Override
+    public String toString() {
+        return getText();
+    }
+}
@@ -0,0 +1,98 @@
+package org.example;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of the {@link StatementResult} of a statement, keyed by the normalized statement
+ * text and the database that was current when it ran. The least recently used entries are evicted
+ * once {@code maximumSize} statements are cached. A cache may be shared by several parsers.
+ */
+public class StatementCache {
+
+    private final Cache<String, StatementResult> cache;
+    private final boolean maskLiterals;
+    private final StatementCacheStore store;
+    private final AtomicLong storeHitCount = new AtomicLong();
+
+    public StatementCache(long maximumSize, boolean maskLiterals) {
+        this(maximumSize, maskLiterals, null);
+    }
+
+    public StatementCache(long maximumSize, boolean maskLiterals, StatementCacheStore store) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        this.maskLiterals = maskLiterals;
+        this.store = store;
+    }
+
+    public String keyFor(Statement statement, String currentDatabase) {
+        return currentDatabase + '\u0001' + SqlNormalizer.normalize(statement, maskLiterals);
+    }
+
+    /**
+     * @return the cached result, or null if the statement has not been seen. The result keeps the
+     * index of the statement it was computed for.
+     */
+    public StatementResult get(String key) {
+        StatementResult result = cache.getIfPresent(key);
+        if (result == null && store != null) {
+            result = store.load(key);
+            if (result != null) {
+                storeHitCount.incrementAndGet();
+                cache.put(key, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Caches the result. When literals are masked, results that write a static partition are not
+     * cached, since the key does not tell their partition values apart.
+     */
+    public void put(String key, StatementResult result) {
+        if (maskLiterals && hasPartitionValues(result)) {
+            return;
+        }
+        cache.put(key, result);
+        if (store != null) {
+            store.store(key, result);
+        }
+    }
+
+    /**
+     * Hit and miss counts of the in-memory cache. A statement found in the backing store counts
+     * as an in-memory miss and as a {@link #getStoreHitCount() store hit}.
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long getStoreHitCount() {
+        return storeHitCount.get();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private static boolean hasPartitionValues(StatementResult result) {
+        for (TableTarget target : result.getTargets()) {
+            for (String value : target.getPartitionSpec().values()) {
+                if (value != null) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,15 @@
+package org.example;
+
+/**
+ * Persistent backing store for a {@link StatementCache}, consulted when a statement is not in
+ * memory. Implementations must be thread-safe.
+ */
+public interface StatementCacheStore {
+
+    /**
+     * @return the result stored for the key, or null if the key is unknown
+     */
+    StatementResult load(String key);
+
+    void store(String key, StatementResult result);
+}
@@ -0,0 +1,144 @@
+package org.example;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class StatementCacheTest {
+
+    private static Statement statement(String text) {
+        return StatementSplitter.split(text).iterator().next();
+    }
+
+    @Test
+    public void testNormalize() {
+        Statement statement = statement("select  a,\n\t'x  y' -- comment\n from /* c */ `my  tbl` where id > 10 and t1.c = 2020_x");
+        Assert.assertEquals("select a, 'x  y' from `my  tbl` where id > 10 and t1.c = 2020_x",
+                SqlNormalizer.normalize(statement, false));
+        Assert.assertEquals("select a, ? from `my  tbl` where id > ? and t1.c = 2020_x",
+                SqlNormalizer.normalize(statement, true));
+
+        statement = statement("SELECT Id FROM Db.My_Tbl `Q` WHERE Name = 'Ab' AND x = 10L");
+        Assert.assertEquals("select id from db.my_tbl `Q` where name = 'Ab' and x = 10L",
+                SqlNormalizer.normalize(statement, false));
+        Assert.assertEquals(SqlNormalizer.normalize(statement("select id from db.my_tbl `Q` where name = 'Ab' and x = 10L"), true),
+                SqlNormalizer.normalize(statement, true));
+    }
+
+    @Test
+    public void testCacheHitsOnlyForSameDatabase() throws Exception {
+        StatementCache cache = new StatementCache(100, true);
+        HiveSqlParser processor = new HiveSqlParser();
+        processor.setStatementCache(cache);
+        processor.parse("select * from my_table where dt = '2023-01-01';" +
+                "select *   from my_table where dt = '2023-01-02';" +
+                "use other_db; select * from my_table where dt = '2023-01-03'");
+        Assert.assertEquals(Arrays.asList("default.my_table", "default.my_table", "other_db.my_table"),
+                processor.getTableNames());
+        Assert.assertEquals(1, cache.stats().hitCount());
+        Assert.assertEquals(2, cache.stats().missCount());
+        Assert.assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testEvictsBeyondMaximumSize() throws Exception {
+        StatementCache cache = new StatementCache(2, false);
+        HiveSqlParser processor = new HiveSqlParser();
+        processor.setStatementCache(cache);
+        processor.parse("select * from t1; select * from t2; select * from t3");
+        Assert.assertTrue(cache.size() <= 2);
+    }
+
+    @Test
+    public void testFileStoreSurvivesRestart() throws Exception {
+        Path file = Files.createTempFile("statement-cache", ".bin");
+        try {
+            try (FileStatementCacheStore store = new FileStatementCacheStore(file)) {
+                HiveSqlParser processor = new HiveSqlParser();
+                processor.setStatementCache(new StatementCache(100, true, store));
+                processor.parse("select * from test.my_table where id = 1;" +
+                        "insert into test.t partition(dt='x') select * from test.my_table where id = 1");
+            }
+            try (FileStatementCacheStore store = new FileStatementCacheStore(file)) {
+                StatementCache cache = new StatementCache(100, true, store);
+                HiveSqlParser processor = new HiveSqlParser();
+                processor.setStatementCache(cache);
+                processor.parse("select * from test.my_table where id = 2;" +
+                        "insert into test.t partition(dt='y') select * from test.my_table where id = 2");
+                Assert.assertEquals(Arrays.asList("test.my_table", "test.my_table"), processor.getTableNames());
+                // The insert is not cached: its partition value is masked in the cache key
+                Assert.assertEquals(1, cache.getStoreHitCount());
+                StatementResult insert = processor.getStatementResults().get(1);
+                Assert.assertEquals(1, insert.getIndex());
+                Assert.assertEquals(StatementType.INSERT, insert.getType());
+                Assert.assertEquals("test.t PARTITION(dt='y')", insert.getTargets().get(0).toString());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testFileStoreKeepsKeysWithTheSameHash() throws Exception {
+        // Two keys with the same 64-bit FNV-1a hash
+        String first = "\u9509\u63f7\u5b75\u6833\u63e0\u8cfda";
+        String second = "\u738f\u5cfb\u8912\u8ff6\u932b\u9041\uc00c";
+        SymbolTable symbols = new SymbolTable();
+        StatementResult firstResult = new StatementResult(symbols, 0, StatementType.QUERY, "default",
+                Collections.<TableTarget>emptyList(), Collections.singletonList("test.t1"));
+        StatementResult secondResult = new StatementResult(symbols, 0, StatementType.QUERY, "default",
+                Collections.<TableTarget>emptyList(), Collections.singletonList("test.t2"));
+        Path file = Files.createTempFile("statement-cache", ".bin");
+        try {
+            try (FileStatementCacheStore store = new FileStatementCacheStore(file)) {
+                store.store(first, firstResult);
+                Assert.assertNull(store.load(second));
+                store.store(second, secondResult);
+                store.store(second, secondResult);
+                Assert.assertEquals(firstResult.getSourceTables(), store.load(first).getSourceTables());
+                Assert.assertEquals(secondResult.getSourceTables(), store.load(second).getSourceTables());
+            }
+            try (FileStatementCacheStore store = new FileStatementCacheStore(file)) {
+                Assert.assertEquals(firstResult.getSourceTables(), store.load(first).getSourceTables());
+                Assert.assertEquals(secondResult.getSourceTables(), store.load(second).getSourceTables());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testFileStoreDropsTruncatedEntry() throws Exception {
+        Path file = Files.createTempFile("statement-cache", ".bin");
+        StatementResult result = new StatementResult(new SymbolTable(), 0, StatementType.QUERY, "default",
+                Collections.<TableTarget>emptyList(), Collections.singletonList("test.t1"));
+        try {
+            try (FileStatementCacheStore store = new FileStatementCacheStore(file)) {
+                store.store("a", result);
+                store.store("b", result);
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(channel.size() - 1);
+            }
+            try (FileStatementCacheStore store = new FileStatementCacheStore(file)) {
+                Assert.assertEquals(result.getSourceTables(), store.load("a").getSourceTables());
+                Assert.assertNull(store.load("b"));
+                Assert.assertNull(store.load("c"));
+                store.store("c", result);
+            }
+            try (FileStatementCacheStore store = new FileStatementCacheStore(file)) {
+                Assert.assertNotNull(store.load("a"));
+                Assert.assertNull(store.load("b"));
+                Assert.assertEquals(result.getSourceTables(), store.load("c").getSourceTables());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
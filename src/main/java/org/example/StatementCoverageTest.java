@@ -0,0 +1,194 @@
+package org.example;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks the extractor against a corpus generated from the Hive grammar: every kind of FROM
+ * source is combined with every statement that embeds a query, and the DDL and DML statements
+ * that name their tables directly are listed once each. Each case carries the tables it must read
+ * and write.
+ */
+public class StatementCoverageTest {
+
+    @Test
+    public void testGeneratedCorpus() throws Exception {
+        List<Case> corpus = corpus();
+        HiveSqlParser parser = new HiveSqlParser();
+        List<String> failures = new ArrayList<>();
+        Set<StatementType> types = EnumSet.noneOf(StatementType.class);
+        for (Case c : corpus) {
+            parser.reset();
+            try {
+                parser.parse(c.sql);
+            } catch (Exception e) {
+                failures.add(c.sql + " -> " + e);
+                continue;
+            }
+            StatementResult result = parser.getStatementResults().get(0);
+            types.add(result.getType());
+            if (result.getType() != c.type || !new LinkedHashSet<>(result.getSourceTables()).equals(c.sources)
+                    || !targetSet(result).equals(c.targets)) {
+                failures.add(c.sql + " -> " + result);
+            }
+        }
+        Assert.assertEquals(failures.size() + " of " + corpus.size() + " failed: " + failures, 0, failures.size());
+        Assert.assertEquals(EnumSet.allOf(StatementType.class), types);
+    }
+
+    @Test
+    public void testFastPathAgreesWithCorpus() throws Exception {
+        HiveSqlParser full = new HiveSqlParser();
+        HiveSqlParser fast = new HiveSqlParser();
+        fast.setFastPath(true);
+        for (Case c : corpus()) {
+            full.reset();
+            fast.reset();
+            full.parse(c.sql);
+            fast.parse(c.sql);
+            Assert.assertEquals(c.sql, full.getStatementResults(), fast.getStatementResults());
+        }
+    }
+
+    private static Set<TableTarget> targetSet(StatementResult result) {
+        return new LinkedHashSet<>(result.getTargets());
+    }
+
+    /**
+     * Queries over every kind of FROM source, by the tables they read.
+     */
+    private static Map<String, Set<String>> queries() {
+        Map<String, Set<String>> queries = new LinkedHashMap<>();
+        queries.put("select * from s1", tables("s1"));
+        queries.put("select * from db1.s1 a join s2 b on a.id = b.id", tables("db1.s1", "s2"));
+        queries.put("select * from s1, s2", tables("s1", "s2"));
+        queries.put("select * from s1 a left outer join s2 b on a.id = b.id", tables("s1", "s2"));
+        queries.put("select * from s1 a right outer join s2 b on a.id = b.id", tables("s1", "s2"));
+        queries.put("select * from s1 a full outer join s2 b on a.id = b.id", tables("s1", "s2"));
+        queries.put("select * from s1 a left semi join s2 b on a.id = b.id", tables("s1", "s2"));
+        queries.put("select * from s1 cross join s2", tables("s1", "s2"));
+        queries.put("select * from s1 a join s2 b on a.id = b.id left semi join s3 c on a.id = c.id cross join s4",
+                tables("s1", "s2", "s3", "s4"));
+        queries.put("select * from s1 lateral view explode(s1.arr) t as x", tables("s1"));
+        queries.put("select * from s1 lateral view outer explode(s1.arr) t as x", tables("s1"));
+        queries.put("select * from noop(on s1 partition by id)", tables("s1"));
+        queries.put("select * from (select * from s1) q join s2 on q.id = s2.id", tables("s1", "s2"));
+        queries.put("select * from (select * from s1 union all select * from s2) u", tables("s1", "s2"));
+        queries.put("select * from (select id from s1 union select id from s2) u", tables("s1", "s2"));
+        queries.put("select * from s1 where id in (select id from s2)", tables("s1", "s2"));
+        queries.put("select * from s1 where id > (select max(id) from s2)", tables("s1", "s2"));
+        queries.put("select * from s1 where exists (select 1 from s2 where s2.id in (select id from s3))",
+                tables("s1", "s2", "s3"));
+        queries.put("select * from s1 where id in (select id from (select id from s2) q "
+                + "where q.id not in (select id from s3 left semi join s4 on s3.id = s4.id))", tables("s1", "s2", "s3", "s4"));
+        return queries;
+    }
+
+    static List<Case> corpus() {
+        List<Case> corpus = new ArrayList<>();
+        Set<TableTarget> none = Collections.emptySet();
+        for (Map.Entry<String, Set<String>> query : queries().entrySet()) {
+            String q = query.getKey();
+            Set<String> sources = query.getValue();
+            corpus.add(new Case(q, StatementType.QUERY, sources, none));
+            corpus.add(new Case("insert overwrite table dw.t " + q, StatementType.INSERT, sources, targets("dw.t")));
+            corpus.add(new Case("insert into table t partition (dt='1') " + q, StatementType.INSERT, sources,
+                    Collections.singleton(new TableTarget("default.t", Collections.singletonMap("dt", "1")))));
+            corpus.add(new Case("from (" + q + ") u insert overwrite table t1 select * insert into table t2 select *",
+                    StatementType.INSERT, sources, targets("t1", "t2")));
+            corpus.add(new Case("with w as (" + q + ") select * from w", StatementType.QUERY, sources, none));
+            corpus.add(new Case("with w as (" + q + ") insert overwrite table t select * from w join s9 on w.id = s9.id",
+                    StatementType.INSERT, union(sources, tables("s9")), targets("t")));
+            corpus.add(new Case("create table t as " + q, StatementType.CREATE_TABLE_AS_SELECT, sources, targets("t")));
+            corpus.add(new Case("create view v as " + q, StatementType.CREATE_VIEW, sources, targets("v")));
+            corpus.add(new Case("alter view v as " + q, StatementType.ALTER, sources, targets("v")));
+            corpus.add(new Case("merge into t using (" + q + ") m on t.id = m.id when matched then delete",
+                    StatementType.MERGE, sources, targets("t")));
+            corpus.add(new Case("update t set a = 1 where id in (select id from (" + q + ") u)",
+                    StatementType.UPDATE, sources, targets("t")));
+            corpus.add(new Case("delete from t where exists (select 1 from (" + q + ") u where u.id = t.id)",
+                    StatementType.DELETE, sources, targets("t")));
+            corpus.add(new Case("explain " + q, StatementType.EXPLAIN, sources, none));
+            corpus.add(new Case("explain insert overwrite table t " + q, StatementType.EXPLAIN, sources, none));
+        }
+
+        Set<String> noSources = Collections.emptySet();
+        corpus.add(new Case("from uniquejoin preserve s1 (s1.id), s2 (s2.id) select s1.id",
+                StatementType.QUERY, tables("s1", "s2"), none));
+        corpus.add(new Case("merge into dw.t using s1 on t.id = s1.id when matched then update set a = s1.a "
+                + "when not matched then insert values (s1.id, s1.a)", StatementType.MERGE, tables("s1"), targets("dw.t")));
+        corpus.add(new Case("create table t (id int) partitioned by (dt string) stored as orc",
+                StatementType.CREATE_TABLE, noSources, targets("t")));
+        corpus.add(new Case("create table t like db1.s1", StatementType.CREATE_TABLE, tables("db1.s1"), targets("t")));
+        corpus.add(new Case("alter table t add partition (dt='1')", StatementType.ALTER, noSources, targets("t")));
+        corpus.add(new Case("alter table t drop if exists partition (dt='1')", StatementType.ALTER, noSources, targets("t")));
+        corpus.add(new Case("alter table t partition (dt='1') concatenate", StatementType.ALTER, noSources, targets("t")));
+        corpus.add(new Case("alter table t set tblproperties ('a'='b')", StatementType.ALTER, noSources, targets("t")));
+        corpus.add(new Case("alter table t add columns (c string)", StatementType.ALTER, noSources, targets("t")));
+        corpus.add(new Case("alter table t rename to db2.t2", StatementType.ALTER, noSources, targets("t", "db2.t2")));
+        corpus.add(new Case("alter view v rename to v2", StatementType.ALTER, noSources, targets("v", "v2")));
+        corpus.add(new Case("alter table t exchange partition (dt='1') with table s1", StatementType.ALTER,
+                noSources, targets("t", "s1")));
+        corpus.add(new Case("alter materialized view mv rebuild", StatementType.ALTER, noSources, targets("mv")));
+        corpus.add(new Case("msck repair table t", StatementType.ALTER, noSources, targets("t")));
+        corpus.add(new Case("drop table if exists t", StatementType.DROP, noSources, targets("t")));
+        corpus.add(new Case("drop view dw.v", StatementType.DROP, noSources, targets("dw.v")));
+        corpus.add(new Case("drop materialized view mv", StatementType.DROP, noSources, targets("mv")));
+        corpus.add(new Case("truncate table t", StatementType.TRUNCATE, noSources, targets("t")));
+        corpus.add(new Case("truncate table t partition (dt='1')", StatementType.TRUNCATE, noSources,
+                Collections.singleton(new TableTarget("default.t", Collections.singletonMap("dt", "1")))));
+        corpus.add(new Case("load data inpath '/data/t' overwrite into table t partition (dt='1')", StatementType.LOAD,
+                noSources, Collections.singleton(new TableTarget("default.t", Collections.singletonMap("dt", "1")))));
+        corpus.add(new Case("import table t from '/export/t'", StatementType.LOAD, noSources, targets("t")));
+        corpus.add(new Case("export table s1 to '/export/s1'", StatementType.OTHER, tables("s1"), none));
+        corpus.add(new Case("analyze table s1 compute statistics", StatementType.OTHER, tables("s1"), none));
+        corpus.add(new Case("explain drop table t", StatementType.EXPLAIN, noSources, none));
+        return corpus;
+    }
+
+    private static Set<String> tables(String... names) {
+        Set<String> qualified = new LinkedHashSet<>();
+        for (String name : names) {
+            qualified.add(name.contains(".") ? name : "default." + name);
+        }
+        return qualified;
+    }
+
+    private static Set<TableTarget> targets(String... names) {
+        Set<TableTarget> targets = new LinkedHashSet<>();
+        for (String name : tables(names)) {
+            targets.add(new TableTarget(name, Collections.<String, String>emptyMap()));
+        }
+        return targets;
+    }
+
+    private static Set<String> union(Set<String> a, Set<String> b) {
+        Set<String> union = new LinkedHashSet<>(a);
+        union.addAll(b);
+        return union;
+    }
+
+    static final class Case {
+
+        final String sql;
+        final StatementType type;
+        final Set<String> sources;
+        final Set<TableTarget> targets;
+
+        Case(String sql, StatementType type, Set<String> sources, Set<TableTarget> targets) {
+            this.sql = sql;
+            this.type = type;
+            this.sources = sources;
+            this.targets = targets;
+        }
+    }
+}
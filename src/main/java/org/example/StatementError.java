@@ -0,0 +1,75 @@
+package org.example;
+
+/**
+ * Immutable record of a statement that could not be analyzed in fail-soft mode.
+ */
+public final class StatementError {
+
+    private final int index;
+    private final long offset;
+    private final String errorType;
+    private final String message;
+    private final boolean recovered;
+
+    /**
+     * @param index     the position of the statement in its script, see {@link Statement#getIndex()}
+     * @param offset    the offset of the statement in its script, see {@link Statement#getStart()}
+     * @param errorType the simple class name of the exception
+     * @param recovered whether tables were extracted with the relaxed fallback
+     */
+    public StatementError(int index, long offset, String errorType, String message, boolean recovered) {
+        this.index = index;
+        this.offset = offset;
+        this.errorType = errorType;
+        this.message = message;
+        this.recovered = recovered;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public String getErrorType() {
+        return errorType;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Whether the relaxed fallback extracted tables for the statement; its result then appears
+     * among the statement results like any other.
+     */
+    public boolean isRecovered() {
+        return recovered;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof StatementError)) return false;
+        StatementError that = (StatementError) o;
+        return index == that.index && offset == that.offset && recovered == that.recovered
+                && errorType.equals(that.errorType) && String.valueOf(message).equals(String.valueOf(that.message));
+    }
+
+    @Override
+    public int hashCode() {
+        int result = index;
+        result = 31 * result + Long.hashCode(offset);
+        result = 31 * result + errorType.hashCode();
+        result = 31 * result + String.valueOf(message).hashCode();
+        return 31 * result + (recovered ? 1 : 0);
+    }
+
+    @Override
+    public String toString() {
+        return "StatementError[" + index + " at " + offset + ", " + errorType + ": " + message
+                + (recovered ? ", recovered" : "") + "]";
+    }
+}
@@ -0,0 +1,96 @@
+package org.example;
+
+/**
+ * Metrics of one analyzed statement. Stages that did not run, such as parsing on a cache hit,
+ * report zero nanoseconds.
+ */
+public final class StatementMetrics {
+
+    private final int statementIndex;
+    private final long splitNanos;
+    private final long parseNanos;
+    private final long walkNanos;
+    private final long resolveNanos;
+    private final int astNodeCount;
+    private final int tableCount;
+    private final boolean cacheEnabled;
+    private final boolean cacheHit;
+
+    public StatementMetrics(int statementIndex, long splitNanos, long parseNanos, long walkNanos, long resolveNanos,
+                            int astNodeCount, int tableCount, boolean cacheEnabled, boolean cacheHit) {
+        this.statementIndex = statementIndex;
+        this.splitNanos = splitNanos;
+        this.parseNanos = parseNanos;
+        this.walkNanos = walkNanos;
+        this.resolveNanos = resolveNanos;
+        this.astNodeCount = astNodeCount;
+        this.tableCount = tableCount;
+        this.cacheEnabled = cacheEnabled;
+        this.cacheHit = cacheHit;
+    }
+
+    public int getStatementIndex() {
+        return statementIndex;
+    }
+
+    /**
+     * Time spent finding the statement in the script.
+     */
+    public long getSplitNanos() {
+        return splitNanos;
+    }
+
+    /**
+     * Time spent in {@link org.apache.hadoop.hive.ql.parse.ParseDriver#parse}.
+     */
+    public long getParseNanos() {
+        return parseNanos;
+    }
+
+    /**
+     * Time spent walking the AST for table references.
+     */
+    public long getWalkNanos() {
+        return walkNanos;
+    }
+
+    /**
+     * Time spent qualifying table names with the current database and removing CTE references.
+     */
+    public long getResolveNanos() {
+        return resolveNanos;
+    }
+
+    /**
+     * Number of AST nodes visited by the walk; subtrees that cannot hold tables are not counted.
+     */
+    public int getAstNodeCount() {
+        return astNodeCount;
+    }
+
+    public int getTableCount() {
+        return tableCount;
+    }
+
+    /**
+     * Whether a statement cache or incremental mode was in use.
+     */
+    public boolean isCacheEnabled() {
+        return cacheEnabled;
+    }
+
+    /**
+     * Whether the result was served without parsing, from the statement cache or from the
+     * previous run in incremental mode.
+     */
+    public boolean isCacheHit() {
+        return cacheHit;
+    }
+
+    @Override
+    public String toString() {
+        return "StatementMetrics{statementIndex=" + statementIndex + ", splitNanos=" + splitNanos
+                + ", parseNanos=" + parseNanos + ", walkNanos=" + walkNanos + ", resolveNanos=" + resolveNanos
+                + ", astNodeCount=" + astNodeCount + ", tableCount=" + tableCount + ", cacheHit=" + cacheHit + "}";
+    }
+}
@@ -0,0 +1,80 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Splits a script read from a {@link Reader} into {@link Statement}s as soon as each one is
+ * complete. Only the current statement is buffered, so memory use is bounded by the largest
+ * statement rather than by the script.
+ */
+public final class StatementReader implements Closeable {
+
+    private static final int READ_SIZE = 8192;
+
+    private final Reader reader;
+    private final StatementScanner scanner = new StatementScanner();
+    private final char[] chunk = new char[READ_SIZE];
+    private final StringBuilder buffer = new StringBuilder();
+    private int chunkPosition = 0;
+    private int chunkLength = 0;
+    // Offset in the script of the first character in the buffer
+    private long bufferOffset = 0;
+    private int index = 0;
+    private boolean finished = false;
+
+    public StatementReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads up to the end of the next non-empty statement.
+     *
+     * @return the statement, or null at the end of the script
+     */
+    public Statement next() throws IOException {
+        while (!finished) {
+            if (chunkPosition == chunkLength) {
+                chunkLength = reader.read(chunk, 0, READ_SIZE);
+                chunkPosition = 0;
+                if (chunkLength < 0) {
+                    finished = true;
+                    scanner.finish();
+                    return scanner.hasContent() ? takeStatement() : null;
+                }
+            }
+            while (chunkPosition < chunkLength) {
+                char c = chunk[chunkPosition++];
+                buffer.append(c);
+                if (scanner.accept(c, buffer.length() - 1)) {
+                    if (scanner.hasContent()) {
+                        return takeStatement();
+                    }
+                    discardBuffer();
+                }
+            }
+        }
+        return null;
+    }
+
+    private Statement takeStatement() {
+        int start = scanner.getContentStart();
+        int end = scanner.getContentEnd();
+        String text = buffer.substring(start, end);
+        Statement statement = new Statement(text, 0, text.length(), index++, bufferOffset + start);
+        scanner.nextStatement();
+        discardBuffer();
+        return statement;
+    }
+
+    private void discardBuffer() {
+        bufferOffset += buffer.length();
+        buffer.setLength(0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,207 @@
+package org.example;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable result of analyzing one statement: what kind of statement it is, the tables it writes
+ * and reads, and the database that was current when it ran. Table names are qualified with that
+ * database. Results are kept small so that large numbers of them can be held in memory: tables
+ * are stored as the id pairs of the {@link SymbolTable} the result was resolved in, and their
+ * names are only looked up when asked for, as strings shared with every other result of the
+ * same table.
+ */
+public final class StatementResult {
+
+    private static final long[] NO_TABLES = new long[0];
+    private static final String[] NO_PARTITION_SPEC = new String[0];
+    private static final String[][] NO_PARTITION_SPECS = new String[0][];
+
+    private final int index;
+    private final StatementType type;
+    private final SymbolTable symbols;
+    private final int database;
+    private final long[] targets;
+    // The partition spec of each target, see TableTarget#partitionSpecPairs(), or no element if none has one
+    private final String[][] partitionSpecs;
+    private final long[] sources;
+
+    /**
+     * Resolves the names in the given symbol table.
+     *
+     * @param index   the position of the statement in its script, see {@link Statement#getIndex()}
+     * @param targets the tables written by the statement, qualified
+     * @param sources the tables read by the statement, qualified
+     */
+    public StatementResult(SymbolTable symbols, int index, StatementType type, String database,
+                           List<TableTarget> targets, List<String> sources) {
+        this(symbols, index, type, symbols.intern(database), targetIds(symbols, targets), partitionSpecs(targets),
+                sourceIds(symbols, sources));
+    }
+
+    /**
+     * Takes ownership of the arrays.
+     *
+     * @param partitionSpecs the partition spec of each target, or an empty array if none has one
+     */
+    StatementResult(SymbolTable symbols, int index, StatementType type, int database, long[] targets,
+                    String[][] partitionSpecs, long[] sources) {
+        this.index = index;
+        this.type = type;
+        this.symbols = symbols;
+        this.database = database;
+        this.targets = targets.length == 0 ? NO_TABLES : targets;
+        this.partitionSpecs = partitionSpecs.length == 0 ? NO_PARTITION_SPECS : partitionSpecs;
+        this.sources = sources.length == 0 ? NO_TABLES : sources;
+    }
+
+    private static long[] targetIds(SymbolTable symbols, List<TableTarget> targets) {
+        long[] ids = new long[targets.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = symbols.qualify(targets.get(i).getTable());
+        }
+        return ids;
+    }
+
+    private static long[] sourceIds(SymbolTable symbols, List<String> sources) {
+        long[] ids = new long[sources.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = symbols.qualify(sources.get(i));
+        }
+        return ids;
+    }
+
+    /**
+     * The partition specs of the targets, in the form the result stores them.
+     */
+    static String[][] partitionSpecs(List<TableTarget> targets) {
+        String[][] specs = null;
+        for (int i = 0; i < targets.size(); i++) {
+            String[] spec = targets.get(i).partitionSpecPairs();
+            if (spec.length > 0) {
+                if (specs == null) {
+                    specs = new String[targets.size()][];
+                    Arrays.fill(specs, NO_PARTITION_SPEC);
+                }
+                specs[i] = spec;
+            }
+        }
+        return specs == null ? NO_PARTITION_SPECS : specs;
+    }
+
+    /**
+     * The same result for the statement at another position, e.g. for a result served from a
+     * {@link StatementCache}.
+     */
+    StatementResult withIndex(int index) {
+        return index == this.index ? this
+                : new StatementResult(symbols, index, type, database, targets, partitionSpecs, sources);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public StatementType getType() {
+        return type;
+    }
+
+    /**
+     * The database set by the last {@code use} statement before this one.
+     */
+    public String getDatabase() {
+        return symbols.name(database);
+    }
+
+    /**
+     * The symbol id of {@link #getDatabase()}.
+     */
+    public int getDatabaseId() {
+        return database;
+    }
+
+    /**
+     * The symbol table the ids of this result belong to.
+     */
+    public SymbolTable getSymbolTable() {
+        return symbols;
+    }
+
+    public List<TableTarget> getTargets() {
+        return new AbstractList<TableTarget>() {
+            @Override
+            public TableTarget get(int i) {
+                String[] spec = partitionSpecs.length == 0 ? NO_PARTITION_SPEC : partitionSpecs[i];
+                return new TableTarget(symbols.qualifiedName(targets[i]), spec);
+            }
+
+            @Override
+            public int size() {
+                return targets.length;
+            }
+        };
+    }
+
+    /**
+     * The tables read by the statement, each listed once, in the order they appear.
+     */
+    public List<String> getSourceTables() {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int i) {
+                return symbols.qualifiedName(sources[i]);
+            }
+
+            @Override
+            public int size() {
+                return sources.length;
+            }
+        };
+    }
+
+    /**
+     * The {@link SymbolTable} id pairs of {@link #getTargets()}' tables, as a copy.
+     */
+    public long[] getTargetTableIds() {
+        return targets.clone();
+    }
+
+    /**
+     * The {@link SymbolTable} id pairs of {@link #getSourceTables()}, in the same order, as a copy.
+     */
+    public long[] getSourceTableIds() {
+        return sources.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof StatementResult)) return false;
+        StatementResult that = (StatementResult) o;
+        if (index != that.index || type != that.type || !Arrays.deepEquals(partitionSpecs, that.partitionSpecs)) {
+            return false;
+        }
+        if (symbols == that.symbols) {
+            return database == that.database && Arrays.equals(targets, that.targets) && Arrays.equals(sources, that.sources);
+        }
+        // Ids of different tables cannot be compared
+        return getDatabase().equals(that.getDatabase()) && getTargets().equals(that.getTargets())
+                && getSourceTables().equals(that.getSourceTables());
+    }
+
+    @Override
+    public int hashCode() {
+        int result = index;
+        result = 31 * result + type.hashCode();
+        result = 31 * result + getDatabase().hashCode();
+        result = 31 * result + getTargets().hashCode();
+        return 31 * result + getSourceTables().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "StatementResult[" + index + " " + type + " in " + getDatabase()
+                + ", targets " + getTargets() + ", sources " + getSourceTables() + "]";
+    }
+}
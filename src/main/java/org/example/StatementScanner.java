@@ -0,0 +1,149 @@
+package org.example;
+
+/**
+ * Character-at-a-time state machine that finds the statement-terminating semicolons of a Hive
+ * script. Semicolons inside quoted strings (with backslash escapes), backtick identifiers,
+ * {@code --} line comments and {@code /* *&#47;} block comments do not terminate a statement.
+ * <p>
+ * The scanner also tracks the offsets of the first and last character of the current statement
+ * that are neither whitespace nor part of a leading or trailing comment.
+ */
+final class StatementScanner {
+
+    private static final int CODE = 0;
+    private static final int SINGLE_QUOTE = 1;
+    private static final int DOUBLE_QUOTE = 2;
+    private static final int BACKTICK = 3;
+    private static final int LINE_COMMENT = 4;
+    private static final int BLOCK_COMMENT = 5;
+
+    private int state = CODE;
+    private boolean escaped;
+    private boolean blockCommentStar;
+    // A '-' or '/' in code that may start a comment, decided by the next character
+    private char pending;
+    private int pendingOffset;
+
+    private int contentStart = -1;
+    private int contentEnd = -1;
+
+    /**
+     * Consumes the character at the given offset.
+     *
+     * @return true if the character is a semicolon that ends the current statement
+     */
+    boolean accept(char c, int offset) {
+        switch (state) {
+            case SINGLE_QUOTE:
+            case DOUBLE_QUOTE:
+                markContent(offset);
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == (state == SINGLE_QUOTE ? '\'' : '"')) {
+                    state = CODE;
+                }
+                return false;
+            case BACKTICK:
+                markContent(offset);
+                if (c == '`') {
+                    state = CODE;
+                }
+                return false;
+            case LINE_COMMENT:
+                if (c == '\n') {
+                    state = CODE;
+                }
+                return false;
+            case BLOCK_COMMENT:
+                if (blockCommentStar && c == '/') {
+                    state = CODE;
+                }
+                blockCommentStar = c == '*';
+                return false;
+            default:
+                return acceptCode(c, offset);
+        }
+    }
+
+    private boolean acceptCode(char c, int offset) {
+        if (pending != 0) {
+            char previous = pending;
+            pending = 0;
+            if (previous == '-' && c == '-') {
+                state = LINE_COMMENT;
+                return false;
+            }
+            if (previous == '/' && c == '*') {
+                state = BLOCK_COMMENT;
+                blockCommentStar = false;
+                return false;
+            }
+            markContent(pendingOffset);
+        }
+        switch (c) {
+            case ';':
+                return true;
+            case '-':
+            case '/':
+                pending = c;
+                pendingOffset = offset;
+                return false;
+            case '\'':
+                state = SINGLE_QUOTE;
+                break;
+            case '"':
+                state = DOUBLE_QUOTE;
+                break;
+            case '`':
+                state = BACKTICK;
+                break;
+            default:
+                if (Character.isWhitespace(c)) {
+                    return false;
+                }
+                break;
+        }
+        markContent(offset);
+        return false;
+    }
+
+    private void markContent(int offset) {
+        if (contentStart < 0) {
+            contentStart = offset;
+        }
+        contentEnd = offset + 1;
+    }
+
+    /**
+     * Resolves a trailing '-' or '/' at the end of the input.
+     */
+    void finish() {
+        if (pending != 0) {
+            pending = 0;
+            markContent(pendingOffset);
+        }
+    }
+
+    boolean hasContent() {
+        return contentStart >= 0;
+    }
+
+    int getContentStart() {
+        return contentStart;
+    }
+
+    int getContentEnd() {
+        return contentEnd;
+    }
+
+    /**
+     * Starts a new statement. Quote and comment state carries over, since a semicolon is only
+     * reported in code.
+     */
+    void nextStatement() {
+        contentStart = -1;
+        contentEnd = -1;
+    }
+}
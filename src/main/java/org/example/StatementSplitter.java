@@ -0,0 +1,79 @@
+package org.example;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily splits a script into {@link Statement}s in a single pass, without copying the script.
+ * Empty statements, including statements that only contain comments, are skipped.
+ */
+public final class StatementSplitter implements Iterable<Statement> {
+
+    private final CharSequence script;
+
+    private StatementSplitter(CharSequence script) {
+        this.script = script;
+    }
+
+    public static StatementSplitter split(CharSequence script) {
+        return new StatementSplitter(script);
+    }
+
+    @Override
+    public Iterator<Statement> iterator() {
+        return new StatementIterator();
+    }
+
+    private class StatementIterator implements Iterator<Statement> {
+
+        private final StatementScanner scanner = new StatementScanner();
+        private int position = 0;
+        private int index = 0;
+        private Statement next;
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = advance();
+            }
+            return next != null;
+        }
+
+        @Override
+        public Statement next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Statement statement = next;
+            next = null;
+            return statement;
+        }
+
+        private Statement advance() {
+            int length = script.length();
+            while (position < length) {
+                int offset = position++;
+                if (scanner.accept(script.charAt(offset), offset) && scanner.hasContent()) {
+                    Statement statement = toStatement();
+                    scanner.nextStatement();
+                    return statement;
+                }
+            }
+            if (position == length) {
+                // Run the end-of-input handling once
+                position++;
+                scanner.finish();
+                if (scanner.hasContent()) {
+                    Statement statement = toStatement();
+                    scanner.nextStatement();
+                    return statement;
+                }
+            }
+            return null;
+        }
+
+        private Statement toStatement() {
+            return new Statement(script, index++, scanner.getContentStart(), scanner.getContentEnd());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.example;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class StatementSplitterTest {
+
+    private static List<String> split(String script) {
+        List<String> statements = new ArrayList<>();
+        for (Statement statement : StatementSplitter.split(script)) {
+            statements.add(statement.getText());
+        }
+        return statements;
+    }
+
+    private static List<String> read(Reader reader) throws IOException {
+        List<String> statements = new ArrayList<>();
+        StatementReader statementReader = new StatementReader(reader);
+        Statement statement;
+        while ((statement = statementReader.next()) != null) {
+            statements.add(statement.getText());
+        }
+        return statements;
+    }
+
+    @Test
+    public void testSplitTrimsAndSkipsEmptyStatements() {
+        Assert.assertEquals(Arrays.asList("use db", "select 1"), split("  use db ;; \n select 1;\n  "));
+        Assert.assertTrue(split("").isEmpty());
+        Assert.assertTrue(split(" ; ;").isEmpty());
+    }
+
+    @Test
+    public void testSemicolonInLiteralsAndIdentifiers() {
+        Assert.assertEquals(Arrays.asList("select 'a;b', \"c;d\", `e;f` from t", "select 2"),
+                split("select 'a;b', \"c;d\", `e;f` from t; select 2"));
+        Assert.assertEquals(Arrays.asList("select split(x, '\\;') from t", "select 2"),
+                split("select split(x, '\\;') from t; select 2"));
+        Assert.assertEquals(Arrays.asList("select 'it\\'s;' from t"), split("select 'it\\'s;' from t"));
+    }
+
+    @Test
+    public void testSemicolonInComments() {
+        Assert.assertEquals(Arrays.asList("select 1 -- one; two\nfrom t", "select 2"),
+                split("-- leading; comment\nselect 1 -- one; two\nfrom t; /* only; a comment */; select 2 /* trailing; */"));
+        Assert.assertEquals(Arrays.asList("select a - b / c from t"), split("select a - b / c from t"));
+        Assert.assertEquals(Arrays.asList("select a-"), split("select a-"));
+    }
+
+    @Test
+    public void testOffsetsPointIntoScript() {
+        String script = "use db;\n  select * from t ;";
+        List<Statement> statements = new ArrayList<>();
+        StatementSplitter.split(script).forEach(statements::add);
+        Assert.assertEquals(2, statements.size());
+        Assert.assertEquals(0L, statements.get(0).getStart());
+        Assert.assertEquals(6L, statements.get(0).getEnd());
+        Assert.assertEquals(1, statements.get(1).getIndex());
+        Assert.assertEquals(10L, statements.get(1).getStart());
+        Assert.assertEquals("select * from t", statements.get(1).getText());
+        Assert.assertTrue(statements.get(0).startsWithKeyword("use"));
+        Assert.assertFalse(statements.get(1).startsWithKeyword("use"));
+    }
+
+    @Test
+    public void testReaderMatchesSplitter() throws IOException {
+        String[] scripts = {
+                "  use db ;; \n select 1;\n  ",
+                "select 'a;b', \"c;d\", `e;f` from t; select 2",
+                "-- leading; comment\nselect 1 -- one; two\nfrom t; /* only; a comment */; select 2 /* trailing; */",
+                "select a-"
+        };
+        for (String script : scripts) {
+            Assert.assertEquals(split(script), read(new StringReader(script)));
+        }
+    }
+
+    @Test
+    public void testReaderOffsetsPointIntoScript() throws IOException {
+        String script = "-- header\nuse db;\n  select * from t ;";
+        StatementReader reader = new StatementReader(new StringReader(script));
+        Statement use = reader.next();
+        Statement select = reader.next();
+        Assert.assertNull(reader.next());
+        Assert.assertEquals("use db", script.substring((int) use.getStart(), (int) use.getEnd()));
+        Assert.assertEquals("select * from t", script.substring((int) select.getStart(), (int) select.getEnd()));
+    }
+
+    @Test
+    public void testMappedReaderAcrossWindows() throws IOException {
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            script.append("select '数据;").append(i).append("' from t_").append(i).append(";\n");
+        }
+        Path file = Files.createTempFile("script", ".sql");
+        try {
+            Files.write(file, script.toString().getBytes(StandardCharsets.UTF_8));
+            // A window size that is not a multiple of the character width splits characters across windows
+            try (Reader reader = new MappedScriptReader(file, StandardCharsets.UTF_8, 7)) {
+                Assert.assertEquals(split(script.toString()), read(reader));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.example;
+
+import org.apache.hadoop.hive.ql.parse.ASTNode;
+import org.apache.hadoop.hive.ql.parse.HiveParser;
+
+/**
+ * Kind of a parsed statement, as far as reading and writing tables is concerned.
+ */
+public enum StatementType {
+    /** A query that only returns rows */
+    QUERY,
+    /** INSERT INTO / INSERT OVERWRITE of a table or directory, including multi-insert */
+    INSERT,
+    CREATE_TABLE,
+    CREATE_TABLE_AS_SELECT,
+    /** CREATE VIEW and CREATE MATERIALIZED VIEW */
+    CREATE_VIEW,
+    OTHER,
+    // Appended after OTHER, since the binary result format stores the ordinal
+    MERGE,
+    UPDATE,
+    DELETE,
+    /** ALTER TABLE, ALTER VIEW, ALTER MATERIALIZED VIEW and MSCK */
+    ALTER,
+    /** DROP TABLE, DROP VIEW and DROP MATERIALIZED VIEW */
+    DROP,
+    TRUNCATE,
+    /** LOAD DATA and IMPORT */
+    LOAD,
+    /** EXPLAIN of any statement, with the tables it would read and no target */
+    EXPLAIN;
+
+    static StatementType of(ASTNode root) {
+        ASTNode statement = root.getToken() == null && root.getChildCount() > 0 ? (ASTNode) root.getChild(0) : root;
+        switch (statement.getType()) {
+            case HiveParser.TOK_QUERY:
+                return writes(statement) ? INSERT : QUERY;
+            case HiveParser.TOK_CREATETABLE:
+                for (int i = 0; i < statement.getChildCount(); i++) {
+                    if (statement.getChild(i).getType() == HiveParser.TOK_QUERY) {
+                        return CREATE_TABLE_AS_SELECT;
+                    }
+                }
+                return CREATE_TABLE;
+            case HiveParser.TOK_CREATEVIEW:
+            case HiveParser.TOK_CREATE_MATERIALIZED_VIEW:
+                return CREATE_VIEW;
+            case HiveParser.TOK_MERGE:
+                return MERGE;
+            case HiveParser.TOK_UPDATE_TABLE:
+                return UPDATE;
+            case HiveParser.TOK_DELETE_FROM:
+                return DELETE;
+            case HiveParser.TOK_ALTERTABLE:
+            case HiveParser.TOK_ALTERVIEW:
+            case HiveParser.TOK_ALTER_MATERIALIZED_VIEW:
+            case HiveParser.TOK_MSCK:
+                return ALTER;
+            case HiveParser.TOK_DROPTABLE:
+            case HiveParser.TOK_DROPVIEW:
+            case HiveParser.TOK_DROP_MATERIALIZED_VIEW:
+                return DROP;
+            case HiveParser.TOK_TRUNCATETABLE:
+                return TRUNCATE;
+            case HiveParser.TOK_LOAD:
+            case HiveParser.TOK_IMPORT:
+                return LOAD;
+            case HiveParser.TOK_EXPLAIN:
+                return EXPLAIN;
+            default:
+                return OTHER;
+        }
+    }
+
+    /**
+     * Whether an insert clause of the query has a destination other than the temporary file of a
+     * plain SELECT.
+     */
+    private static boolean writes(ASTNode query) {
+        for (int i = 0; i < query.getChildCount(); i++) {
+            ASTNode insert = (ASTNode) query.getChild(i);
+            if (insert.getType() != HiveParser.TOK_INSERT || insert.getChildCount() == 0) {
+                continue;
+            }
+            ASTNode destination = (ASTNode) insert.getChild(0);
+            if (destination.getType() == HiveParser.TOK_INSERT_INTO) {
+                return true;
+            }
+            ASTNode target = (ASTNode) destination.getChild(0);
+            if (target.getType() != HiveParser.TOK_DIR || target.getChild(0).getType() != HiveParser.TOK_TMP_FILE) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
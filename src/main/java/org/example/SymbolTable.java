@@ -0,0 +1,173 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Concurrent table of database and table identifiers. Every identifier gets a compact int id under
+ * its canonical, lower case spelling, since Hive identifiers are case-insensitive; only canonical
+ * spellings are stored, so differently cased input does not grow the table. A qualified table
+ * name is the pair of its database and table ids packed into a long, and its string form is only
+ * built the first time it is asked for, then shared by every result that names the table.
+ * <p>
+ * Identifiers are never removed, since results refer to them by id, so the table grows with the
+ * number of distinct names. A table fed with untrusted input should be replaced by a new one once
+ * it grows large; results keep the table they were resolved in. All methods are thread-safe.
+ */
+public final class SymbolTable {
+
+    // Database id of a name written without a database
+    private static final int NO_DATABASE = -1;
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[64];
+    private int size;
+    // Qualified names built so far, open addressed by id pair; written under the lock, read without it
+    private volatile QualifiedName[] qualifiedNames = new QualifiedName[64];
+    private int qualifiedNameCount;
+
+    /**
+     * @return the id of the identifier, ignoring case
+     */
+    public int intern(String identifier) {
+        // Returns the identifier itself when it is already lower case, the common case
+        String canonical = identifier.toLowerCase(Locale.ROOT);
+        Integer id = ids.get(canonical);
+        return id != null ? id : add(canonical);
+    }
+
+    private synchronized int add(String canonical) {
+        Integer id = ids.get(canonical);
+        if (id != null) {
+            return id;
+        }
+        String[] current = names;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, size * 2);
+        }
+        current[size] = canonical;
+        // Publish the array before the id, so that a reader of the id finds its name
+        names = current;
+        ids.put(canonical, size);
+        return size++;
+    }
+
+    /**
+     * The canonical spelling of an identifier.
+     */
+    public String name(int id) {
+        return names[id];
+    }
+
+    /**
+     * The id pair of a table name as written in a statement, {@code tbl} or {@code db.tbl}, with
+     * an unqualified name resolved against the given database id.
+     */
+    public long qualify(String tableName, int currentDatabase) {
+        int dot = tableName.indexOf('.');
+        if (dot < 0) {
+            return pack(currentDatabase, intern(tableName));
+        }
+        return pack(intern(tableName.substring(0, dot)), intern(tableName.substring(dot + 1)));
+    }
+
+    /**
+     * The id pair of a {@code db.tbl} name.
+     */
+    public long qualify(String qualifiedName) {
+        return qualify(qualifiedName, NO_DATABASE);
+    }
+
+    /**
+     * The canonical {@code db.tbl} string of an id pair, or {@code tbl} for a name qualified without
+     * a database, shared by every caller.
+     */
+    public String qualifiedName(long qualifiedId) {
+        QualifiedName[] current = qualifiedNames;
+        int mask = current.length - 1;
+        for (int i = slot(qualifiedId, mask); ; i = (i + 1) & mask) {
+            QualifiedName name = current[i];
+            if (name == null) {
+                // Possibly added since, or into a larger array
+                return addQualifiedName(qualifiedId);
+            }
+            if (name.id == qualifiedId) {
+                return name.name;
+            }
+        }
+    }
+
+    private synchronized String addQualifiedName(long qualifiedId) {
+        QualifiedName[] current = qualifiedNames;
+        int mask = current.length - 1;
+        int i = slot(qualifiedId, mask);
+        for (QualifiedName name; (name = current[i]) != null; i = (i + 1) & mask) {
+            if (name.id == qualifiedId) {
+                return name.name;
+            }
+        }
+        int database = database(qualifiedId);
+        String name = database == NO_DATABASE ? name(table(qualifiedId))
+                : name(database) + "." + name(table(qualifiedId));
+        QualifiedName added = new QualifiedName(qualifiedId, name);
+        // At most half full, so that a lookup always reaches an empty slot
+        if (++qualifiedNameCount * 2 > current.length) {
+            QualifiedName[] grown = new QualifiedName[current.length * 2];
+            for (QualifiedName entry : current) {
+                if (entry != null) {
+                    insert(grown, entry);
+                }
+            }
+            insert(grown, added);
+            qualifiedNames = grown;
+        } else {
+            current[i] = added;
+        }
+        return name;
+    }
+
+    private static void insert(QualifiedName[] entries, QualifiedName entry) {
+        int mask = entries.length - 1;
+        int i = slot(entry.id, mask);
+        while (entries[i] != null) {
+            i = (i + 1) & mask;
+        }
+        entries[i] = entry;
+    }
+
+    private static int slot(long qualifiedId, int mask) {
+        // Id pairs are small consecutive ints, so spread them over the whole array
+        return (int) ((qualifiedId * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    public static long pack(int database, int table) {
+        return (long) database << 32 | (table & 0xFFFFFFFFL);
+    }
+
+    public static int database(long qualifiedId) {
+        return (int) (qualifiedId >> 32);
+    }
+
+    public static int table(long qualifiedId) {
+        return (int) qualifiedId;
+    }
+
+    /**
+     * The number of distinct identifiers.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private static final class QualifiedName {
+
+        final long id;
+        final String name;
+
+        QualifiedName(long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.example;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.IntStream;
+
+public class SymbolTableTest {
+
+    @Test
+    public void testCanonicalIds() {
+        SymbolTable symbols = new SymbolTable();
+        int id = symbols.intern("Orders");
+        Assert.assertEquals(id, symbols.intern("ORDERS"));
+        Assert.assertEquals(id, symbols.intern("orders"));
+        Assert.assertEquals("orders", symbols.name(id));
+
+        int dw = symbols.intern("dw");
+        long qualified = symbols.qualify("DW.Orders", -1);
+        Assert.assertEquals(SymbolTable.pack(dw, id), qualified);
+        Assert.assertEquals(qualified, symbols.qualify("orders", dw));
+        Assert.assertEquals("dw.orders", symbols.qualifiedName(qualified));
+        Assert.assertSame(symbols.qualifiedName(qualified), symbols.qualifiedName(symbols.qualify("dw.ORDERS", -1)));
+        // Only the canonical spellings are kept
+        Assert.assertEquals(2, symbols.size());
+    }
+
+    @Test
+    public void testConcurrentInterning() {
+        SymbolTable symbols = new SymbolTable();
+        int[] ids = IntStream.range(0, 40000).parallel().map(i -> symbols.intern("t" + (i % 10000))).toArray();
+        Assert.assertEquals(10000, symbols.size());
+        for (int i = 0; i < ids.length; i++) {
+            Assert.assertEquals(ids[i % 10000], ids[i]);
+            Assert.assertEquals("t" + (i % 10000), symbols.name(ids[i]));
+        }
+    }
+
+    @Test
+    public void testConcurrentQualifiedNames() {
+        SymbolTable symbols = new SymbolTable();
+        long[] ids = IntStream.range(0, 20000).mapToLong(i -> symbols.qualify("db" + (i % 50) + ".t" + (i / 50))).toArray();
+        String[] names = IntStream.range(0, 80000).parallel().mapToObj(i -> symbols.qualifiedName(ids[i % ids.length])).toArray(String[]::new);
+        for (int i = 0; i < names.length; i++) {
+            Assert.assertEquals("db" + (i % 50) + ".t" + (i % ids.length / 50), names[i]);
+            Assert.assertSame(names[i % ids.length], names[i]);
+        }
+        Assert.assertEquals("t0", symbols.qualifiedName(symbols.qualify("T0")));
+    }
+
+    @Test
+    public void testParserUsesCanonicalNames() throws Exception {
+        HiveSqlParser parser = new HiveSqlParser();
+        parser.parse("use MyDb; select * from Orders join mydb.ORDERS o on 1 = 1; with Recent as (select 1) select * from recent");
+        Assert.assertEquals(Collections.singletonList("mydb.orders"), parser.getTableNames());
+        StatementResult result = parser.getStatementResults().get(0);
+        Assert.assertEquals("mydb", result.getDatabase());
+        SymbolTable symbols = result.getSymbolTable();
+        Assert.assertEquals("mydb.orders", symbols.qualifiedName(result.getSourceTableIds()[0]));
+        Assert.assertEquals("mydb", symbols.name(result.getDatabaseId()));
+        Assert.assertEquals(Arrays.asList(), parser.getStatementResults().get(1).getSourceTables());
+    }
+
+    @Test
+    public void testInjectedSymbolTable() throws Exception {
+        SymbolTable symbols = new SymbolTable();
+        HiveSqlParser first = new HiveSqlParser(symbols);
+        HiveSqlParser second = new HiveSqlParser(symbols);
+        HiveSqlParser own = new HiveSqlParser();
+        String script = "insert into table dw.t partition (dt='1') select * from Orders";
+        first.parse(script);
+        second.parse(script);
+        own.parse(script);
+        StatementResult result = first.getStatementResults().get(0);
+        Assert.assertSame(symbols, result.getSymbolTable());
+        Assert.assertArrayEquals(result.getSourceTableIds(), second.getStatementResults().get(0).getSourceTableIds());
+        Assert.assertEquals(symbols.qualify("default.orders"), result.getSourceTableIds()[0]);
+        Assert.assertEquals(symbols.qualify("dw.t"), result.getTargetTableIds()[0]);
+        // Results of different tables compare by name
+        Assert.assertNotSame(symbols, own.getStatementResults().get(0).getSymbolTable());
+        Assert.assertEquals(result, own.getStatementResults().get(0));
+        Assert.assertEquals(result.hashCode(), own.getStatementResults().get(0).hashCode());
+    }
+}
@@ -0,0 +1,329 @@
+package org.example;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Memory-mapped inverted index from qualified table name to the statements that read or write
+ * the table, written by a {@link TableIndexer}. A lookup is a binary search over the sorted table
+ * entries followed by a sequential read of the table's postings, so it touches a few pages
+ * regardless of the size of the corpus.
+ * <p>
+ * The file holds a header and four sections. Integers are big-endian; names are offsets into the
+ * string pool, where each string is an int length followed by its UTF-8 bytes.
+ * <pre>
+ * header:   magic:int version:int scriptCount:int tableCount:int
+ *           scriptsOffset:long tablesOffset:long postingsOffset:long stringsOffset:long
+ * scripts:  (id:name size:long modified:long checksum:long)*       sorted by id
+ * tables:   (name:name firstPosting:int postingCount:int)*          sorted by name
+ * postings: (script:int statementIndex:int offset:long write:int)*  grouped by table
+ * strings:  (length:int utf8)*
+ * </pre>
+ * The file is limited to 2 GB. An index is thread-safe once opened.
+ */
+public final class TableIndex implements Closeable {
+
+    static final int MAGIC = 0x48535449;
+    static final int VERSION = 1;
+    private static final int HEADER_SIZE = 48;
+    private static final int SCRIPT_SIZE = 28;
+    private static final int TABLE_SIZE = 12;
+    private static final int POSTING_SIZE = 20;
+
+    private final ByteBuffer buffer;
+    private final int scriptCount;
+    private final int tableCount;
+    private final int scriptsOffset;
+    private final int tablesOffset;
+    private final int postingsOffset;
+    private final int stringsOffset;
+
+    private TableIndex(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a table index");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported table index version: " + buffer.getInt(4));
+        }
+        scriptCount = buffer.getInt(8);
+        tableCount = buffer.getInt(12);
+        scriptsOffset = (int) buffer.getLong(16);
+        tablesOffset = (int) buffer.getLong(24);
+        postingsOffset = (int) buffer.getLong(32);
+        stringsOffset = (int) buffer.getLong(40);
+    }
+
+    public static TableIndex open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Table index larger than 2 GB: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new TableIndex(buffer);
+        }
+    }
+
+    public int getScriptCount() {
+        return scriptCount;
+    }
+
+    public int getTableCount() {
+        return tableCount;
+    }
+
+    /**
+     * The statements that read or write the table, by script and then statement order.
+     *
+     * @param table the name qualified with its database, as in {@link StatementResult}
+     */
+    public List<TableReference> lookup(String table) {
+        int low = 0;
+        int high = tableCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int entry = tablesOffset + middle * TABLE_SIZE;
+            int comparison = string(buffer.getInt(entry)).compareTo(table);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return postings(buffer.getInt(entry + 4), buffer.getInt(entry + 8));
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    private List<TableReference> postings(int first, int count) {
+        List<TableReference> references = new ArrayList<>(count);
+        Map<Integer, String> scriptIds = new HashMap<>();
+        for (int i = first; i < first + count; i++) {
+            int posting = postingsOffset + i * POSTING_SIZE;
+            int script = buffer.getInt(posting);
+            String scriptId = scriptIds.get(script);
+            if (scriptId == null) {
+                scriptId = string(buffer.getInt(scriptsOffset + script * SCRIPT_SIZE));
+                scriptIds.put(script, scriptId);
+            }
+            references.add(new TableReference(scriptId, buffer.getInt(posting + 4), buffer.getLong(posting + 8),
+                    buffer.getInt(posting + 16) != 0));
+        }
+        return references;
+    }
+
+    private String string(int offset) {
+        int position = stringsOffset + offset;
+        int length = buffer.getInt(position);
+        byte[] bytes = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(position + 4);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Every script of the index with its fingerprint and references, for re-indexing.
+     */
+    Map<String, IndexedScript> readScripts() {
+        IndexedScript[] scripts = new IndexedScript[scriptCount];
+        for (int i = 0; i < scriptCount; i++) {
+            int entry = scriptsOffset + i * SCRIPT_SIZE;
+            scripts[i] = new IndexedScript(string(buffer.getInt(entry)), buffer.getLong(entry + 4),
+                    buffer.getLong(entry + 12), buffer.getLong(entry + 20));
+        }
+        for (int t = 0; t < tableCount; t++) {
+            int entry = tablesOffset + t * TABLE_SIZE;
+            String table = string(buffer.getInt(entry));
+            int first = buffer.getInt(entry + 4);
+            for (int i = first; i < first + buffer.getInt(entry + 8); i++) {
+                int posting = postingsOffset + i * POSTING_SIZE;
+                scripts[buffer.getInt(posting)].add(table, buffer.getInt(posting + 4), buffer.getLong(posting + 8),
+                        buffer.getInt(posting + 16) != 0);
+            }
+        }
+        Map<String, IndexedScript> byId = new LinkedHashMap<>();
+        for (IndexedScript script : scripts) {
+            byId.put(script.id, script);
+        }
+        return byId;
+    }
+
+    /**
+     * The mapping is released when the index is garbage collected.
+     */
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Writes an index of the given scripts.
+     */
+    static void write(Path path, List<IndexedScript> scripts) throws IOException {
+        List<IndexedScript> sorted = new ArrayList<>(scripts);
+        sorted.sort((a, b) -> a.id.compareTo(b.id));
+
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+        DataOutputStream stringOut = new DataOutputStream(strings);
+        int[] scriptNames = new int[sorted.size()];
+        Map<String, Integer> tableIds = new HashMap<>();
+        List<String> tableNames = new ArrayList<>();
+        int postingCount = 0;
+        for (int s = 0; s < sorted.size(); s++) {
+            IndexedScript script = sorted.get(s);
+            scriptNames[s] = addString(stringOut, script.id);
+            for (int i = 0; i < script.size(); i++) {
+                if (!tableIds.containsKey(script.tables.get(i))) {
+                    tableIds.put(script.tables.get(i), tableIds.size());
+                    tableNames.add(script.tables.get(i));
+                }
+            }
+            postingCount += script.size();
+        }
+        List<String> sortedTables = new ArrayList<>(tableNames);
+        Collections.sort(sortedTables);
+        int[] rank = new int[sortedTables.size()];
+        for (int r = 0; r < sortedTables.size(); r++) {
+            rank[tableIds.get(sortedTables.get(r))] = r;
+        }
+
+        // Group the postings by table with a counting sort, keeping script and statement order
+        int[] first = new int[sortedTables.size() + 1];
+        for (IndexedScript script : sorted) {
+            for (int i = 0; i < script.size(); i++) {
+                first[rank[tableIds.get(script.tables.get(i))] + 1]++;
+            }
+        }
+        for (int r = 0; r < sortedTables.size(); r++) {
+            first[r + 1] += first[r];
+        }
+        int[] next = first.clone();
+        int[] postingScripts = new int[postingCount];
+        int[] postingStatements = new int[postingCount];
+        long[] postingOffsets = new long[postingCount];
+        boolean[] postingWrites = new boolean[postingCount];
+        for (int s = 0; s < sorted.size(); s++) {
+            IndexedScript script = sorted.get(s);
+            for (int i = 0; i < script.size(); i++) {
+                int p = next[rank[tableIds.get(script.tables.get(i))]]++;
+                postingScripts[p] = s;
+                postingStatements[p] = script.statements.get(i);
+                postingOffsets[p] = script.offsets.get(i);
+                postingWrites[p] = script.writes.get(i);
+            }
+        }
+        int[] tableNameOffsets = new int[sortedTables.size()];
+        for (int r = 0; r < sortedTables.size(); r++) {
+            tableNameOffsets[r] = addString(stringOut, sortedTables.get(r));
+        }
+        stringOut.flush();
+
+        long scriptsOffset = HEADER_SIZE;
+        long tablesOffset = scriptsOffset + (long) sorted.size() * SCRIPT_SIZE;
+        long postingsOffset = tablesOffset + (long) sortedTables.size() * TABLE_SIZE;
+        long stringsOffset = postingsOffset + (long) postingCount * POSTING_SIZE;
+        if (stringsOffset + strings.size() > Integer.MAX_VALUE) {
+            throw new IOException("Table index would be larger than 2 GB");
+        }
+        try (OutputStream file = Files.newOutputStream(path);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(sorted.size());
+            out.writeInt(sortedTables.size());
+            out.writeLong(scriptsOffset);
+            out.writeLong(tablesOffset);
+            out.writeLong(postingsOffset);
+            out.writeLong(stringsOffset);
+            for (int s = 0; s < sorted.size(); s++) {
+                IndexedScript script = sorted.get(s);
+                out.writeInt(scriptNames[s]);
+                out.writeLong(script.size);
+                out.writeLong(script.modified);
+                out.writeLong(script.checksum);
+            }
+            for (int r = 0; r < sortedTables.size(); r++) {
+                out.writeInt(tableNameOffsets[r]);
+                out.writeInt(first[r]);
+                out.writeInt(first[r + 1] - first[r]);
+            }
+            for (int p = 0; p < postingCount; p++) {
+                out.writeInt(postingScripts[p]);
+                out.writeInt(postingStatements[p]);
+                out.writeLong(postingOffsets[p]);
+                out.writeInt(postingWrites[p] ? 1 : 0);
+            }
+            strings.writeTo(out);
+        }
+    }
+
+    private static int addString(DataOutputStream strings, String value) throws IOException {
+        int offset = strings.size();
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        strings.writeInt(bytes.length);
+        strings.write(bytes);
+        return offset;
+    }
+
+    /**
+     * A script with its fingerprint and the tables referenced by its statements.
+     */
+    static final class IndexedScript {
+
+        final String id;
+        final long size;
+        final long modified;
+        final long checksum;
+        final List<String> tables = new ArrayList<>();
+        final List<Integer> statements = new ArrayList<>();
+        final List<Long> offsets = new ArrayList<>();
+        final List<Boolean> writes = new ArrayList<>();
+
+        IndexedScript(String id, long size, long modified, long checksum) {
+            this.id = id;
+            this.size = size;
+            this.modified = modified;
+            this.checksum = checksum;
+        }
+
+        void add(String table, int statementIndex, long offset, boolean write) {
+            tables.add(table);
+            statements.add(statementIndex);
+            offsets.add(offset);
+            writes.add(write);
+        }
+
+        int size() {
+            return tables.size();
+        }
+
+        /**
+         * The same references under a new modification time.
+         */
+        IndexedScript withModified(long modified) {
+            IndexedScript copy = new IndexedScript(id, size, modified, checksum);
+            copy.tables.addAll(tables);
+            copy.statements.addAll(statements);
+            copy.offsets.addAll(offsets);
+            copy.writes.addAll(writes);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.example;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class TableIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testIndexAndLookup() throws Exception {
+        Path scripts = folder.newFolder("scripts").toPath();
+        Path indexFile = folder.getRoot().toPath().resolve("tables.idx");
+        write(scripts.resolve("ods/orders.sql"), "insert overwrite table ods.orders select * from raw.orders");
+        String report = "use dw;\nselect * from ods.orders;\nselect from;\ninsert into report select * from ods.orders o join ods.users u on o.uid = u.id";
+        write(scripts.resolve("dw/report.sql"), report);
+        write(scripts.resolve("notes.txt"), "select * from ods.orders");
+
+        TableIndexer indexer = new TableIndexer();
+        indexer.index(scripts, indexFile);
+        Assert.assertEquals(2, indexer.getParsedScripts());
+
+        try (TableIndex index = TableIndex.open(indexFile)) {
+            Assert.assertEquals(2, index.getScriptCount());
+            Assert.assertEquals(4, index.getTableCount());
+            Assert.assertEquals(Arrays.asList(
+                    new TableReference("dw/report.sql", 1, report.indexOf("select * from ods.orders"), false),
+                    new TableReference("dw/report.sql", 3, report.indexOf("insert"), false),
+                    new TableReference("ods/orders.sql", 0, 0, true)), index.lookup("ods.orders"));
+            Assert.assertEquals(Collections.singletonList(new TableReference("dw/report.sql", 3, report.indexOf("insert"), true)),
+                    index.lookup("dw.report"));
+            Assert.assertEquals(Collections.emptyList(), index.lookup("dw.missing"));
+        }
+    }
+
+    @Test
+    public void testReindexOnlyParsesChangedScripts() throws Exception {
+        Path scripts = folder.newFolder("scripts").toPath();
+        Path indexFile = folder.getRoot().toPath().resolve("tables.idx");
+        write(scripts.resolve("a.sql"), "select * from db.a");
+        write(scripts.resolve("b.sql"), "select * from db.b");
+        write(scripts.resolve("c.sql"), "select * from db.c");
+        TableIndexer indexer = new TableIndexer();
+        indexer.index(scripts, indexFile);
+
+        write(scripts.resolve("a.sql"), "select * from db.a2");
+        // Touched but unchanged
+        Files.setLastModifiedTime(scripts.resolve("b.sql"), FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+        Files.delete(scripts.resolve("c.sql"));
+        write(scripts.resolve("d.sql"), "select * from db.a");
+        indexer.index(scripts, indexFile);
+        Assert.assertEquals(2, indexer.getParsedScripts());
+        Assert.assertEquals(1, indexer.getReusedScripts());
+
+        try (TableIndex index = TableIndex.open(indexFile)) {
+            Assert.assertEquals(3, index.getScriptCount());
+            Assert.assertEquals(Collections.singletonList(new TableReference("d.sql", 0, 0, false)), index.lookup("db.a"));
+            Assert.assertEquals(1, index.lookup("db.a2").size());
+            Assert.assertEquals(1, index.lookup("db.b").size());
+            Assert.assertEquals(Collections.emptyList(), index.lookup("db.c"));
+        }
+
+        indexer.index(scripts, indexFile);
+        Assert.assertEquals(0, indexer.getParsedScripts());
+        Assert.assertEquals(3, indexer.getReusedScripts());
+    }
+
+    private static void write(Path file, String content) throws Exception {
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
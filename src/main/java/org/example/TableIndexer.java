@@ -0,0 +1,164 @@
+package org.example;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Builds a {@link TableIndex} of the {@code .sql} scripts under a directory. A script's id is its
+ * path relative to the directory, with {@code /} as separator.
+ * <p>
+ * Every script is stored with a fingerprint: its size, modification time and CRC-32. When an index
+ * already exists, a script whose size and modification time are unchanged is taken over without
+ * being read, and one whose content is unchanged without being parsed; only new and changed
+ * scripts are parsed, in parallel. Scripts are parsed in fail-soft mode, so a statement that
+ * fails to parse only drops that statement. The new index replaces the old one atomically.
+ * <p>
+ * Usage: {@code TableIndexer index <scriptDirectory> <indexFile>} or
+ * {@code TableIndexer lookup <indexFile> <db.table>}
+ */
+public class TableIndexer {
+
+    private static Logger logger = LoggerFactory.getLogger(TableIndexer.class);
+
+    private final HiveSqlParserPool parsers;
+    private final AtomicInteger parsedScripts = new AtomicInteger();
+    private final AtomicInteger reusedScripts = new AtomicInteger();
+
+    public TableIndexer() {
+        this(() -> {
+            HiveSqlParser parser = new HiveSqlParser();
+            parser.setFailSoft(true);
+            return parser;
+        });
+    }
+
+    public TableIndexer(Supplier<HiveSqlParser> parserFactory) {
+        this.parsers = new HiveSqlParserPool(Runtime.getRuntime().availableProcessors(), parserFactory);
+    }
+
+    /**
+     * Indexes the scripts under {@code scriptDirectory} into {@code indexFile}, reusing the
+     * entries of unchanged scripts if the file already holds an index.
+     */
+    public void index(Path scriptDirectory, Path indexFile) throws IOException {
+        parsedScripts.set(0);
+        reusedScripts.set(0);
+        Map<String, TableIndex.IndexedScript> previous = Collections.emptyMap();
+        if (Files.exists(indexFile)) {
+            try (TableIndex index = TableIndex.open(indexFile)) {
+                previous = index.readScripts();
+            } catch (IOException e) {
+                logger.warn("Read table index {} fail, rebuilding it, message: {}", indexFile, e.getMessage());
+            }
+        }
+
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(scriptDirectory)) {
+            files = walk.filter(file -> Files.isRegularFile(file) && file.getFileName().toString().endsWith(".sql"))
+                    .collect(Collectors.toList());
+        }
+        Map<String, TableIndex.IndexedScript> known = previous;
+        List<TableIndex.IndexedScript> scripts = files.parallelStream()
+                .map(file -> indexScript(scriptDirectory, file, known))
+                .filter(script -> script != null)
+                .collect(Collectors.toList());
+
+        Path temporary = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        TableIndex.write(temporary, scripts);
+        Files.move(temporary, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.info("Indexed {} scripts into {}: {} parsed, {} unchanged", scripts.size(), indexFile,
+                parsedScripts.get(), reusedScripts.get());
+    }
+
+    /**
+     * @return null if the script cannot be read
+     */
+    private TableIndex.IndexedScript indexScript(Path scriptDirectory, Path file, Map<String, TableIndex.IndexedScript> previous) {
+        String scriptId = scriptDirectory.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+        try {
+            long size = Files.size(file);
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            TableIndex.IndexedScript old = previous.get(scriptId);
+            if (old != null && old.size == size && old.modified == modified) {
+                reusedScripts.incrementAndGet();
+                return old;
+            }
+            byte[] bytes = Files.readAllBytes(file);
+            CRC32 crc = new CRC32();
+            crc.update(bytes, 0, bytes.length);
+            if (old != null && old.size == bytes.length && old.checksum == crc.getValue()) {
+                reusedScripts.incrementAndGet();
+                return old.withModified(modified);
+            }
+            TableIndex.IndexedScript script = new TableIndex.IndexedScript(scriptId, bytes.length, modified, crc.getValue());
+            String text = new String(bytes, StandardCharsets.UTF_8);
+            List<Long> offsets = new ArrayList<>();
+            for (Statement statement : StatementSplitter.split(text)) {
+                offsets.add(statement.getStart());
+            }
+            for (StatementResult result : parsers.extract(text).getStatementResults()) {
+                long offset = offsets.get(result.getIndex());
+                for (TableTarget target : result.getTargets()) {
+                    script.add(target.getTable(), result.getIndex(), offset, true);
+                }
+                for (String source : result.getSourceTables()) {
+                    script.add(source, result.getIndex(), offset, false);
+                }
+            }
+            parsedScripts.incrementAndGet();
+            return script;
+        } catch (Exception e) {
+            logger.warn("Index script {} fail, message: {}", scriptId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * The number of scripts parsed by the last {@link #index(Path, Path)}.
+     */
+    public int getParsedScripts() {
+        return parsedScripts.get();
+    }
+
+    /**
+     * The number of scripts taken over unchanged from the previous index by the last
+     * {@link #index(Path, Path)}.
+     */
+    public int getReusedScripts() {
+        return reusedScripts.get();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 3 && "index".equals(args[0])) {
+            new TableIndexer().index(Paths.get(args[1]), Paths.get(args[2]));
+        } else if (args.length == 3 && "lookup".equals(args[0])) {
+            try (TableIndex index = TableIndex.open(Paths.get(args[1]))) {
+                long start = System.nanoTime();
+                List<TableReference> references = index.lookup(args[2]);
+                long elapsed = System.nanoTime() - start;
+                for (TableReference reference : references) {
+                    System.out.println(reference);
+                }
+                System.out.printf("%d references in %.3f ms%n", references.size(), elapsed / 1e6);
+            }
+        } else {
+            System.err.println("Usage: TableIndexer index <scriptDirectory> <indexFile> | lookup <indexFile> <db.table>");
+        }
+    }
+}
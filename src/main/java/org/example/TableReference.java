@@ -0,0 +1,67 @@
+package org.example;
+
+/**
+ * Immutable entry of a {@link TableIndex}: one statement of one script that reads or writes a
+ * table.
+ */
+public final class TableReference {
+
+    private final String scriptId;
+    private final int statementIndex;
+    private final long offset;
+    private final boolean write;
+
+    public TableReference(String scriptId, int statementIndex, long offset, boolean write) {
+        this.scriptId = scriptId;
+        this.statementIndex = statementIndex;
+        this.offset = offset;
+        this.write = write;
+    }
+
+    public String getScriptId() {
+        return scriptId;
+    }
+
+    /**
+     * See {@link Statement#getIndex()}.
+     */
+    public int getStatementIndex() {
+        return statementIndex;
+    }
+
+    /**
+     * The offset of the statement in its script, see {@link Statement#getStart()}.
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Whether the statement writes the table rather than reads it.
+     */
+    public boolean isWrite() {
+        return write;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TableReference)) return false;
+        TableReference that = (TableReference) o;
+        return statementIndex == that.statementIndex && offset == that.offset && write == that.write
+                && scriptId.equals(that.scriptId);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = scriptId.hashCode();
+        result = 31 * result + statementIndex;
+        result = 31 * result + Long.hashCode(offset);
+        return 31 * result + (write ? 1 : 0);
+    }
+
+    @Override
+    public String toString() {
+        return scriptId + "#" + statementIndex + "@" + offset + (write ? " write" : " read");
+    }
+}
@@ -0,0 +1,306 @@
+package org.example;
+
+import org.apache.hadoop.hive.ql.parse.ASTNode;
+import org.apache.hadoop.hive.ql.parse.BaseSemanticAnalyzer;
+import org.apache.hadoop.hive.ql.parse.HiveParser;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Single-pass, iterative walk over a statement's AST that collects the names of the tables read by
+ * the statement and of its CTEs, as written in the statement.
+ * <p>
+ * A table reference ({@code TOK_TABREF}) is collected when it sits in the FROM clause of a query,
+ * possibly nested in joins of any kind, UNION ALLs, lateral views, table functions and FROM-clause
+ * subqueries, or in the USING clause of a MERGE. Subqueries in expressions are queries of their own
+ * and are collected at any depth. Each node is visited once; subtrees that cannot contain a query,
+ * such as column lists and storage clauses of {@code CREATE TABLE}, are not entered. The tables
+ * written by the statement are collected in the same pass: INSERT destinations, created, altered,
+ * renamed, dropped and truncated tables or views, both tables of an EXCHANGE PARTITION, and the
+ * targets of MERGE, UPDATE, DELETE, LOAD and IMPORT. EXPORT, ANALYZE and CREATE TABLE LIKE read
+ * their table; EXPLAIN writes nothing. The stack lives on the heap, so the depth of the AST is not
+ * bounded by the thread stack; optional limits on the depth and the node count are checked as the
+ * walk goes. The node stack is reused across statements, so a
+ * visitor must not be shared between threads.
+ */
+final class TableReferenceVisitor {
+
+    private ASTNode[] nodes = new ASTNode[64];
+    // Whether the node on the stack at the same index is part of a FROM clause
+    private boolean[] inFrom = new boolean[64];
+    // The depth of the node on the stack at the same index, the root being at depth 1
+    private int[] depths = new int[64];
+    private int size;
+    private int maxDepth = Integer.MAX_VALUE;
+    private int maxNodes = Integer.MAX_VALUE;
+
+    /**
+     * Limits the depth and the node count of the ASTs visited; 0 means no limit.
+     */
+    void setLimits(int maxDepth, int maxNodes) {
+        this.maxDepth = maxDepth > 0 ? maxDepth : Integer.MAX_VALUE;
+        this.maxNodes = maxNodes > 0 ? maxNodes : Integer.MAX_VALUE;
+    }
+
+    int visit(ASTNode root, Set<String> tableNames, Set<String> cteNames) throws ParseLimitException {
+        return visit(root, tableNames, cteNames, null);
+    }
+
+    /**
+     * @param targets receives the tables written by the statement, as written in the statement;
+     *                null to skip them
+     * @return the number of nodes visited
+     * @throws ParseLimitException if the AST exceeds the limits
+     */
+    int visit(ASTNode root, Set<String> tableNames, Set<String> cteNames, List<TableTarget> targets) throws ParseLimitException {
+        int visited = 0;
+        // Cleared by EXPLAIN, whose statement writes nothing
+        boolean collectTargets = targets != null;
+        size = 0;
+        push(root, false, 1);
+        try {
+            while (size > 0) {
+                if (++visited > maxNodes) {
+                    throw new ParseLimitException(ParseLimitException.Limit.AST_NODES, "AST has more than " + maxNodes + " nodes");
+                }
+                size--;
+                ASTNode node = nodes[size];
+                boolean from = inFrom[size];
+                int depth = depths[size];
+                nodes[size] = null;
+                if (depth > maxDepth) {
+                    throw new ParseLimitException(ParseLimitException.Limit.AST_DEPTH, "AST is deeper than " + maxDepth + " levels");
+                }
+
+                switch (node.getType()) {
+                    case HiveParser.TOK_TABREF:
+                        if (from) {
+                            String tableName = getTableName(node);
+                            if (!cteNames.contains(tableName)) {
+                                tableNames.add(tableName);
+                            }
+                        }
+                        continue;
+                    case HiveParser.TOK_CTE:
+                        collectCteNames(node, cteNames);
+                        break;
+                    case HiveParser.TOK_DESTINATION:
+                    case HiveParser.TOK_INSERT_INTO:
+                        if (collectTargets && node.getChild(0).getType() == HiveParser.TOK_TAB) {
+                            targets.add(getTarget((ASTNode) node.getChild(0)));
+                        }
+                        continue;
+                    case HiveParser.TOK_CREATETABLE:
+                    case HiveParser.TOK_CREATEVIEW:
+                    case HiveParser.TOK_CREATE_MATERIALIZED_VIEW:
+                    case HiveParser.TOK_UPDATE_TABLE:
+                    case HiveParser.TOK_DELETE_FROM:
+                    case HiveParser.TOK_ALTERTABLE:
+                    case HiveParser.TOK_ALTERVIEW:
+                    case HiveParser.TOK_ALTER_MATERIALIZED_VIEW:
+                    case HiveParser.TOK_DROPTABLE:
+                    case HiveParser.TOK_DROPVIEW:
+                    case HiveParser.TOK_DROP_MATERIALIZED_VIEW:
+                    case HiveParser.TOK_MSCK:
+                        // The table named by the statement, e.g. the old name of a renamed table
+                        if (collectTargets) {
+                            addNamedTarget(node, targets);
+                        }
+                        break;
+                    case HiveParser.TOK_ALTERTABLE_RENAME:
+                    case HiveParser.TOK_ALTERVIEW_RENAME:
+                        // The new name
+                        if (collectTargets) {
+                            addNamedTarget(node, targets);
+                        }
+                        continue;
+                    case HiveParser.TOK_ALTERTABLE_EXCHANGEPARTITION:
+                        // The table the partition is moved out of loses it
+                        if (collectTargets) {
+                            addNamedTarget(node, targets);
+                        }
+                        continue;
+                    case HiveParser.TOK_LIKETABLE:
+                        // The table copied by CREATE TABLE LIKE
+                        ASTNode sourceName = child(node, HiveParser.TOK_TABNAME);
+                        if (sourceName != null) {
+                            tableNames.add(BaseSemanticAnalyzer.getUnescapedName(sourceName));
+                        }
+                        continue;
+                    case HiveParser.TOK_MERGE:
+                        if (collectTargets) {
+                            targets.add(new TableTarget(getTableName((ASTNode) node.getChild(0)),
+                                    Collections.<String, String>emptyMap()));
+                        }
+                        break;
+                    case HiveParser.TOK_TRUNCATETABLE:
+                    case HiveParser.TOK_LOAD:
+                    case HiveParser.TOK_IMPORT:
+                        ASTNode tab = child(node, HiveParser.TOK_TAB);
+                        if (tab == null) {
+                            tab = child(node, HiveParser.TOK_TABLE_PARTITION);
+                        }
+                        if (collectTargets && tab != null) {
+                            targets.add(getTarget(tab));
+                        }
+                        continue;
+                    case HiveParser.TOK_EXPORT:
+                    case HiveParser.TOK_ANALYZE:
+                        ASTNode read = child(node, HiveParser.TOK_TAB);
+                        if (read != null) {
+                            tableNames.add(BaseSemanticAnalyzer.getUnescapedName((ASTNode) read.getChild(0)));
+                        }
+                        continue;
+                    case HiveParser.TOK_EXPLAIN:
+                        // Nothing is written, only the tables read by the explained statement count
+                        collectTargets = false;
+                        break;
+                    case HiveParser.TOK_TABNAME:
+                    case HiveParser.TOK_TABLE_OR_COL:
+                    case HiveParser.TOK_TABCOLLIST:
+                    case HiveParser.TOK_TABLEPARTCOLS:
+                    case HiveParser.TOK_ALTERTABLE_BUCKETS:
+                    case HiveParser.TOK_TABLEROWFORMAT:
+                    case HiveParser.TOK_TABLESERIALIZER:
+                    case HiveParser.TOK_FILEFORMAT_GENERIC:
+                    case HiveParser.TOK_TABLEFILEFORMAT:
+                    case HiveParser.TOK_TABLELOCATION:
+                    case HiveParser.TOK_TABLEPROPERTIES:
+                    case HiveParser.TOK_TABLECOMMENT:
+                    case HiveParser.TOK_PARTSPEC:
+                        // Cannot contain a table reference
+                        continue;
+                    default:
+                        break;
+                }
+                pushChildren(node, from, depth);
+            }
+        } finally {
+            // Do not keep the nodes of an abandoned walk reachable
+            Arrays.fill(nodes, 0, size, null);
+            size = 0;
+        }
+        return visited;
+    }
+
+    private void pushChildren(ASTNode node, boolean from, int depth) {
+        int childCount = node.getChildCount();
+        // Push in reverse so that children are visited left to right
+        for (int i = childCount - 1; i >= 0; i--) {
+            push((ASTNode) node.getChild(i), childInFrom(node, from, i), depth + 1);
+        }
+    }
+
+    private static boolean childInFrom(ASTNode parent, boolean parentInFrom, int childIndex) {
+        int type = parent.getType();
+        if (type == HiveParser.TOK_QUERY) {
+            return true;
+        }
+        if (type == HiveParser.TOK_MERGE) {
+            // The source of the merge; the target is collected with the statement
+            return childIndex == 1;
+        }
+        if (!parentInFrom) {
+            return false;
+        }
+        switch (type) {
+            case HiveParser.TOK_FROM:
+            case HiveParser.TOK_JOIN:
+            case HiveParser.TOK_LEFTOUTERJOIN:
+            case HiveParser.TOK_RIGHTOUTERJOIN:
+            case HiveParser.TOK_FULLOUTERJOIN:
+            case HiveParser.TOK_LEFTSEMIJOIN:
+            case HiveParser.TOK_CROSSJOIN:
+            case HiveParser.TOK_UNIQUEJOIN:
+            case HiveParser.TOK_UNIONALL:
+            case HiveParser.TOK_LATERAL_VIEW:
+            case HiveParser.TOK_LATERAL_VIEW_OUTER:
+            case HiveParser.TOK_PTBLFUNCTION:
+                return true;
+            case HiveParser.TOK_SUBQUERY:
+                // The query, not the alias
+                return childIndex == 0;
+            default:
+                return false;
+        }
+    }
+
+    private void push(ASTNode node, boolean from, int depth) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            inFrom = Arrays.copyOf(inFrom, size * 2);
+            depths = Arrays.copyOf(depths, size * 2);
+        }
+        nodes[size] = node;
+        inFrom[size] = from;
+        depths[size] = depth;
+        size++;
+    }
+
+    static String getTableName(ASTNode tabref) {
+        ASTNode tableTree = (ASTNode) tabref.getChild(0);
+        String tableName = BaseSemanticAnalyzer.getUnescapedName((ASTNode) tableTree.getChild(0));
+        if (tableTree.getChildCount() > 1) {
+            tableName = tableName + "." + BaseSemanticAnalyzer.unescapeIdentifier(tableTree.getChild(1).getText());
+        }
+        return tableName;
+    }
+
+    private static void addNamedTarget(ASTNode node, List<TableTarget> targets) {
+        ASTNode name = child(node, HiveParser.TOK_TABNAME);
+        if (name != null) {
+            targets.add(new TableTarget(BaseSemanticAnalyzer.getUnescapedName(name), Collections.<String, String>emptyMap()));
+        }
+    }
+
+    /**
+     * @return the first child of the given type, or null
+     */
+    private static ASTNode child(ASTNode node, int type) {
+        for (int i = 0; i < node.getChildCount(); i++) {
+            if (node.getChild(i).getType() == type) {
+                return (ASTNode) node.getChild(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The table and partition spec of a {@code TOK_TAB} destination, or of the
+     * {@code TOK_TABLE_PARTITION} of a TRUNCATE.
+     */
+    private static TableTarget getTarget(ASTNode tab) {
+        Map<String, String> partitionSpec = new LinkedHashMap<>();
+        if (tab.getChildCount() > 1 && tab.getChild(1).getType() == HiveParser.TOK_PARTSPEC) {
+            ASTNode spec = (ASTNode) tab.getChild(1);
+            for (int i = 0; i < spec.getChildCount(); i++) {
+                ASTNode partition = (ASTNode) spec.getChild(i);
+                String value = null;
+                if (partition.getChildCount() > 1) {
+                    ASTNode valueNode = (ASTNode) partition.getChild(1);
+                    value = valueNode.getType() == HiveParser.StringLiteral
+                            ? BaseSemanticAnalyzer.unescapeSQLString(valueNode.getText()) : valueNode.getText();
+                }
+                partitionSpec.put(BaseSemanticAnalyzer.unescapeIdentifier(partition.getChild(0).getText()).toLowerCase(), value);
+            }
+        }
+        return new TableTarget(BaseSemanticAnalyzer.getUnescapedName((ASTNode) tab.getChild(0)), partitionSpec);
+    }
+
+    private static void collectCteNames(ASTNode cte, Set<String> cteNames) {
+        for (int i = 0; i < cte.getChildCount(); i++) {
+            ASTNode cteNode = (ASTNode) cte.getChild(i);
+            if (cteNode.getType() == HiveParser.TOK_SUBQUERY) {
+                ASTNode aliasNode = (ASTNode) cteNode.getChild(1);
+                if (aliasNode != null && aliasNode.getType() == HiveParser.Identifier) {
+                    cteNames.add(BaseSemanticAnalyzer.getUnescapedName(aliasNode));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable table written by a statement, with the partition spec of the write if it has one.
+ * In the spec, a partition column without a value is a dynamic partition.
+ */
+public final class TableTarget {
+
+    private static final String[] NO_PARTITION_SPEC = new String[0];
+
+    private final String table;
+    // Partition columns and values, alternating
+    private final String[] partitionSpec;
+
+    public TableTarget(String table, Map<String, String> partitionSpec) {
+        this.table = table;
+        if (partitionSpec.isEmpty()) {
+            this.partitionSpec = NO_PARTITION_SPEC;
+        } else {
+            this.partitionSpec = new String[partitionSpec.size() * 2];
+            int i = 0;
+            for (Map.Entry<String, String> entry : partitionSpec.entrySet()) {
+                this.partitionSpec[i++] = entry.getKey();
+                this.partitionSpec[i++] = entry.getValue();
+            }
+        }
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    /**
+     * The partition columns in the order written, mapped to their value, or to null for a dynamic
+     * partition. Empty if the statement has no PARTITION clause.
+     */
+    public Map<String, String> getPartitionSpec() {
+        if (partitionSpec.length == 0) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> spec = new LinkedHashMap<>();
+        for (int i = 0; i < partitionSpec.length; i += 2) {
+            spec.put(partitionSpec[i], partitionSpec[i + 1]);
+        }
+        return Collections.unmodifiableMap(spec);
+    }
+
+    TableTarget withTable(String table) {
+        return new TableTarget(table, partitionSpec);
+    }
+
+    /**
+     * The partition columns and values, alternating; not to be modified.
+     */
+    String[] partitionSpecPairs() {
+        return partitionSpec;
+    }
+
+    /**
+     * Shares the partition spec array, as returned by {@link #partitionSpecPairs()}.
+     */
+    TableTarget(String table, String[] partitionSpec) {
+        this.table = table;
+        this.partitionSpec = partitionSpec;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TableTarget)) return false;
+        TableTarget that = (TableTarget) o;
+        return table.equals(that.table) && Arrays.equals(partitionSpec, that.partitionSpec);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * table.hashCode() + Arrays.hashCode(partitionSpec);
+    }
+
+    @Override
+    public String toString() {
+        if (partitionSpec.length == 0) {
+            return table;
+        }
+        StringBuilder builder = new StringBuilder(table).append(" PARTITION(");
+        for (int i = 0; i < partitionSpec.length; i += 2) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(partitionSpec[i]);
+            if (partitionSpec[i + 1] != null) {
+                builder.append("='").append(partitionSpec[i + 1]).append('\'');
+            }
+        }
+        return builder.append(')').toString();
+    }
+}